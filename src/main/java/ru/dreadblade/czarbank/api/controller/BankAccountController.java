@@ -57,8 +57,10 @@ public class BankAccountController {
         Long ownerId = requestDTO.getOwnerId();
         Long bankAccountTypeId = requestDTO.getBankAccountTypeId();
         Long usedCurrencyId = requestDTO.getUsedCurrencyId();
+        Integer balanceStripeCount = requestDTO.getBalanceStripeCount();
 
-        BankAccount createdAccount = bankAccountService.create(ownerId, bankAccountTypeId, usedCurrencyId);
+        BankAccount createdAccount = bankAccountService.create(ownerId, bankAccountTypeId, usedCurrencyId,
+                balanceStripeCount == null ? 0 : balanceStripeCount);
         BankAccountResponseDTO responseDTO = bankAccountMapper.entityToResponseDto(createdAccount);
 
         return ResponseEntity.created(URI.create(request.getRequestURI() + "/" + createdAccount.getId()))
@@ -1,14 +1,28 @@
 package ru.dreadblade.czarbank.api.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import ru.dreadblade.czarbank.api.mapper.ExchangeRateMapper;
+import ru.dreadblade.czarbank.api.model.response.CrossRateMatrixResponseDTO;
+import ru.dreadblade.czarbank.api.model.response.ExchangeRateAggregateResponseDTO;
 import ru.dreadblade.czarbank.api.model.response.ExchangeRateResponseDTO;
+import ru.dreadblade.czarbank.repository.projection.ExchangeRateValueProjection;
+import ru.dreadblade.czarbank.service.ExchangeRateAggregationInterval;
 import ru.dreadblade.czarbank.service.ExchangeRateService;
+import ru.dreadblade.czarbank.service.LatestExchangeRates;
+import ru.dreadblade.czarbank.util.ExchangeRateDigest;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @RequestMapping("/api/currencies/exchange-rates")
@@ -18,27 +32,106 @@ public class ExchangeRateController {
     private final ExchangeRateService exchangeRateService;
     private final ExchangeRateMapper exchangeRateMapper;
 
+    @Value("${czar-bank.exchange-rate.http-cache.latest-max-age-seconds:300}")
+    private long latestMaxAgeSeconds;
+
+    /**
+     * Past rates still change through backfills and new currencies, so they are revalidated daily
+     */
+    @Value("${czar-bank.exchange-rate.http-cache.historical-max-age-seconds:86400}")
+    private long historicalMaxAgeSeconds;
+
+    /**
+     * Unchanged latest rates are confirmed with {@code 304 Not Modified} from the in-memory digest, without a query
+     */
     @GetMapping("/latest")
-    public List<ExchangeRateResponseDTO> findAllLatest() {
-        return exchangeRateService.findAllLatest().stream()
-                .map(exchangeRateMapper::entityToResponseDto)
-                .collect(Collectors.toList());
+    public ResponseEntity<List<ExchangeRateResponseDTO>> findAllLatest(WebRequest request) {
+        LatestExchangeRates latestExchangeRates = exchangeRateService.getLatestExchangeRates();
+
+        String eTag = "latest-" + latestExchangeRates.getDigest();
+        long lastModified = latestExchangeRates.getModifiedAt().toEpochMilli();
+        String cacheControl = CacheControl.maxAge(latestMaxAgeSeconds, TimeUnit.SECONDS).cachePublic().getHeaderValue();
+
+        if (request.checkNotModified(eTag, lastModified)) {
+            return notModified(eTag, lastModified, cacheControl);
+        }
+
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .lastModified(lastModified)
+                .header(HttpHeaders.CACHE_CONTROL, cacheControl)
+                .body(latestExchangeRates.getExchangeRates().stream()
+                        .map(exchangeRateMapper::valueToResponseDto)
+                        .collect(Collectors.toList()));
+    }
+
+    @GetMapping("/matrix")
+    public CrossRateMatrixResponseDTO getLatestCrossRateMatrix() {
+        return exchangeRateMapper.crossRateMatrixToResponseDto(exchangeRateService.getLatestCrossRateMatrix());
     }
 
+    /**
+     * Rates of past days rarely change, so they are cached longer than the latest ones
+     */
     @GetMapping("/historical/{date}")
-    public List<ExchangeRateResponseDTO> findAllByDate(@PathVariable @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate date) {
-        return exchangeRateService.findAllByDate(date).stream()
-                .map(exchangeRateMapper::entityToResponseDto)
-                .collect(Collectors.toList());
+    public ResponseEntity<List<ExchangeRateResponseDTO>> findAllByDate(
+            @PathVariable @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate date,
+            WebRequest request
+    ) {
+        // read before the rates, so a reload in between can only make the response look older than it is
+        long lastModified = exchangeRateService.getHistoricalModifiedAt(date).toEpochMilli();
+        List<ExchangeRateValueProjection> exchangeRates = exchangeRateService.findAllByDate(date);
+
+        String eTag = date + "-" + ExchangeRateDigest.digest(exchangeRates,
+                ExchangeRateValueProjection::getCurrencyId, ExchangeRateValueProjection::getExchangeRate);
+        long maxAgeSeconds = date.isBefore(LocalDate.now()) ? historicalMaxAgeSeconds : latestMaxAgeSeconds;
+        String cacheControl = CacheControl.maxAge(maxAgeSeconds, TimeUnit.SECONDS).cachePublic().getHeaderValue();
+
+        if (request.checkNotModified(eTag, lastModified)) {
+            return notModified(eTag, lastModified, cacheControl);
+        }
+
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .lastModified(lastModified)
+                .header(HttpHeaders.CACHE_CONTROL, cacheControl)
+                .body(exchangeRates.stream()
+                        .map(exchangeRateMapper::valueToResponseDto)
+                        .collect(Collectors.toList()));
     }
 
     @GetMapping("/time-series")
     public List<ExchangeRateResponseDTO> findAllInTimeSeries(
             @RequestParam("start-date") @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate startDate,
-            @RequestParam("end-date") @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate endDate
+            @RequestParam("end-date") @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate endDate,
+            @RequestParam(value = "currency-id", required = false) Set<Long> currencyIds
+    ) {
+        return exchangeRateService.findAllInTimeSeries(startDate, endDate, currencyIds != null ? currencyIds : Set.of()).stream()
+                .map(exchangeRateMapper::valueToResponseDto)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * One row per currency and week or month instead of one per day, for charting long ranges
+     */
+    @GetMapping("/time-series/aggregated")
+    public List<ExchangeRateAggregateResponseDTO> findAllAggregatedInTimeSeries(
+            @RequestParam("start-date") @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate startDate,
+            @RequestParam("end-date") @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate endDate,
+            @RequestParam ExchangeRateAggregationInterval interval,
+            @RequestParam(value = "currency-id", required = false) Set<Long> currencyIds
     ) {
-        return exchangeRateService.findAllInTimeSeries(startDate, endDate).stream()
-                .map(exchangeRateMapper::entityToResponseDto)
+        return exchangeRateService.findAllAggregatedInTimeSeries(startDate, endDate, interval,
+                        currencyIds != null ? currencyIds : Set.of()).stream()
+                .map(exchangeRateMapper::aggregateToResponseDto)
                 .collect(Collectors.toList());
     }
+
+    private <T> ResponseEntity<T> notModified(String eTag, long lastModified, String cacheControl) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(eTag)
+                .lastModified(lastModified)
+                .header(HttpHeaders.CACHE_CONTROL, cacheControl)
+                .build();
+    }
 }
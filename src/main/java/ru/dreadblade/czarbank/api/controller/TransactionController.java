@@ -1,32 +1,63 @@
 package ru.dreadblade.czarbank.api.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
 import ru.dreadblade.czarbank.api.mapper.TransactionMapper;
+import ru.dreadblade.czarbank.api.model.request.TransactionLedgerFormat;
 import ru.dreadblade.czarbank.api.model.request.TransactionRequestDTO;
 import ru.dreadblade.czarbank.api.model.request.validation.CreateRequest;
+import ru.dreadblade.czarbank.api.model.response.TransactionBatchItemResponseDTO;
+import ru.dreadblade.czarbank.api.model.response.TransactionLedgerEntryResponseDTO;
 import ru.dreadblade.czarbank.api.model.response.TransactionResponseDTO;
 import ru.dreadblade.czarbank.domain.Transaction;
+import ru.dreadblade.czarbank.domain.security.User;
+import ru.dreadblade.czarbank.repository.projection.BankAccountSummaryProjection;
+import ru.dreadblade.czarbank.service.TransactionBatchItemResult;
+import ru.dreadblade.czarbank.service.TransactionHistoryPage;
 import ru.dreadblade.czarbank.service.TransactionService;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.*;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 @RequestMapping("/api")
 @RestController
 public class TransactionController {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private static final String LEDGER_CSV_HEADER =
+            "id,created_at,amount,received_amount,source_bank_account_id,destination_bank_account_id\n";
+
     private final TransactionService transactionService;
     private final TransactionMapper transactionMapper;
+    private final ObjectMapper objectMapper;
+    private final long exportTimeoutMillis;
 
     @Autowired
-    public TransactionController(TransactionService transactionService, TransactionMapper transactionMapper) {
+    public TransactionController(TransactionService transactionService, TransactionMapper transactionMapper,
+                                 ObjectMapper objectMapper,
+                                 @Value("${czar-bank.transactions.export.timeout-seconds:1800}") long exportTimeoutSeconds) {
         this.transactionService = transactionService;
         this.transactionMapper = transactionMapper;
+        this.objectMapper = objectMapper;
+        this.exportTimeoutMillis = exportTimeoutSeconds * 1000;
     }
 
     @PreAuthorize("hasAuthority('TRANSACTION_READ')")
@@ -37,11 +68,61 @@ public class TransactionController {
                 .collect(Collectors.toList()));
     }
 
+    /**
+     * Streams the transactions created in [from, to) as they are read from the database,
+     * either as newline delimited JSON or as CSV with a header row. Reading the whole ledger takes longer than
+     * the other asynchronous requests are allowed to, so the export has a timeout of its own
+     */
+    @PreAuthorize("hasAuthority('TRANSACTION_READ')")
+    @GetMapping("/transactions/export")
+    public WebAsyncTask<Void> exportTransactions(
+            @RequestParam(defaultValue = "NDJSON") TransactionLedgerFormat format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            HttpServletResponse response) {
+        response.setContentType(format.getMediaType().toString());
+
+        return new WebAsyncTask<>(exportTimeoutMillis, () -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8));
+
+            if (format == TransactionLedgerFormat.CSV) {
+                writer.write(LEDGER_CSV_HEADER);
+                transactionService.forEachLedgerEntry(from, to, transaction ->
+                        writeCsvLedgerEntry(writer, transactionMapper.historyToLedgerEntryDto(transaction)));
+            } else {
+                SequenceWriter sequenceWriter = objectMapper.writerFor(TransactionLedgerEntryResponseDTO.class)
+                        .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                        .withRootValueSeparator("\n")
+                        .writeValues(writer);
+                transactionService.forEachLedgerEntry(from, to, transaction ->
+                        writeJsonLedgerEntry(sequenceWriter, transactionMapper.historyToLedgerEntryDto(transaction)));
+                sequenceWriter.close();
+            }
+
+            writer.flush();
+
+            return null;
+        });
+    }
+
     @PreAuthorize("hasAuthority('TRANSACTION_READ') or @transactionAuthorizationManager.isCurrentUserTheOwnerOfBankAccount(#bankAccountId)")
     @GetMapping("/bank-accounts/{bankAccountId}/transactions")
-    public ResponseEntity<List<TransactionResponseDTO>> findAllByBankAccountId(@PathVariable Long bankAccountId) {
-        return ResponseEntity.ok(transactionService.findAllByBankAccountId(bankAccountId).stream()
-                .map(transactionMapper::entityToResponseDto)
+    public ResponseEntity<List<TransactionResponseDTO>> findAllByBankAccountId(@PathVariable Long bankAccountId,
+                                                                               @RequestParam(required = false) Integer limit,
+                                                                               @RequestParam(required = false) String after) {
+        TransactionHistoryPage page = transactionService.findHistoryByBankAccountId(bankAccountId, limit, after);
+        Map<Long, BankAccountSummaryProjection> bankAccounts = page.getBankAccounts();
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+
+        return response.body(page.getTransactions().stream()
+                .map(transaction -> transactionMapper.historyToResponseDto(transaction,
+                        bankAccounts.get(transaction.getSourceBankAccountId()),
+                        bankAccounts.get(transaction.getDestinationBankAccountId())))
                 .collect(Collectors.toList()));
     }
 
@@ -54,4 +135,37 @@ public class TransactionController {
         return ResponseEntity.created(URI.create(request.getRequestURI() + "/" + createdTransaction.getId()))
                 .body(transactionMapper.entityToResponseDto(createdTransaction));
     }
+
+    /**
+     * Creates the transactions one by one, the source bank account of every transaction is checked against
+     * the authorities of the current user in the same way as for a single transaction
+     */
+    @PreAuthorize("isAuthenticated()")
+    @PostMapping("/transactions/batch")
+    public ResponseEntity<List<TransactionBatchItemResponseDTO>> createTransactions(@AuthenticationPrincipal User currentUser,
+                                                                                    @RequestBody List<TransactionRequestDTO> transactionRequests) {
+        List<TransactionBatchItemResult> results = transactionService.createTransactions(transactionRequests, currentUser);
+
+        return ResponseEntity.ok(IntStream.range(0, results.size())
+                .mapToObj(index -> transactionMapper.batchItemResultToResponseDto(index, results.get(index)))
+                .collect(Collectors.toList()));
+    }
+
+    private static void writeJsonLedgerEntry(SequenceWriter sequenceWriter, TransactionLedgerEntryResponseDTO entry) {
+        try {
+            sequenceWriter.write(entry);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeCsvLedgerEntry(Writer writer, TransactionLedgerEntryResponseDTO entry) {
+        try {
+            writer.write(entry.getId() + "," + entry.getCreatedAt() + "," + entry.getAmount() + "," +
+                    entry.getReceivedAmount() + "," + entry.getSourceBankAccountId() + "," +
+                    entry.getDestinationBankAccountId() + "\n");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 }
@@ -0,0 +1,70 @@
+package ru.dreadblade.czarbank.api.controller.security;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.dreadblade.czarbank.api.model.response.security.JsonWebKeyResponseDTO;
+import ru.dreadblade.czarbank.api.model.response.security.JsonWebKeySetResponseDTO;
+import ru.dreadblade.czarbank.security.service.AccessTokenService;
+import ru.dreadblade.czarbank.security.service.AccessTokenSigningAlgorithm;
+
+import java.math.BigInteger;
+import java.security.interfaces.ECPublicKey;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes the keys access tokens are signed with, so they can be verified without calling the application
+ */
+@RestController
+public class JsonWebKeySetController {
+    private static final int P256_COORDINATE_LENGTH = 32;
+
+    private final AccessTokenService accessTokenService;
+    private final long maxAgeSeconds;
+
+    @Autowired
+    public JsonWebKeySetController(AccessTokenService accessTokenService,
+                                   @Value("${czar-bank.security.access-token.key-store.jwks-max-age-seconds:300}") long maxAgeSeconds) {
+        this.accessTokenService = accessTokenService;
+        this.maxAgeSeconds = maxAgeSeconds;
+    }
+
+    @GetMapping("/.well-known/jwks.json")
+    public ResponseEntity<JsonWebKeySetResponseDTO> getJsonWebKeySet() {
+        JsonWebKeySetResponseDTO responseDTO = new JsonWebKeySetResponseDTO(accessTokenService.getPublicKeys().entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .map(entry -> toJsonWebKey(entry.getKey(), entry.getValue()))
+                .toList());
+
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(maxAgeSeconds, TimeUnit.SECONDS).cachePublic())
+                .body(responseDTO);
+    }
+
+    private JsonWebKeyResponseDTO toJsonWebKey(String keyId, ECPublicKey publicKey) {
+        return JsonWebKeyResponseDTO.builder()
+                .kty("EC")
+                .crv("P-256")
+                .kid(keyId)
+                .use("sig")
+                .alg(AccessTokenSigningAlgorithm.ES256.name())
+                .x(encodeCoordinate(publicKey.getW().getAffineX()))
+                .y(encodeCoordinate(publicKey.getW().getAffineY()))
+                .build();
+    }
+
+    private String encodeCoordinate(BigInteger coordinate) {
+        byte[] bytes = coordinate.toByteArray();
+        byte[] unsignedBytes = new byte[P256_COORDINATE_LENGTH];
+
+        int length = Math.min(bytes.length, P256_COORDINATE_LENGTH);
+        System.arraycopy(bytes, bytes.length - length, unsignedBytes, P256_COORDINATE_LENGTH - length, length);
+
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(unsignedBytes);
+    }
+}
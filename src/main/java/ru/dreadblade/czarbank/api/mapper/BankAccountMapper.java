@@ -5,13 +5,18 @@ import org.mapstruct.Mapping;
 import org.mapstruct.Mappings;
 import ru.dreadblade.czarbank.api.model.response.BankAccountResponseDTO;
 import ru.dreadblade.czarbank.domain.BankAccount;
+import ru.dreadblade.czarbank.repository.projection.BankAccountSummaryProjection;
 
 @Mapper
 public interface BankAccountMapper {
     @Mappings({
             @Mapping(target = "ownerId", source = "owner.id"),
             @Mapping(target = "usedCurrencyId", source = "usedCurrency.id"),
-            @Mapping(target = "bankAccountTypeId", source = "bankAccountType.id")
+            @Mapping(target = "bankAccountTypeId", source = "bankAccountType.id"),
+            @Mapping(target = "balance", source = "totalBalance")
     })
     BankAccountResponseDTO entityToResponseDto(BankAccount bankAccount);
+
+    @Mapping(target = "balance", source = "totalBalance")
+    BankAccountResponseDTO summaryToResponseDto(BankAccountSummaryProjection bankAccount);
 }
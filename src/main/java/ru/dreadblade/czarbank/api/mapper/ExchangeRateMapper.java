@@ -2,11 +2,22 @@ package ru.dreadblade.czarbank.api.mapper;
 
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
+import ru.dreadblade.czarbank.api.model.response.CrossRateMatrixResponseDTO;
+import ru.dreadblade.czarbank.api.model.response.ExchangeRateAggregateResponseDTO;
 import ru.dreadblade.czarbank.api.model.response.ExchangeRateResponseDTO;
 import ru.dreadblade.czarbank.domain.ExchangeRate;
+import ru.dreadblade.czarbank.repository.projection.ExchangeRateValueProjection;
+import ru.dreadblade.czarbank.service.CrossRateMatrix;
+import ru.dreadblade.czarbank.service.ExchangeRateAggregate;
 
 @Mapper
 public interface ExchangeRateMapper {
     @Mapping(target = "currencyId", source = "currency.id")
     ExchangeRateResponseDTO entityToResponseDto(ExchangeRate exchangeRate);
+
+    ExchangeRateResponseDTO valueToResponseDto(ExchangeRateValueProjection exchangeRate);
+
+    ExchangeRateAggregateResponseDTO aggregateToResponseDto(ExchangeRateAggregate exchangeRateAggregate);
+
+    CrossRateMatrixResponseDTO crossRateMatrixToResponseDto(CrossRateMatrix crossRateMatrix);
 }
@@ -1,12 +1,42 @@
 package ru.dreadblade.czarbank.api.mapper;
 
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.Mappings;
 import ru.dreadblade.czarbank.api.model.request.TransactionRequestDTO;
+import ru.dreadblade.czarbank.api.model.response.TransactionBatchItemResponseDTO;
+import ru.dreadblade.czarbank.api.model.response.TransactionBatchItemStatus;
+import ru.dreadblade.czarbank.api.model.response.TransactionLedgerEntryResponseDTO;
 import ru.dreadblade.czarbank.api.model.response.TransactionResponseDTO;
 import ru.dreadblade.czarbank.domain.Transaction;
+import ru.dreadblade.czarbank.repository.projection.BankAccountSummaryProjection;
+import ru.dreadblade.czarbank.repository.projection.TransactionHistoryProjection;
+import ru.dreadblade.czarbank.service.TransactionBatchItemResult;
 
-@Mapper
+@Mapper(uses = { BankAccountMapper.class }, imports = { TransactionBatchItemStatus.class })
 public interface TransactionMapper {
     Transaction requestDtoToEntity(TransactionRequestDTO transactionRequestDTO);
     TransactionResponseDTO entityToResponseDto(Transaction transaction);
+
+    @Mappings({
+            @Mapping(target = "id", source = "transaction.id"),
+            @Mapping(target = "datetime", ignore = true),
+            @Mapping(target = "amount", source = "transaction.amount"),
+            @Mapping(target = "receivedAmount", source = "transaction.receivedAmount"),
+            @Mapping(target = "sourceBankAccount", source = "sourceBankAccount"),
+            @Mapping(target = "destinationBankAccount", source = "destinationBankAccount")
+    })
+    TransactionResponseDTO historyToResponseDto(TransactionHistoryProjection transaction,
+                                                BankAccountSummaryProjection sourceBankAccount,
+                                                BankAccountSummaryProjection destinationBankAccount);
+
+    TransactionLedgerEntryResponseDTO historyToLedgerEntryDto(TransactionHistoryProjection transaction);
+
+    @Mappings({
+            @Mapping(target = "index", source = "index"),
+            @Mapping(target = "status", expression = "java(result.isSucceeded() ? TransactionBatchItemStatus.SUCCEEDED : TransactionBatchItemStatus.FAILED)"),
+            @Mapping(target = "transaction", source = "result.transaction"),
+            @Mapping(target = "message", source = "result.errorMessage")
+    })
+    TransactionBatchItemResponseDTO batchItemResultToResponseDto(Integer index, TransactionBatchItemResult result);
 }
@@ -3,6 +3,8 @@ package ru.dreadblade.czarbank.api.model.request;
 import lombok.*;
 import ru.dreadblade.czarbank.api.model.request.validation.CreateRequest;
 
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 
 @Getter
@@ -19,4 +21,8 @@ public class BankAccountRequestDTO {
 
     @NotNull(message = "Used currency id must be not null", groups = CreateRequest.class)
     private Long usedCurrencyId;
+
+    @Min(message = "The balance stripe count must be between 0 and 64 (inclusive)", groups = CreateRequest.class, value = 0)
+    @Max(message = "The balance stripe count must be between 0 and 64 (inclusive)", groups = CreateRequest.class, value = 64)
+    private Integer balanceStripeCount;
 }
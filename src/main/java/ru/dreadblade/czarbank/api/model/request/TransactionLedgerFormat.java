@@ -0,0 +1,16 @@
+package ru.dreadblade.czarbank.api.model.request;
+
+import lombok.Getter;
+import org.springframework.http.MediaType;
+
+@Getter
+public enum TransactionLedgerFormat {
+    NDJSON(MediaType.APPLICATION_NDJSON),
+    CSV(new MediaType("text", "csv"));
+
+    private final MediaType mediaType;
+
+    TransactionLedgerFormat(MediaType mediaType) {
+        this.mediaType = mediaType;
+    }
+}
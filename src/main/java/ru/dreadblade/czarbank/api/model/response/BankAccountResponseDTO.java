@@ -16,4 +16,5 @@ public class BankAccountResponseDTO {
     private Long usedCurrencyId;
     private BigDecimal balance;
     private Long bankAccountTypeId;
+    private Integer balanceStripeCount;
 }
@@ -0,0 +1,18 @@
+package ru.dreadblade.czarbank.api.model.response;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CrossRateMatrixResponseDTO {
+    private LocalDate date;
+    private List<String> currencyCodes;
+    private List<List<BigDecimal>> crossRates;
+}
@@ -0,0 +1,20 @@
+package ru.dreadblade.czarbank.api.model.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TransactionBatchItemResponseDTO {
+    /**
+     * Position of the transaction request in the batch
+     */
+    private Integer index;
+    private TransactionBatchItemStatus status;
+    private TransactionResponseDTO transaction;
+    private String message;
+}
@@ -0,0 +1,6 @@
+package ru.dreadblade.czarbank.api.model.response;
+
+public enum TransactionBatchItemStatus {
+    SUCCEEDED,
+    FAILED
+}
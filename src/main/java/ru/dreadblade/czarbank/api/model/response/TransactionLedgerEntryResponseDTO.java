@@ -0,0 +1,20 @@
+package ru.dreadblade.czarbank.api.model.response;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionLedgerEntryResponseDTO {
+    private Long id;
+    private Instant createdAt;
+    private BigDecimal amount;
+    private BigDecimal receivedAmount;
+    private Long sourceBankAccountId;
+    private Long destinationBankAccountId;
+}
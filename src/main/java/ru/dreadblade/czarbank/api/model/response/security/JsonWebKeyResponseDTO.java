@@ -0,0 +1,21 @@
+package ru.dreadblade.czarbank.api.model.response.security;
+
+import lombok.*;
+
+/**
+ * Public key of RFC 7517, the elliptic curve point coordinates are unsigned big-endian base64url without padding
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class JsonWebKeyResponseDTO {
+    private String kty;
+    private String crv;
+    private String kid;
+    private String use;
+    private String alg;
+    private String x;
+    private String y;
+}
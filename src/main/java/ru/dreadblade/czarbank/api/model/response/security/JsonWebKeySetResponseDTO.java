@@ -0,0 +1,14 @@
+package ru.dreadblade.czarbank.api.model.response.security;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class JsonWebKeySetResponseDTO {
+    private List<JsonWebKeyResponseDTO> keys;
+}
@@ -0,0 +1,43 @@
+package ru.dreadblade.czarbank.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import ru.dreadblade.czarbank.service.external.CompositeExchangeRateProvider;
+import ru.dreadblade.czarbank.service.external.ExchangeRateProvider;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Configuration
+public class ExchangeRateProviderConfiguration {
+    @Bean
+    @Primary
+    public CompositeExchangeRateProvider exchangeRateProvider(
+            List<ExchangeRateProvider> providers,
+            @Value("${czar-bank.exchange-rate.providers:central-bank,recorded}") List<String> providerNames,
+            @Value("${czar-bank.exchange-rate.provider-timeout-seconds:30}") long timeoutSeconds
+    ) {
+        Map<String, ExchangeRateProvider> providersByName = providers.stream()
+                .collect(Collectors.toMap(ExchangeRateProvider::getName, Function.identity()));
+
+        List<ExchangeRateProvider> orderedProviders = providerNames.stream()
+                .map(String::trim)
+                .map(name -> {
+                    ExchangeRateProvider provider = providersByName.get(name);
+
+                    if (provider == null) {
+                        throw new IllegalArgumentException("Unknown exchange rate provider: " + name);
+                    }
+
+                    return provider;
+                })
+                .toList();
+
+        return new CompositeExchangeRateProvider(orderedProviders, Duration.ofSeconds(timeoutSeconds));
+    }
+}
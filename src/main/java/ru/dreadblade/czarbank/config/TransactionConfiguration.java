@@ -0,0 +1,25 @@
+package ru.dreadblade.czarbank.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.retry.support.RetryTemplate;
+
+@Configuration
+public class TransactionConfiguration {
+    @Bean
+    public RetryTemplate transactionRetryTemplate(
+            @Value("${czar-bank.transactions.retry.max-attempts:5}") int maxAttempts,
+            @Value("${czar-bank.transactions.retry.backoff.initial-interval-millis:10}") long initialIntervalMillis,
+            @Value("${czar-bank.transactions.retry.backoff.multiplier:2.0}") double multiplier,
+            @Value("${czar-bank.transactions.retry.backoff.max-interval-millis:500}") long maxIntervalMillis
+    ) {
+        return RetryTemplate.builder()
+                .maxAttempts(maxAttempts)
+                .exponentialBackoff(initialIntervalMillis, multiplier, maxIntervalMillis, true)
+                .retryOn(ConcurrencyFailureException.class)
+                .traversingCauses()
+                .build();
+    }
+}
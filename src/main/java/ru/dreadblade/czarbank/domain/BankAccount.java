@@ -1,6 +1,8 @@
 package ru.dreadblade.czarbank.domain;
 
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.Formula;
 import org.hibernate.annotations.OnDelete;
 import org.hibernate.annotations.OnDeleteAction;
 import ru.dreadblade.czarbank.domain.security.User;
@@ -15,32 +17,69 @@ import java.util.Set;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
+@NamedEntityGraph(name = BankAccount.TRANSFER_GRAPH, attributeNodes = {
+        @NamedAttributeNode("usedCurrency"),
+        @NamedAttributeNode("bankAccountType")
+})
 public class BankAccount extends BaseEntity {
+    /**
+     * Fetch plan of transfers, which need the currency and the commissions of the bank account type
+     */
+    public static final String TRANSFER_GRAPH = "BankAccount.transfer";
+
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bank_account_id_sequence")
-    @SequenceGenerator(name = "bank_account_id_sequence", allocationSize = 1)
+    @SequenceGenerator(name = "bank_account_id_sequence", allocationSize = 20)
     private Long id;
 
     @Column(length = 20, nullable = false, unique = true, updatable = false)
     private String number;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @OnDelete(action = OnDeleteAction.CASCADE)
     private User owner;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     private Currency usedCurrency;
 
     @Builder.Default
     @Column(nullable = false, precision = 20, scale = 2)
     private BigDecimal balance = BigDecimal.ZERO;
 
+    /**
+     * Number of sub-balance rows the credits are spread across, 0 means the balance isn't striped
+     */
+    @Builder.Default
+    @ColumnDefault("0")
+    @Column(nullable = false, updatable = false)
+    private Integer balanceStripeCount = 0;
+
+    @Formula("case when balance_stripe_count > 0 then (select coalesce(sum(s.balance), 0) " +
+            "from bank_account_balance_stripe as s where s.bank_account_id = id) else 0 end")
+    private BigDecimal stripedBalance;
+
     @Builder.Default
     private Boolean isClosed = false;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     private BankAccountType bankAccountType;
 
     @OneToMany(mappedBy = "sourceBankAccount")
     private Set<Transaction> transactions;
+
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
+    public boolean isBalanceStriped() {
+        return balanceStripeCount > 0;
+    }
+
+    /**
+     * Balance of the bank account row plus the balance of its stripes
+     */
+    public BigDecimal getTotalBalance() {
+        return stripedBalance == null ? balance : balance.add(stripedBalance);
+    }
 }
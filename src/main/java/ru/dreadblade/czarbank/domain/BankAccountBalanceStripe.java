@@ -0,0 +1,34 @@
+package ru.dreadblade.czarbank.domain;
+
+import lombok.*;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+import ru.dreadblade.czarbank.domain.key.BankAccountBalanceStripeCompositeKey;
+
+import javax.persistence.*;
+import java.math.BigDecimal;
+
+/**
+ * Part of the balance of a bank account with striped balance, credits are spread across
+ * the stripes so they don't contend on the bank account row
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@IdClass(BankAccountBalanceStripeCompositeKey.class)
+public class BankAccountBalanceStripe extends BaseEntity {
+    @Id
+    @ManyToOne(fetch = FetchType.LAZY)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private BankAccount bankAccount;
+
+    @Id
+    @Column(nullable = false, updatable = false)
+    private Integer stripe;
+
+    @Column(nullable = false, precision = 20, scale = 2)
+    private BigDecimal balance;
+}
@@ -14,7 +14,7 @@ import java.math.BigDecimal;
 public class BankAccountType extends BaseEntity {
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bank_account_type_id_sequence")
-    @SequenceGenerator(name = "bank_account_type_id_sequence", allocationSize = 1)
+    @SequenceGenerator(name = "bank_account_type_id_sequence", allocationSize = 10)
     private Long id;
 
     @Column(length = 100, nullable = false, unique = true)
@@ -13,7 +13,7 @@ import javax.persistence.*;
 public class Currency extends BaseEntity {
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "currency_id_sequence")
-    @SequenceGenerator(name = "currency_id_sequence", allocationSize = 1)
+    @SequenceGenerator(name = "currency_id_sequence", allocationSize = 10)
     private Long id;
 
     @Column(length = 3, nullable = false, unique = true, updatable = false)
@@ -15,6 +15,11 @@ import java.time.LocalDate;
 @Entity
 @IdClass(ExchangeRateCompositeKey.class)
 public class ExchangeRate extends BaseEntity {
+    /**
+     * Scale exchange rates are stored and served with
+     */
+    public static final int SCALE = 2;
+
     @Id
     @Column(nullable = false, updatable = false)
     private LocalDate date;
@@ -26,6 +31,6 @@ public class ExchangeRate extends BaseEntity {
     /**
      * Exchange rate against the Russian Ruble
      */
-    @Column(nullable = false, precision = 6, scale = 2)
+    @Column(nullable = false, precision = 6, scale = SCALE)
     private BigDecimal exchangeRate;
 }
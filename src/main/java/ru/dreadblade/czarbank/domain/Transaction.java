@@ -13,10 +13,26 @@ import java.time.Instant;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
+@Table(indexes = {
+        // key columns only, the migration adds the other columns of the history listing as INCLUDE columns
+        @Index(name = "transaction_source_bank_account_id_created_at_id_idx",
+                columnList = "source_bank_account_id, created_at, id"),
+        @Index(name = "transaction_destination_bank_account_id_created_at_id_idx",
+                columnList = "destination_bank_account_id, created_at, id")
+})
+@NamedEntityGraph(name = Transaction.LISTING_GRAPH, attributeNodes = {
+        @NamedAttributeNode("sourceBankAccount"),
+        @NamedAttributeNode("destinationBankAccount")
+})
 public class Transaction extends BaseEntity {
+    /**
+     * Fetch plan of transaction listings, which show both bank accounts of every transaction
+     */
+    public static final String LISTING_GRAPH = "Transaction.listing";
+
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transaction_id_sequence")
-    @SequenceGenerator(name = "transaction_id_sequence", allocationSize = 1)
+    @SequenceGenerator(name = "transaction_id_sequence", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false, updatable = false, precision = 20, scale = 2)
@@ -25,13 +41,15 @@ public class Transaction extends BaseEntity {
     @Column(nullable = false, updatable = false, precision = 20, scale = 2)
     private BigDecimal receivedAmount;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "source_bank_account_id")
     private BankAccount sourceBankAccount;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "destination_bank_account_id")
     private BankAccount destinationBankAccount;
 
     @CreationTimestamp
-    @Column(updatable = false)
+    @Column(name = "created_at", updatable = false)
     private Instant createdAt;
 }
@@ -0,0 +1,28 @@
+package ru.dreadblade.czarbank.domain.key;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BankAccountBalanceStripeCompositeKey implements Serializable {
+    private Long bankAccount;
+    private Integer stripe;
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof BankAccountBalanceStripeCompositeKey that)) return false;
+        return bankAccount.equals(that.bankAccount) && stripe.equals(that.stripe);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(bankAccount, stripe);
+    }
+}
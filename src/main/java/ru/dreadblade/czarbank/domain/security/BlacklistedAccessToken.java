@@ -13,15 +13,25 @@ import java.time.Instant;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
+@Table(indexes = {
+        @Index(name = "blacklisted_access_token_access_token_digest_idx", columnList = "accessTokenDigest"),
+        @Index(name = "blacklisted_access_token_created_at_idx", columnList = "createdAt")
+})
 public class BlacklistedAccessToken extends BaseEntity {
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "blacklisted_access_token_id_sequence")
-    @SequenceGenerator(name = "blacklisted_access_token_id_sequence", allocationSize = 1)
+    @SequenceGenerator(name = "blacklisted_access_token_id_sequence", allocationSize = 50)
     private Long id;
 
     @Column(length = 4096, nullable = false, updatable = false)
     private String accessToken;
 
+    /**
+     * Hex SHA-256 digest of the access token
+     */
+    @Column(length = 64, nullable = false, updatable = false)
+    private String accessTokenDigest;
+
     @CreationTimestamp
     @Column(updatable = false)
     private Instant createdAt;
@@ -13,17 +13,20 @@ import java.util.Set;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
+@NamedEntityGraph(name = Role.PERMISSIONS_GRAPH, attributeNodes = @NamedAttributeNode("permissions"))
 public class Role extends BaseEntity {
+    public static final String PERMISSIONS_GRAPH = "Role.permissions";
+
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "role_id_sequence")
-    @SequenceGenerator(name = "role_id_sequence", allocationSize = 1)
+    @SequenceGenerator(name = "role_id_sequence", allocationSize = 10)
     private Long id;
 
     @Column(length = 100, nullable = false, unique = true)
     private String name;
 
     @Singular(value = "addPermission")
-    @ManyToMany(fetch = FetchType.EAGER, cascade = { CascadeType.MERGE })
+    @ManyToMany(fetch = FetchType.LAZY, cascade = { CascadeType.MERGE })
     @JoinTable(name = "role_permission",
             joinColumns = { @JoinColumn(name = "ROLE_ID", referencedColumnName = "ID") },
             inverseJoinColumns = { @JoinColumn(name = "PERMISSION_ID", referencedColumnName = "ID") })
@@ -11,6 +11,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Getter
 @Setter
@@ -19,10 +20,19 @@ import java.util.stream.Collectors;
 @AllArgsConstructor
 @Entity
 @Table(name = "users")
+@NamedEntityGraph(name = User.AUTHORIZATION_GRAPH,
+        attributeNodes = @NamedAttributeNode(value = "roles", subgraph = "permissions"),
+        subgraphs = @NamedSubgraph(name = "permissions", attributeNodes = @NamedAttributeNode("permissions")))
 public class User extends BaseEntity implements UserDetails {
+    /**
+     * Fetch plan of every user that ends up as a principal, the authorities are built from the roles
+     * and their permissions after the persistence context is closed
+     */
+    public static final String AUTHORIZATION_GRAPH = "User.authorization";
+
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_id_sequence")
-    @SequenceGenerator(name = "user_id_sequence", allocationSize = 1)
+    @SequenceGenerator(name = "user_id_sequence", allocationSize = 20)
     private Long id;
 
     @Column(length = 10, nullable = false, unique = true)
@@ -41,7 +51,7 @@ public class User extends BaseEntity implements UserDetails {
     private String twoFactorAuthenticationSecretKey;
 
     @Singular(value = "addRole")
-    @ManyToMany(fetch = FetchType.EAGER, cascade = { CascadeType.MERGE })
+    @ManyToMany(fetch = FetchType.LAZY, cascade = { CascadeType.MERGE })
     @JoinTable(name = "user_role",
             joinColumns = { @JoinColumn(name = "USER_ID", referencedColumnName = "ID") },
             inverseJoinColumns = { @JoinColumn(name = "ROLE_ID", referencedColumnName = "ID" ) })
@@ -65,17 +75,35 @@ public class User extends BaseEntity implements UserDetails {
     @Builder.Default
     private boolean isEnabled = true;
 
+    /**
+     * Built from the roles on first use, or taken from the access token claims of a principal without roles
+     */
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private Set<GrantedAuthority> grantedAuthorities;
+
+    public void setRoles(Set<Role> roles) {
+        this.roles = roles;
+        this.grantedAuthorities = null;
+    }
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        Set<SimpleGrantedAuthority> authorities = roles.stream()
-                .map(role -> new SimpleGrantedAuthority("ROLE_" + role.getName()))
-                .collect(Collectors.toSet());
-
-        authorities.addAll(roles.stream()
-                .map(Role::getPermissions)
-                .flatMap(Set::stream)
-                .map(permission -> new SimpleGrantedAuthority(permission.getName()))
-                .collect(Collectors.toSet()));
+        Set<GrantedAuthority> authorities = grantedAuthorities;
+
+        if (authorities == null) {
+            authorities = Stream.concat(
+                            roles.stream()
+                                    .map(role -> new SimpleGrantedAuthority("ROLE_" + role.getName())),
+                            roles.stream()
+                                    .map(Role::getPermissions)
+                                    .flatMap(Set::stream)
+                                    .map(permission -> new SimpleGrantedAuthority(permission.getName())))
+                    .collect(Collectors.toUnmodifiableSet());
+
+            grantedAuthorities = authorities;
+        }
 
         return authorities;
     }
@@ -25,6 +25,12 @@ public enum ExceptionMessage {
     DESTINATION_BANK_ACCOUNT_DOESNT_EXIST("Destination bank account doesn't exist", HttpStatus.BAD_REQUEST),
     BANK_ACCOUNT_TYPE_IN_USE("Bank account type in use", HttpStatus.BAD_REQUEST),
     NOT_ENOUGH_BALANCE("Not enough balance", HttpStatus.BAD_REQUEST),
+    TRANSACTION_BATCH_TOO_LARGE("Too many transactions in the batch", HttpStatus.BAD_REQUEST),
+    TRANSACTION_REQUEST_IS_NULL("Transaction request must be not null", HttpStatus.BAD_REQUEST),
+    TRANSACTION_ACCESS_DENIED("Access is denied", HttpStatus.FORBIDDEN),
+    INVALID_TRANSACTION_HISTORY_CURSOR("Invalid transaction history cursor", HttpStatus.BAD_REQUEST),
+    INVALID_TRANSACTION_HISTORY_LIMIT("Invalid transaction history limit", HttpStatus.BAD_REQUEST),
+    TRANSACTION_CONCURRENT_UPDATE("The transaction couldn't be completed due to concurrent updates, please try again", HttpStatus.CONFLICT),
     UNSUPPORTED_CURRENCY("Currency is not supported", HttpStatus.BAD_REQUEST),
     EMAIL_ADDRESS_ALREADY_VERIFIED("Email address already verified", HttpStatus.BAD_REQUEST),
     EMAIL_VERIFICATION_TOKEN_EXPIRED("We have sent a new email with a link to verify your account to " +
@@ -0,0 +1,45 @@
+package ru.dreadblade.czarbank.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import ru.dreadblade.czarbank.domain.BankAccountBalanceStripe;
+import ru.dreadblade.czarbank.domain.key.BankAccountBalanceStripeCompositeKey;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public interface BankAccountBalanceStripeRepository extends JpaRepository<BankAccountBalanceStripe, BankAccountBalanceStripeCompositeKey> {
+    @Query("select coalesce(sum(s.balance), 0) from BankAccountBalanceStripe as s where s.bankAccount.id = :bankAccountId")
+    BigDecimal sumBalanceByBankAccountId(@Param("bankAccountId") Long bankAccountId);
+
+    @Query("select distinct s.bankAccount.id from BankAccountBalanceStripe as s")
+    List<Long> findAllBankAccountIds();
+
+    /**
+     * Adds the amount to the stripe, the stripe row is created on the first credit
+     */
+    @Modifying
+    @Query(value = "insert into bank_account_balance_stripe (bank_account_id, stripe, balance) " +
+            "values (:bankAccountId, :stripe, :amount) " +
+            "on conflict (bank_account_id, stripe) " +
+            "do update set balance = bank_account_balance_stripe.balance + excluded.balance", nativeQuery = true)
+    void credit(@Param("bankAccountId") Long bankAccountId, @Param("stripe") Integer stripe,
+                @Param("amount") BigDecimal amount);
+
+    /**
+     * Moves the balance of all stripes of the bank account into the bank account row and deletes the stripes
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "with compacted as (" +
+            "    delete from bank_account_balance_stripe where bank_account_id = :bankAccountId returning balance" +
+            ") " +
+            "update bank_account " +
+            "set balance = balance + (select coalesce(sum(balance), 0) from compacted), " +
+            "    version = version + 1 " +
+            "where id = :bankAccountId", nativeQuery = true)
+    int compact(@Param("bankAccountId") Long bankAccountId);
+}
@@ -1,17 +1,91 @@
 package ru.dreadblade.czarbank.repository;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import ru.dreadblade.czarbank.domain.BankAccount;
+import ru.dreadblade.czarbank.repository.projection.BankAccountSummaryProjection;
+import ru.dreadblade.czarbank.repository.projection.BankAccountTransferProjection;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface BankAccountRepository extends JpaRepository<BankAccount, Long> {
+    @Override
+    @EntityGraph(BankAccount.TRANSFER_GRAPH)
+    Optional<BankAccount> findById(Long id);
+
     Optional<BankAccount> findByNumber(String number);
 
+    @Query("select b.owner.id from BankAccount as b where b.id = :id")
+    Optional<Long> findOwnerIdById(@Param("id") Long id);
+
+    @Query("select b.owner.id from BankAccount as b where b.number = :number")
+    Optional<Long> findOwnerIdByNumber(@Param("number") String number);
+
+    @EntityGraph(BankAccount.TRANSFER_GRAPH)
+    List<BankAccount> findAllByNumberIn(Collection<String> numbers);
+
     @Query("select b from BankAccount as b " +
             "inner join User as u on b.owner.id = u.id " +
             "where u.id = :ownerId")
     List<BankAccount> findAllByOwnerId(Long ownerId);
+
+    /**
+     * Locks the source and destination bank accounts of transfers (SELECT ... FOR UPDATE).
+     * Rows are always locked in ascending id order, so concurrent transfers
+     * between the same accounts in opposite directions can't deadlock.
+     * A destination with striped balance isn't locked, since credits to it don't touch its row.
+     * Only the ids are selected, the locked bank accounts are read afterwards with their transfer graph,
+     * which can't be fetched by the locking query because its outer joins can't be locked
+     */
+    @Query(value = "select id from bank_account " +
+            "where number in (:sourceNumbers) " +
+            "or (number in (:destinationNumbers) and balance_stripe_count = 0) " +
+            "order by id asc " +
+            "for update", nativeQuery = true)
+    List<Long> lockAllForTransfer(@Param("sourceNumbers") Collection<String> sourceNumbers,
+                                  @Param("destinationNumbers") Collection<String> destinationNumbers);
+
+    @Query(value = "select id from bank_account where id = :id for update", nativeQuery = true)
+    Long lockById(@Param("id") Long id);
+
+    @Query("select b.id as id, b.number as number, b.owner.id as ownerId, b.usedCurrency.id as usedCurrencyId, " +
+            "b.balance as balance, b.stripedBalance as stripedBalance, b.bankAccountType.id as bankAccountTypeId, " +
+            "b.balanceStripeCount as balanceStripeCount " +
+            "from BankAccount as b where b.id in :ids")
+    List<BankAccountSummaryProjection> findAllSummariesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("select b.id as id, b.number as number, b.usedCurrency as usedCurrency, " +
+            "b.bankAccountType as bankAccountType, b.balanceStripeCount as balanceStripeCount " +
+            "from BankAccount as b where b.number in :numbers")
+    List<BankAccountTransferProjection> findAllForTransferByNumberIn(@Param("numbers") Collection<String> numbers);
+
+    /**
+     * Debits the source and credits the destination bank account in a single statement.
+     * The source row is only updated if its balance is at least the minimum source balance, so the number
+     * of updated rows is less than the number of distinct accounts when the balance is insufficient
+     */
+    @Modifying(clearAutomatically = true)
+    @Query(value = "update bank_account " +
+            "set balance = balance " +
+            "    - case when id = :sourceId then :debitAmount else 0 end " +
+            "    + case when id = :destinationId then :creditAmount else 0 end, " +
+            "    version = version + 1 " +
+            "where id in (:sourceId, :destinationId) " +
+            "and (id <> :sourceId or balance >= :minimumSourceBalance)", nativeQuery = true)
+    int transferBalance(@Param("sourceId") Long sourceId, @Param("debitAmount") BigDecimal debitAmount,
+                        @Param("minimumSourceBalance") BigDecimal minimumSourceBalance,
+                        @Param("destinationId") Long destinationId, @Param("creditAmount") BigDecimal creditAmount);
+
+    @Modifying(clearAutomatically = true)
+    @Query(value = "update bank_account " +
+            "set balance = balance - :debitAmount, version = version + 1 " +
+            "where id = :id and balance >= :minimumBalance", nativeQuery = true)
+    int debitBalance(@Param("id") Long id, @Param("debitAmount") BigDecimal debitAmount,
+                     @Param("minimumBalance") BigDecimal minimumBalance);
 }
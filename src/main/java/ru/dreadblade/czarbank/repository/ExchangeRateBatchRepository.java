@@ -0,0 +1,33 @@
+package ru.dreadblade.czarbank.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import ru.dreadblade.czarbank.domain.ExchangeRate;
+
+import java.util.List;
+
+public interface ExchangeRateBatchRepository {
+    /**
+     * Inserts exchange rates with JDBC batches, rates that already exist for the same currency and date are skipped
+     */
+    void insertAllIgnoringExisting(List<ExchangeRate> exchangeRates);
+
+    /**
+     * Inserts or updates exchange rates with a single statement, existing rows are only written when the rate
+     * rounded to the scale of the column differs
+     */
+    UpsertResult upsertAll(List<ExchangeRate> exchangeRates);
+
+    @Getter
+    @AllArgsConstructor
+    class UpsertResult {
+        private final int insertedCount;
+        private final int updatedCount;
+        private final int unchangedCount;
+
+        @Override
+        public String toString() {
+            return "inserted " + insertedCount + ", updated " + updatedCount + ", unchanged " + unchangedCount;
+        }
+    }
+}
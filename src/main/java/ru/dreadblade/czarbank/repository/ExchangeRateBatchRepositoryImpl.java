@@ -0,0 +1,80 @@
+package ru.dreadblade.czarbank.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.dreadblade.czarbank.domain.ExchangeRate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.util.List;
+
+public class ExchangeRateBatchRepositoryImpl implements ExchangeRateBatchRepository {
+    private static final String INSERT_IGNORING_EXISTING_QUERY = "insert into exchange_rate (date, currency_id, exchange_rate) " +
+            "values (?, ?, ?) on conflict (date, currency_id) do nothing";
+
+    /**
+     * Rows skipped by the {@code where} clause of the conflict update are not returned, {@code xmax} is zero
+     * only for the freshly inserted ones
+     */
+    private static final String UPSERT_QUERY = "insert into exchange_rate (date, currency_id, exchange_rate) " +
+            "select * from unnest(?, ?, ?) " +
+            "on conflict (date, currency_id) do update set exchange_rate = excluded.exchange_rate " +
+            "where exchange_rate.exchange_rate <> excluded.exchange_rate " +
+            "returning xmax = 0";
+
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+
+    @Autowired
+    public ExchangeRateBatchRepositoryImpl(JdbcTemplate jdbcTemplate,
+                                           @Value("${czar-bank.exchange-rate.history.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void insertAllIgnoringExisting(List<ExchangeRate> exchangeRates) {
+        jdbcTemplate.batchUpdate(INSERT_IGNORING_EXISTING_QUERY, exchangeRates, batchSize, (statement, exchangeRate) -> {
+            statement.setDate(1, Date.valueOf(exchangeRate.getDate()));
+            statement.setLong(2, exchangeRate.getCurrency().getId());
+            statement.setBigDecimal(3, exchangeRate.getExchangeRate());
+        });
+    }
+
+    @Override
+    public UpsertResult upsertAll(List<ExchangeRate> exchangeRates) {
+        if (exchangeRates.isEmpty()) {
+            return new UpsertResult(0, 0, 0);
+        }
+
+        Date[] dates = new Date[exchangeRates.size()];
+        Long[] currencyIds = new Long[exchangeRates.size()];
+        BigDecimal[] values = new BigDecimal[exchangeRates.size()];
+
+        for (int i = 0; i < exchangeRates.size(); i++) {
+            ExchangeRate exchangeRate = exchangeRates.get(i);
+
+            dates[i] = Date.valueOf(exchangeRate.getDate());
+            currencyIds[i] = exchangeRate.getCurrency().getId();
+            values[i] = exchangeRate.getExchangeRate().setScale(ExchangeRate.SCALE, RoundingMode.HALF_EVEN);
+        }
+
+        List<Boolean> inserted = jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(UPSERT_QUERY);
+            statement.setArray(1, connection.createArrayOf("date", dates));
+            statement.setArray(2, connection.createArrayOf("bigint", currencyIds));
+            statement.setArray(3, connection.createArrayOf("numeric", values));
+
+            return statement;
+        }, (resultSet, rowNumber) -> resultSet.getBoolean(1));
+
+        int insertedCount = (int) inserted.stream().filter(Boolean::booleanValue).count();
+        int updatedCount = inserted.size() - insertedCount;
+
+        return new UpsertResult(insertedCount, updatedCount, exchangeRates.size() - inserted.size());
+    }
+}
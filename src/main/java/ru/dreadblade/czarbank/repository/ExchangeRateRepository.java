@@ -6,12 +6,13 @@ import org.springframework.data.repository.query.Param;
 import ru.dreadblade.czarbank.domain.Currency;
 import ru.dreadblade.czarbank.domain.ExchangeRate;
 import ru.dreadblade.czarbank.domain.key.ExchangeRateCompositeKey;
+import ru.dreadblade.czarbank.repository.projection.ExchangeRateValueProjection;
 
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
-public interface ExchangeRateRepository extends JpaRepository<ExchangeRate, ExchangeRateCompositeKey> {
+public interface ExchangeRateRepository extends JpaRepository<ExchangeRate, ExchangeRateCompositeKey>, ExchangeRateBatchRepository {
     @Query("select e from ExchangeRate as e where e.date in (select max(date) from ExchangeRate)")
     List<ExchangeRate> findAllLatest();
 
@@ -21,4 +22,15 @@ public interface ExchangeRateRepository extends JpaRepository<ExchangeRate, Exch
     List<ExchangeRate> findAllInTimeSeries(@Param("start_date") LocalDate startDate, @Param("end_date") LocalDate endDate);
 
     Optional<ExchangeRate> findByCurrencyAndDate(Currency currency, LocalDate date);
-}
\ No newline at end of file
+
+    long countByDateBetween(LocalDate startDate, LocalDate endDate);
+
+    @Query("select e.date from ExchangeRate as e where e.currency = :currency and e.date between :start_date and :end_date")
+    List<LocalDate> findAllDatesByCurrencyBetween(@Param("currency") Currency currency,
+                                                  @Param("start_date") LocalDate startDate,
+                                                  @Param("end_date") LocalDate endDate);
+
+    @Query("select e.currency.id as currencyId, e.date as date, e.exchangeRate as exchangeRate from ExchangeRate as e " +
+            "order by e.currency.id asc, e.date asc")
+    List<ExchangeRateValueProjection> findAllValues();
+}
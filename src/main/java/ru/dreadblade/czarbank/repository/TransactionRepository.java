@@ -1,16 +1,74 @@
 package ru.dreadblade.czarbank.repository;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import ru.dreadblade.czarbank.domain.Transaction;
+import ru.dreadblade.czarbank.repository.projection.TransactionHistoryProjection;
 
+import javax.persistence.QueryHint;
+import java.time.Instant;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
-    @Query("select t from Transaction as t " +
-            "inner join BankAccount b on t.sourceBankAccount.id = b.id or " +
-            "t.destinationBankAccount.id = b.id " +
-            "where b.id = :bankAccountId " +
-            "order by t.createdAt desc")
-    List<Transaction> findAllByBankAccountId(Long bankAccountId);
+    @Override
+    @EntityGraph(Transaction.LISTING_GRAPH)
+    List<Transaction> findAll();
+
+    /**
+     * The history of a bank account is read as two branches, one per side of the transaction, so that each
+     * branch is served by its own index in (created_at, id) order, an OR of both sides can't use either of them.
+     * Transactions from a bank account to itself are only read by the source branch
+     */
+    String HISTORY_SOURCE_BRANCH = "select * from transaction where source_bank_account_id = :bankAccountId";
+    String HISTORY_DESTINATION_BRANCH = "select * from transaction where destination_bank_account_id = :bankAccountId " +
+            "and source_bank_account_id is distinct from :bankAccountId";
+    String HISTORY_KEYSET_CONDITION = " and (created_at, id) < (:createdAt, :id)";
+    String HISTORY_ORDER = " order by created_at desc, id desc limit :limit";
+    String HISTORY_PROJECTION = "select h.id as \"id\", h.amount as \"amount\", " +
+            "h.received_amount as \"receivedAmount\", h.created_at as \"createdAt\", " +
+            "h.source_bank_account_id as \"sourceBankAccountId\", " +
+            "h.destination_bank_account_id as \"destinationBankAccountId\" from ";
+
+    String HISTORY_QUERY = HISTORY_PROJECTION +
+            "((" + HISTORY_SOURCE_BRANCH + HISTORY_ORDER + ") union all " +
+            "(" + HISTORY_DESTINATION_BRANCH + HISTORY_ORDER + ")) as h" + HISTORY_ORDER;
+    String HISTORY_AFTER_QUERY = HISTORY_PROJECTION +
+            "((" + HISTORY_SOURCE_BRANCH + HISTORY_KEYSET_CONDITION + HISTORY_ORDER + ") union all " +
+            "(" + HISTORY_DESTINATION_BRANCH + HISTORY_KEYSET_CONDITION + HISTORY_ORDER + ")) as h" + HISTORY_ORDER;
+
+    @Query(value = HISTORY_QUERY, nativeQuery = true)
+    List<TransactionHistoryProjection> findHistoryByBankAccountId(@Param("bankAccountId") Long bankAccountId,
+                                                                  @Param("limit") int limit);
+
+    /**
+     * Next page of the history, keyset pagination continues right after the transaction
+     * with the given creation time and id, so the page is found without scanning the skipped rows
+     */
+    @Query(value = HISTORY_AFTER_QUERY, nativeQuery = true)
+    List<TransactionHistoryProjection> findHistoryByBankAccountIdAfter(@Param("bankAccountId") Long bankAccountId,
+                                                                       @Param("createdAt") Instant createdAt,
+                                                                       @Param("id") Long id,
+                                                                       @Param("limit") int limit);
+
+    /**
+     * Streams the ledger through a forward-only cursor, rows are fetched in batches and
+     * are not kept in the persistence context, so the stream must be consumed in a transaction
+     */
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HINT_READONLY, value = "true")
+    })
+    @Query("select t.id as id, t.amount as amount, t.receivedAmount as receivedAmount, t.createdAt as createdAt, " +
+            "t.sourceBankAccount.id as sourceBankAccountId, t.destinationBankAccount.id as destinationBankAccountId " +
+            "from Transaction as t " +
+            "where t.createdAt >= :from and t.createdAt < :to " +
+            "order by t.createdAt, t.id")
+    Stream<TransactionHistoryProjection> streamLedger(@Param("from") Instant from, @Param("to") Instant to);
 }
@@ -0,0 +1,25 @@
+package ru.dreadblade.czarbank.repository.projection;
+
+import java.math.BigDecimal;
+
+public interface BankAccountSummaryProjection {
+    Long getId();
+
+    String getNumber();
+
+    Long getOwnerId();
+
+    Long getUsedCurrencyId();
+
+    BigDecimal getBalance();
+
+    BigDecimal getStripedBalance();
+
+    Long getBankAccountTypeId();
+
+    Integer getBalanceStripeCount();
+
+    default BigDecimal getTotalBalance() {
+        return getStripedBalance() == null ? getBalance() : getBalance().add(getStripedBalance());
+    }
+}
@@ -0,0 +1,16 @@
+package ru.dreadblade.czarbank.repository.projection;
+
+import ru.dreadblade.czarbank.domain.BankAccountType;
+import ru.dreadblade.czarbank.domain.Currency;
+
+public interface BankAccountTransferProjection {
+    Long getId();
+
+    String getNumber();
+
+    Currency getUsedCurrency();
+
+    BankAccountType getBankAccountType();
+
+    Integer getBalanceStripeCount();
+}
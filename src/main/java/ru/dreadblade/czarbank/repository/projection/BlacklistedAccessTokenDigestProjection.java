@@ -0,0 +1,9 @@
+package ru.dreadblade.czarbank.repository.projection;
+
+import java.time.Instant;
+
+public interface BlacklistedAccessTokenDigestProjection {
+    String getAccessTokenDigest();
+
+    Instant getCreatedAt();
+}
@@ -0,0 +1,12 @@
+package ru.dreadblade.czarbank.repository.projection;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public interface ExchangeRateValueProjection {
+    Long getCurrencyId();
+
+    LocalDate getDate();
+
+    BigDecimal getExchangeRate();
+}
@@ -0,0 +1,18 @@
+package ru.dreadblade.czarbank.repository.projection;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+public interface TransactionHistoryProjection {
+    Long getId();
+
+    BigDecimal getAmount();
+
+    BigDecimal getReceivedAmount();
+
+    Instant getCreatedAt();
+
+    Long getSourceBankAccountId();
+
+    Long getDestinationBankAccountId();
+}
@@ -0,0 +1,15 @@
+package ru.dreadblade.czarbank.repository.projection;
+
+public interface UserStatusProjection {
+    Long getId();
+
+    boolean isEmailVerified();
+
+    boolean isAccountExpired();
+
+    boolean isAccountLocked();
+
+    boolean isCredentialsExpired();
+
+    boolean isEnabled();
+}
@@ -1,7 +1,12 @@
 package ru.dreadblade.czarbank.repository.security;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 import ru.dreadblade.czarbank.domain.security.BlacklistedAccessToken;
+import ru.dreadblade.czarbank.repository.projection.BlacklistedAccessTokenDigestProjection;
 
 import java.time.Instant;
 import java.util.List;
@@ -9,5 +14,17 @@ import java.util.List;
 public interface BlacklistedAccessTokenRepository extends JpaRepository<BlacklistedAccessToken, Long> {
     boolean existsByAccessToken(String accessToken);
 
-    List<BlacklistedAccessToken> findAllByCreatedAtIsBefore(Instant instant);
-}
\ No newline at end of file
+    boolean existsByAccessTokenDigest(String accessTokenDigest);
+
+    /**
+     * Deleting the rows again after another instance already did is a no-op
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from BlacklistedAccessToken blacklistedAccessToken where blacklistedAccessToken.createdAt < :instant")
+    int deleteAllByCreatedAtIsBefore(@Param("instant") Instant instant);
+
+    List<BlacklistedAccessTokenDigestProjection> findAllProjectedBy();
+
+    List<BlacklistedAccessTokenDigestProjection> findAllByCreatedAtIsAfter(Instant instant);
+}
@@ -1,5 +1,6 @@
 package ru.dreadblade.czarbank.repository.security;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -10,6 +11,7 @@ import ru.dreadblade.czarbank.domain.security.User;
 import java.util.Optional;
 
 public interface RefreshTokenSessionRepository extends JpaRepository<RefreshTokenSession, Long> {
+    @EntityGraph(attributePaths = { "user.roles.permissions" })
     Optional<RefreshTokenSession> findByRefreshToken(String refreshToken);
 
     @Query("select count(r) from RefreshTokenSession as r where r.isRevoked = false and r.user.id = :#{#user.id}")
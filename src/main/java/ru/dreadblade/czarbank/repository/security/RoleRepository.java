@@ -1,11 +1,22 @@
 package ru.dreadblade.czarbank.repository.security;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import ru.dreadblade.czarbank.domain.security.Role;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface RoleRepository extends JpaRepository<Role, Long> {
+    @Override
+    @EntityGraph(Role.PERMISSIONS_GRAPH)
+    List<Role> findAll();
+
+    @Override
+    @EntityGraph(Role.PERMISSIONS_GRAPH)
+    Optional<Role> findById(Long id);
+
+    @EntityGraph(Role.PERMISSIONS_GRAPH)
     Optional<Role> findByName(String name);
 
     boolean existsByName(String name);
@@ -1,15 +1,35 @@
 package ru.dreadblade.czarbank.repository.security;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import ru.dreadblade.czarbank.domain.security.User;
+import ru.dreadblade.czarbank.repository.projection.UserStatusProjection;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
+    @Override
+    @EntityGraph(User.AUTHORIZATION_GRAPH)
+    List<User> findAll();
+
+    @Override
+    @EntityGraph(User.AUTHORIZATION_GRAPH)
+    Optional<User> findById(Long id);
+
+    @EntityGraph(User.AUTHORIZATION_GRAPH)
     Optional<User> findByUsername(String username);
 
+    @EntityGraph(User.AUTHORIZATION_GRAPH)
     Optional<User> findByEmail(String email);
 
+    @Query("select u.id as id, u.isEmailVerified as emailVerified, u.isAccountExpired as accountExpired, " +
+            "u.isAccountLocked as accountLocked, u.isCredentialsExpired as credentialsExpired, u.isEnabled as enabled " +
+            "from User as u where u.id = :id")
+    Optional<UserStatusProjection> findStatusById(@Param("id") Long id);
+
     boolean existsByUsername(String username);
 
     boolean existsByEmail(String email);
@@ -3,7 +3,6 @@ package ru.dreadblade.czarbank.security.authorization;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
-import ru.dreadblade.czarbank.domain.BankAccount;
 import ru.dreadblade.czarbank.domain.security.User;
 import ru.dreadblade.czarbank.exception.CzarBankException;
 import ru.dreadblade.czarbank.exception.ExceptionMessage;
@@ -28,11 +27,11 @@ public class TransactionAuthorizationManager {
 
         User currentUser = (User) principal;
 
-        BankAccount sourceBankAccount = bankAccountRepository.findById(bankAccountId).orElseThrow(() ->
+        Long ownerId = bankAccountRepository.findOwnerIdById(bankAccountId).orElseThrow(() ->
                 new CzarBankException(ExceptionMessage.BANK_ACCOUNT_NOT_FOUND)
         );
 
-        return sourceBankAccount.getOwner().getId().equals(currentUser.getId());
+        return ownerId.equals(currentUser.getId());
     }
 
     public boolean isCurrentUserTheOwnerOfSourceBankAccount(String bankAccountNumber) {
@@ -44,10 +43,10 @@ public class TransactionAuthorizationManager {
 
         User currentUser = (User) principal;
 
-        BankAccount sourceBankAccount = bankAccountRepository.findByNumber(bankAccountNumber).orElseThrow(() ->
+        Long ownerId = bankAccountRepository.findOwnerIdByNumber(bankAccountNumber).orElseThrow(() ->
                 new CzarBankException(ExceptionMessage.SOURCE_BANK_ACCOUNT_DOESNT_EXIST)
         );
 
-        return sourceBankAccount.getOwner().getId().equals(currentUser.getId());
+        return ownerId.equals(currentUser.getId());
     }
 }
@@ -0,0 +1,13 @@
+package ru.dreadblade.czarbank.security.event;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Published whenever a stored role changes or is deleted, which changes the authorities of every user holding it
+ */
+@Getter
+@RequiredArgsConstructor
+public class RoleChangedEvent {
+    private final Long roleId;
+}
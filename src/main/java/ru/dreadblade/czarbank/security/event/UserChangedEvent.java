@@ -0,0 +1,13 @@
+package ru.dreadblade.czarbank.security.event;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Published whenever a stored user changes or is deleted, so copies of it kept outside the database are dropped
+ */
+@Getter
+@RequiredArgsConstructor
+public class UserChangedEvent {
+    private final Long userId;
+}
@@ -12,7 +12,7 @@ import org.springframework.web.filter.OncePerRequestFilter;
 import ru.dreadblade.czarbank.domain.security.User;
 import ru.dreadblade.czarbank.exception.CzarBankSecurityException;
 import ru.dreadblade.czarbank.exception.ExceptionMessage;
-import ru.dreadblade.czarbank.repository.security.BlacklistedAccessTokenRepository;
+import ru.dreadblade.czarbank.security.service.AccessTokenBlacklist;
 import ru.dreadblade.czarbank.security.service.AccessTokenService;
 
 import javax.servlet.FilterChain;
@@ -27,12 +27,12 @@ public class JsonWebTokenAuthorizationFilter extends OncePerRequestFilter {
     private String authorizationHeaderPrefix;
 
     private final AccessTokenService accessTokenService;
-    private final BlacklistedAccessTokenRepository blacklistedAccessTokenRepository;
+    private final AccessTokenBlacklist accessTokenBlacklist;
 
     @Autowired
-    public JsonWebTokenAuthorizationFilter(AccessTokenService accessTokenService, BlacklistedAccessTokenRepository blacklistedAccessTokenRepository) {
+    public JsonWebTokenAuthorizationFilter(AccessTokenService accessTokenService, AccessTokenBlacklist accessTokenBlacklist) {
         this.accessTokenService = accessTokenService;
-        this.blacklistedAccessTokenRepository = blacklistedAccessTokenRepository;
+        this.accessTokenBlacklist = accessTokenBlacklist;
     }
 
     @Override
@@ -51,7 +51,7 @@ public class JsonWebTokenAuthorizationFilter extends OncePerRequestFilter {
 
         accessToken = accessToken.substring(authorizationHeaderPrefix.length());
 
-        if (blacklistedAccessTokenRepository.existsByAccessToken(accessToken)) {
+        if (accessTokenBlacklist.contains(accessToken)) {
             throw new CzarBankSecurityException(ExceptionMessage.INVALID_ACCESS_TOKEN);
         }
 
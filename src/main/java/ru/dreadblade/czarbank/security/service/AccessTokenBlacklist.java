@@ -0,0 +1,183 @@
+package ru.dreadblade.czarbank.security.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.dreadblade.czarbank.repository.projection.BlacklistedAccessTokenDigestProjection;
+import ru.dreadblade.czarbank.repository.security.BlacklistedAccessTokenRepository;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * In-memory copy of the blacklisted access tokens keyed by their SHA-256 digest. A Bloom filter answers the common
+ * check for a token that isn't blacklisted without looking at the digests. Loaded on first use and rebuilt
+ * by {@link #reload()}, tokens blacklisted on other instances are picked up by {@link #reloadRecent()}, so
+ * until then a token logged out on another instance is still accepted here unless the database is checked as well
+ */
+@Slf4j
+@Component
+public class AccessTokenBlacklist {
+    private final BlacklistedAccessTokenRepository blacklistedAccessTokenRepository;
+    private final int expectedSize;
+    private final double falsePositiveProbability;
+    private final long reloadOverlapSeconds;
+    private final boolean checkDatabase;
+
+    private final AtomicReference<Entries> entries = new AtomicReference<>();
+
+    @Autowired
+    public AccessTokenBlacklist(BlacklistedAccessTokenRepository blacklistedAccessTokenRepository,
+                                @Value("${czar-bank.security.access-token.blacklist.expected-size:10000}") int expectedSize,
+                                @Value("${czar-bank.security.access-token.blacklist.false-positive-probability:0.01}")
+                                double falsePositiveProbability,
+                                @Value("${czar-bank.security.access-token.blacklist.reload-overlap-seconds:10}")
+                                long reloadOverlapSeconds,
+                                @Value("${czar-bank.security.access-token.blacklist.check-database:false}")
+                                boolean checkDatabase) {
+        this.blacklistedAccessTokenRepository = blacklistedAccessTokenRepository;
+        this.expectedSize = expectedSize;
+        this.falsePositiveProbability = falsePositiveProbability;
+        this.reloadOverlapSeconds = reloadOverlapSeconds;
+        this.checkDatabase = checkDatabase;
+    }
+
+    public boolean contains(String accessToken) {
+        byte[] digest = digest(accessToken);
+        Entries currentEntries = getEntries();
+
+        if (currentEntries.bloomFilter.mightContain(digest)
+                && currentEntries.digests.contains(HexFormat.of().formatHex(digest))) {
+            return true;
+        }
+
+        return checkDatabase && blacklistedAccessTokenRepository.existsByAccessTokenDigest(HexFormat.of().formatHex(digest));
+    }
+
+    /**
+     * Expects the token to be saved to the database already, so a concurrent reload either reads it
+     * or finishes before it is added
+     */
+    public synchronized void add(String accessToken) {
+        Entries currentEntries = getEntries();
+
+        currentEntries.add(digest(accessToken));
+        growIfFull(currentEntries);
+    }
+
+    public synchronized void reload() {
+        Instant reloadedAt = Instant.now();
+        List<BlacklistedAccessTokenDigestProjection> blacklistedAccessTokens = blacklistedAccessTokenRepository.findAllProjectedBy();
+
+        Entries newEntries = new Entries(Math.max(expectedSize, blacklistedAccessTokens.size() * 2), reloadedAt);
+
+        blacklistedAccessTokens.forEach(newEntries::add);
+
+        entries.set(newEntries);
+
+        log.trace("Loaded {} blacklisted access tokens", blacklistedAccessTokens.size());
+    }
+
+    /**
+     * Adds the tokens blacklisted since the latest one seen. Tokens created up to the overlap before it are read
+     * again, so a token committed late or by an instance with a lagging clock isn't skipped
+     */
+    public synchronized void reloadRecent() {
+        Entries currentEntries = entries.get();
+
+        if (currentEntries == null) {
+            reload();
+            return;
+        }
+
+        List<BlacklistedAccessTokenDigestProjection> blacklistedAccessTokens = blacklistedAccessTokenRepository
+                .findAllByCreatedAtIsAfter(currentEntries.latestCreatedAt.minusSeconds(reloadOverlapSeconds));
+
+        blacklistedAccessTokens.forEach(currentEntries::add);
+        growIfFull(currentEntries);
+
+        log.trace("Loaded {} recently blacklisted access tokens", blacklistedAccessTokens.size());
+    }
+
+    /**
+     * Hex SHA-256 digest the blacklisted access tokens are stored and looked up by
+     */
+    public static String digestOf(String accessToken) {
+        return HexFormat.of().formatHex(digest(accessToken));
+    }
+
+    /**
+     * Tokens only leave the blacklist on a full reload, until then a filter past its capacity is rebuilt twice
+     * as large so its false positive probability holds
+     */
+    private void growIfFull(Entries currentEntries) {
+        if (currentEntries.digests.size() > currentEntries.capacity) {
+            Entries newEntries = new Entries(currentEntries.digests.size() * 2, currentEntries.latestCreatedAt);
+
+            currentEntries.digests.forEach(digest -> newEntries.add(HexFormat.of().parseHex(digest)));
+
+            entries.set(newEntries);
+
+            log.trace("Grew the access token blacklist to {} tokens", newEntries.capacity);
+        }
+    }
+
+    private Entries getEntries() {
+        Entries currentEntries = entries.get();
+
+        if (currentEntries == null) {
+            reload();
+            currentEntries = entries.get();
+        }
+
+        return currentEntries;
+    }
+
+    private static byte[] digest(String accessToken) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(accessToken.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private class Entries {
+        private final int capacity;
+        private final BloomFilter bloomFilter;
+        private final Set<String> digests = ConcurrentHashMap.newKeySet();
+
+        /**
+         * Creation time of the latest token read from the database, or the time of the full reload before any.
+         * Only accessed while holding the lock of the blacklist
+         */
+        private Instant latestCreatedAt;
+
+        private Entries(int capacity, Instant latestCreatedAt) {
+            this.capacity = capacity;
+            this.bloomFilter = new BloomFilter(capacity, falsePositiveProbability);
+            this.latestCreatedAt = latestCreatedAt;
+        }
+
+        private void add(byte[] digest) {
+            digests.add(HexFormat.of().formatHex(digest));
+            bloomFilter.put(digest);
+        }
+
+        private void add(BlacklistedAccessTokenDigestProjection blacklistedAccessToken) {
+            digests.add(blacklistedAccessToken.getAccessTokenDigest());
+            bloomFilter.put(HexFormat.of().parseHex(blacklistedAccessToken.getAccessTokenDigest()));
+
+            if (blacklistedAccessToken.getCreatedAt() != null && blacklistedAccessToken.getCreatedAt().isAfter(latestCreatedAt)) {
+                latestCreatedAt = blacklistedAccessToken.getCreatedAt();
+            }
+        }
+    }
+}
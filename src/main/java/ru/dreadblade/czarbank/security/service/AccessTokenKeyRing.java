@@ -0,0 +1,216 @@
+package ru.dreadblade.czarbank.security.service;
+
+import com.auth0.jwt.interfaces.ECDSAKeyProvider;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.KeyStore;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * P-256 keys for ES256 access tokens, the key id of every key is the {@code kid} header of the tokens it signs.
+ * <p>
+ * Keys are read from a PKCS12 key store, every alias is a key id. Tokens are signed with the key whose certificate
+ * became valid last, keys with a certificate that isn't valid yet are only published, so they are known before they
+ * sign anything. A key is dropped once its certificate expired longer than an access token lives. Rotating is adding
+ * a key with a later start of validity to the key store, picked up by {@link #reload()}.
+ * <p>
+ * Without a key store a key pair is generated on start, tokens then can't be verified by the other instances
+ */
+@Slf4j
+@Component
+public class AccessTokenKeyRing implements ECDSAKeyProvider {
+    private static final String KEY_STORE_TYPE = "PKCS12";
+    private static final String KEY_ALGORITHM = "EC";
+    private static final String CURVE = "secp256r1";
+    private static final int CURVE_FIELD_SIZE = 256;
+
+    private final Resource keyStore;
+    private final char[] keyStorePassword;
+    private final Duration accessTokenLifetime;
+
+    private final AtomicReference<Keys> keys = new AtomicReference<>();
+
+    @Autowired
+    public AccessTokenKeyRing(ResourceLoader resourceLoader,
+                              @Value("${czar-bank.security.access-token.key-store.location:}") String keyStoreLocation,
+                              @Value("${czar-bank.security.access-token.key-store.password:}") String keyStorePassword,
+                              @Value("${czar-bank.security.access-token.expiration-seconds}") long accessTokenExpirationSeconds) {
+        this.keyStore = keyStoreLocation.isBlank() ? null : resourceLoader.getResource(keyStoreLocation);
+        this.keyStorePassword = keyStorePassword.toCharArray();
+        this.accessTokenLifetime = Duration.ofSeconds(accessTokenExpirationSeconds);
+    }
+
+    @Override
+    public ECPublicKey getPublicKeyById(String keyId) {
+        return getKeys().getPublicKeyById(keyId);
+    }
+
+    /**
+     * The ring only verifies, a reload between reading the key and its id would sign with a mismatched {@code kid}.
+     * Tokens are signed with {@link #getSigningKeys()}
+     */
+    @Override
+    public ECPrivateKey getPrivateKey() {
+        return null;
+    }
+
+    @Override
+    public String getPrivateKeyId() {
+        return null;
+    }
+
+    /**
+     * The keys loaded last, unaffected by later reloads, so the signing key and its id always belong together
+     */
+    public ECDSAKeyProvider getSigningKeys() {
+        return getKeys();
+    }
+
+    /**
+     * Every key tokens may be signed with, by key id
+     */
+    public Map<String, ECPublicKey> getPublicKeys() {
+        return getKeys().publicKeys;
+    }
+
+    public synchronized void reload() {
+        if (keyStore == null) {
+            if (keys.get() == null) {
+                keys.set(generateKeys());
+
+                log.warn("No access token key store configured, signing with a generated key");
+            }
+
+            return;
+        }
+
+        Keys loadedKeys = loadKeys();
+
+        keys.set(loadedKeys);
+
+        log.trace("Loaded {} access token keys, signing with {}", loadedKeys.publicKeys.size(), loadedKeys.privateKeyId);
+    }
+
+    private Keys getKeys() {
+        Keys currentKeys = keys.get();
+
+        if (currentKeys == null) {
+            reload();
+            currentKeys = keys.get();
+        }
+
+        return currentKeys;
+    }
+
+    private Keys loadKeys() {
+        try (InputStream inputStream = keyStore.getInputStream()) {
+            KeyStore store = KeyStore.getInstance(KEY_STORE_TYPE);
+            store.load(inputStream, keyStorePassword);
+
+            Instant now = Instant.now();
+            Map<String, ECPublicKey> publicKeys = new HashMap<>();
+            String privateKeyId = null;
+            Instant privateKeyValidFrom = null;
+
+            for (String alias : Collections.list(store.aliases())) {
+                Certificate certificate = store.getCertificate(alias);
+
+                if (!(certificate instanceof X509Certificate x509Certificate)
+                        || !(x509Certificate.getPublicKey() instanceof ECPublicKey publicKey)
+                        || publicKey.getParams().getCurve().getField().getFieldSize() != CURVE_FIELD_SIZE) {
+                    log.warn("Access token key store entry {} isn't a P-256 key", alias);
+
+                    continue;
+                }
+
+                Instant validFrom = x509Certificate.getNotBefore().toInstant();
+                Instant validTo = x509Certificate.getNotAfter().toInstant();
+
+                if (validTo.plus(accessTokenLifetime).isBefore(now)) {
+                    continue;
+                }
+
+                publicKeys.put(alias, publicKey);
+
+                if (store.isKeyEntry(alias) && !validFrom.isAfter(now) && validTo.isAfter(now)
+                        && (privateKeyValidFrom == null || validFrom.isAfter(privateKeyValidFrom))) {
+                    privateKeyId = alias;
+                    privateKeyValidFrom = validFrom;
+                }
+            }
+
+            if (privateKeyId == null) {
+                throw new IllegalStateException("Access token key store has no valid P-256 key to sign with");
+            }
+
+            return new Keys(publicKeys, privateKeyId, (ECPrivateKey) store.getKey(privateKeyId, keyStorePassword));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Malformed access token key store", e);
+        }
+    }
+
+    private Keys generateKeys() {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance(KEY_ALGORITHM);
+            generator.initialize(new ECGenParameterSpec(CURVE));
+
+            KeyPair keyPair = generator.generateKeyPair();
+            String keyId = UUID.randomUUID().toString();
+
+            return new Keys(Map.of(keyId, (ECPublicKey) keyPair.getPublic()), keyId, (ECPrivateKey) keyPair.getPrivate());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class Keys implements ECDSAKeyProvider {
+        private final Map<String, ECPublicKey> publicKeys;
+        private final String privateKeyId;
+        private final ECPrivateKey privateKey;
+
+        private Keys(Map<String, ECPublicKey> publicKeys, String privateKeyId, ECPrivateKey privateKey) {
+            this.publicKeys = Map.copyOf(publicKeys);
+            this.privateKeyId = privateKeyId;
+            this.privateKey = privateKey;
+        }
+
+        @Override
+        public ECPublicKey getPublicKeyById(String keyId) {
+            return keyId == null ? null : publicKeys.get(keyId);
+        }
+
+        @Override
+        public ECPrivateKey getPrivateKey() {
+            return privateKey;
+        }
+
+        @Override
+        public String getPrivateKeyId() {
+            return privateKeyId;
+        }
+    }
+}
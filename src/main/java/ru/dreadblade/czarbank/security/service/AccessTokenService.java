@@ -6,18 +6,30 @@ import com.auth0.jwt.interfaces.DecodedJWT;
 import com.auth0.jwt.interfaces.JWTVerifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Service;
 import ru.dreadblade.czarbank.domain.security.User;
 import ru.dreadblade.czarbank.exception.CzarBankException;
 import ru.dreadblade.czarbank.exception.ExceptionMessage;
-import ru.dreadblade.czarbank.repository.security.UserRepository;
+import ru.dreadblade.czarbank.repository.projection.UserStatusProjection;
 
+import java.security.interfaces.ECPublicKey;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
 import java.util.stream.Collectors;
 
 @Service
 public class AccessTokenService {
+    private static final String USER_ID_CLAIM = "uid";
+    private static final String AUTHORITIES_CLAIM = "authorities";
+
     @Value("${czar-bank.security.access-token.issuer}")
     private String issuer;
 
@@ -27,16 +39,51 @@ public class AccessTokenService {
     @Value("${czar-bank.security.access-token.expiration-seconds}")
     private int accessTokenExpirationSeconds;
 
-    private final String secretKey;
+    /**
+     * Builds the principal from the verified claims and the cached account status instead of loading the user,
+     * changes to the roles of a user only take effect with the next access token
+     */
+    @Value("${czar-bank.security.access-token.stateless-principal.enabled:false}")
+    private boolean statelessPrincipal;
+
+    private final UserCache userCache;
+    private final UserStatusCache userStatusCache;
+    private final AccessTokenSigningAlgorithm signingAlgorithm;
+    private final AccessTokenKeyRing keyRing;
 
-    private final UserRepository userRepository;
+    /**
+     * Verifies tokens of every key in the ring, ES256 tokens are signed with the keys of a single reload instead
+     */
+    private final Algorithm algorithm;
     private final JWTVerifier verifier;
+    private final int verifiedTokenCacheSize;
+
+    /**
+     * Claims of the access tokens that passed verification, until they expire. Keyed by the whole token,
+     * so a hit is only ever the exact token that was verified
+     */
+    private final ConcurrentMap<String, VerifiedToken> verifiedTokens = new ConcurrentHashMap<>();
+
+    /**
+     * The cached tokens in the order they were first verified. Every token lives as long as the others,
+     * so the oldest one is evicted first
+     */
+    private final Queue<String> verifiedTokensInInsertionOrder = new ConcurrentLinkedQueue<>();
 
     public AccessTokenService(@Value("${czar-bank.security.access-token.secret-key}") String secretKey,
-                              UserRepository userRepository) {
-        this.userRepository = userRepository;
-        this.secretKey = secretKey;
-        this.verifier = JWT.require(Algorithm.HMAC512(secretKey)).build();
+                              @Value("${czar-bank.security.access-token.signing-algorithm:HS512}") AccessTokenSigningAlgorithm signingAlgorithm,
+                              @Value("${czar-bank.security.access-token.verified-token-cache-size:10000}") int verifiedTokenCacheSize,
+                              AccessTokenKeyRing keyRing, UserCache userCache, UserStatusCache userStatusCache) {
+        this.userCache = userCache;
+        this.userStatusCache = userStatusCache;
+        this.signingAlgorithm = signingAlgorithm;
+        this.keyRing = keyRing;
+        this.algorithm = switch (signingAlgorithm) {
+            case HS512 -> Algorithm.HMAC512(secretKey);
+            case ES256 -> Algorithm.ECDSA256(keyRing);
+        };
+        this.verifier = JWT.require(algorithm).build();
+        this.verifiedTokenCacheSize = verifiedTokenCacheSize;
     }
 
     public String generateAccessToken(User user) {
@@ -51,18 +98,106 @@ public class AccessTokenService {
                 .withIssuer(issuer)
                 .withAudience(audience)
                 .withSubject(user.getUsername())
+                .withJWTId(UUID.randomUUID().toString())
                 .withIssuedAt(issuedAt)
                 .withExpiresAt(expiresAt)
-                .withClaim("authorities", authorities)
-                .sign(Algorithm.HMAC512(secretKey));
+                .withClaim(USER_ID_CLAIM, user.getId())
+                .withClaim(AUTHORITIES_CLAIM, authorities)
+                .sign(signingAlgorithm == AccessTokenSigningAlgorithm.ES256
+                        ? Algorithm.ECDSA256(keyRing.getSigningKeys())
+                        : algorithm);
+    }
+
+    /**
+     * Keys anyone can verify the access tokens with, none while they are signed with the shared secret
+     */
+    public Map<String, ECPublicKey> getPublicKeys() {
+        return signingAlgorithm == AccessTokenSigningAlgorithm.HS512 ? Map.of() : keyRing.getPublicKeys();
     }
 
     public User getUserFromToken(String accessToken) {
-        DecodedJWT decodedJWT = verifier.verify(accessToken);
+        VerifiedToken verifiedToken = verify(accessToken);
 
-        String username = decodedJWT.getSubject();
+        if (statelessPrincipal && verifiedToken.userId != null) {
+            return buildPrincipal(verifiedToken);
+        }
 
-        return userRepository.findByUsername(username)
+        return userCache.findByUsername(verifiedToken.username)
                 .orElseThrow(() -> new CzarBankException(ExceptionMessage.INVALID_ACCESS_TOKEN));
     }
+
+    private VerifiedToken verify(String accessToken) {
+        long now = System.currentTimeMillis();
+        VerifiedToken verifiedToken = verifiedTokens.get(accessToken);
+
+        if (verifiedToken != null && now < verifiedToken.expiresAt && isKeyPublished(verifiedToken.keyId)) {
+            return verifiedToken;
+        }
+
+        verifiedToken = new VerifiedToken(verifier.verify(accessToken));
+
+        if (verifiedToken.expiresAt < Long.MAX_VALUE) {
+            if (verifiedTokens.put(accessToken, verifiedToken) == null) {
+                verifiedTokensInInsertionOrder.add(accessToken);
+            }
+
+            while (verifiedTokens.size() > verifiedTokenCacheSize) {
+                String oldestToken = verifiedTokensInInsertionOrder.poll();
+
+                if (oldestToken == null) {
+                    break;
+                }
+
+                verifiedTokens.remove(oldestToken);
+            }
+        }
+
+        return verifiedToken;
+    }
+
+    /**
+     * Tokens signed with a key dropped from the key ring are verified again, which rejects them
+     */
+    private boolean isKeyPublished(String keyId) {
+        return signingAlgorithm == AccessTokenSigningAlgorithm.HS512 || keyRing.getPublicKeyById(keyId) != null;
+    }
+
+    private User buildPrincipal(VerifiedToken verifiedToken) {
+        UserStatusProjection status = userStatusCache.getStatus(verifiedToken.userId)
+                .orElseThrow(() -> new CzarBankException(ExceptionMessage.INVALID_ACCESS_TOKEN));
+
+        return User.builder()
+                .id(verifiedToken.userId)
+                .username(verifiedToken.username)
+                .grantedAuthorities(verifiedToken.authorities)
+                .isEmailVerified(status.isEmailVerified())
+                .isAccountExpired(status.isAccountExpired())
+                .isAccountLocked(status.isAccountLocked())
+                .isCredentialsExpired(status.isCredentialsExpired())
+                .isEnabled(status.isEnabled())
+                .build();
+    }
+
+    /**
+     * The claims used to resolve the principal, read once per verified token
+     */
+    private static class VerifiedToken {
+        private final String username;
+        private final Long userId;
+        private final Set<GrantedAuthority> authorities;
+        private final String keyId;
+        private final long expiresAt;
+
+        private VerifiedToken(DecodedJWT decodedJWT) {
+            List<String> claimedAuthorities = decodedJWT.getClaim(AUTHORITIES_CLAIM).asList(String.class);
+
+            this.username = decodedJWT.getSubject();
+            this.userId = decodedJWT.getClaim(USER_ID_CLAIM).asLong();
+            this.authorities = claimedAuthorities == null ? Set.of() : claimedAuthorities.stream()
+                    .map(SimpleGrantedAuthority::new)
+                    .collect(Collectors.toUnmodifiableSet());
+            this.keyId = decodedJWT.getKeyId();
+            this.expiresAt = decodedJWT.getExpiresAt() == null ? Long.MAX_VALUE : decodedJWT.getExpiresAt().getTime();
+        }
+    }
 }
@@ -0,0 +1,12 @@
+package ru.dreadblade.czarbank.security.service;
+
+public enum AccessTokenSigningAlgorithm {
+    /**
+     * Shared secret, only this application can verify the tokens
+     */
+    HS512,
+    /**
+     * ECDSA on P-256 with the keys of {@link AccessTokenKeyRing}, anyone with the published keys can verify the tokens
+     */
+    ES256
+}
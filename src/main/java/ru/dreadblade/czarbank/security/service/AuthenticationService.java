@@ -24,6 +24,7 @@ import java.util.function.Predicate;
 public class AuthenticationService {
     private final AuthenticationManager authenticationManager;
     private final BlacklistedAccessTokenRepository blacklistedAccessTokenRepository;
+    private final AccessTokenBlacklist accessTokenBlacklist;
     private final RefreshTokenSessionRepository refreshTokenSessionRepository;
     private final TwoFactorAuthenticationService twoFactorAuthenticationService;
 
@@ -60,6 +61,7 @@ public class AuthenticationService {
 
         BlacklistedAccessToken blacklistedAccessToken = BlacklistedAccessToken.builder()
                 .accessToken(accessToken)
+                .accessTokenDigest(AccessTokenBlacklist.digestOf(accessToken))
                 .build();
 
         RefreshTokenSession refreshTokenSession = refreshTokenSessionRepository.findByRefreshToken(refreshToken)
@@ -68,6 +70,7 @@ public class AuthenticationService {
                 .orElseThrow(() -> new CzarBankSecurityException(ExceptionMessage.INVALID_REFRESH_TOKEN));
 
         blacklistedAccessTokenRepository.save(blacklistedAccessToken);
+        accessTokenBlacklist.add(accessToken);
 
         refreshTokenSession.setIsRevoked(true);
         refreshTokenSessionRepository.save(refreshTokenSession);
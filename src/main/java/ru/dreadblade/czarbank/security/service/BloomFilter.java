@@ -0,0 +1,52 @@
+package ru.dreadblade.czarbank.security.service;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter over SHA-256 digests. The digest is already uniformly distributed, so its first two {@code long}s
+ * are used directly for double hashing. Safe for concurrent use, elements can't be removed
+ */
+class BloomFilter {
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashCount;
+
+    BloomFilter(int expectedInsertions, double falsePositiveProbability) {
+        int insertions = Math.max(1, expectedInsertions);
+        long optimalBitCount = (long) Math.ceil(-insertions * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2)));
+
+        this.words = new AtomicLongArray(Math.toIntExact((Math.max(Long.SIZE, optimalBitCount) + Long.SIZE - 1) / Long.SIZE));
+        this.bitCount = (long) words.length() * Long.SIZE;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / insertions * Math.log(2)));
+    }
+
+    void put(byte[] digest) {
+        ByteBuffer buffer = ByteBuffer.wrap(digest);
+        long firstHash = buffer.getLong();
+        long secondHash = buffer.getLong();
+
+        for (int i = 0; i < hashCount; i++) {
+            long bitIndex = Math.floorMod(firstHash + i * secondHash, bitCount);
+            long mask = 1L << bitIndex;
+
+            words.getAndUpdate((int) (bitIndex >>> 6), word -> word | mask);
+        }
+    }
+
+    boolean mightContain(byte[] digest) {
+        ByteBuffer buffer = ByteBuffer.wrap(digest);
+        long firstHash = buffer.getLong();
+        long secondHash = buffer.getLong();
+
+        for (int i = 0; i < hashCount; i++) {
+            long bitIndex = Math.floorMod(firstHash + i * secondHash, bitCount);
+
+            if ((words.get((int) (bitIndex >>> 6)) & (1L << bitIndex)) == 0L) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
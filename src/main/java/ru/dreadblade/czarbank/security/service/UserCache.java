@@ -0,0 +1,169 @@
+package ru.dreadblade.czarbank.security.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.dreadblade.czarbank.domain.security.User;
+import ru.dreadblade.czarbank.repository.security.UserRepository;
+import ru.dreadblade.czarbank.security.event.RoleChangedEvent;
+import ru.dreadblade.czarbank.security.event.UserChangedEvent;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Keeps users loaded with their authorities, entries are dropped as soon as a {@link UserChangedEvent} or
+ * a {@link RoleChangedEvent} is published, changes made around the services only show up after the time to live.
+ * The cached users are shared between requests, anything that changes a user has to reload it from the repository
+ */
+@Component
+public class UserCache {
+    private final UserRepository userRepository;
+    private final boolean enabled;
+    private final long timeToLiveNanos;
+    private final int maxSize;
+
+    private final ConcurrentMap<Long, Entry> entriesById = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Entry> entriesByUsername = new ConcurrentHashMap<>();
+
+    /**
+     * Entries in the order they were cached, including ones already replaced or dropped.
+     * Only accessed while holding the lock of the cache
+     */
+    private final Deque<Entry> entriesInInsertionOrder = new ArrayDeque<>();
+
+    /**
+     * Bumped by every invalidation, a user loaded before one is not cached as it may already be stale
+     */
+    private long generation;
+
+    @Autowired
+    public UserCache(UserRepository userRepository,
+                     @Value("${czar-bank.security.user-cache.enabled:false}") boolean enabled,
+                     @Value("${czar-bank.security.user-cache.ttl-seconds:300}") long timeToLiveSeconds,
+                     @Value("${czar-bank.security.user-cache.max-size:10000}") int maxSize) {
+        this.userRepository = userRepository;
+        this.enabled = enabled;
+        this.timeToLiveNanos = Duration.ofSeconds(timeToLiveSeconds).toNanos();
+        this.maxSize = maxSize;
+    }
+
+    public Optional<User> findById(Long id) {
+        return find(entriesById.get(id), () -> userRepository.findById(id));
+    }
+
+    public Optional<User> findByUsername(String username) {
+        return find(entriesByUsername.get(username), () -> userRepository.findByUsername(username));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onUserChanged(UserChangedEvent event) {
+        generation++;
+
+        Entry entry = entriesById.remove(event.getUserId());
+
+        if (entry != null) {
+            entriesByUsername.remove(entry.user.getUsername(), entry);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRoleChanged(RoleChangedEvent event) {
+        invalidateAll();
+    }
+
+    public synchronized void invalidateAll() {
+        generation++;
+
+        entriesById.clear();
+        entriesByUsername.clear();
+        entriesInInsertionOrder.clear();
+    }
+
+    private Optional<User> find(Entry entry, Supplier<Optional<User>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+
+        long now = System.nanoTime();
+
+        if (entry != null && !entry.isExpired(now)) {
+            return Optional.of(entry.user);
+        }
+
+        long loadGeneration = getGeneration();
+        Optional<User> user = loader.get();
+
+        user.ifPresent(loadedUser -> put(loadedUser, loadGeneration, now));
+
+        return user;
+    }
+
+    private synchronized long getGeneration() {
+        return generation;
+    }
+
+    private synchronized void put(User user, long loadGeneration, long now) {
+        if (loadGeneration != generation) {
+            return;
+        }
+
+        // builds the authority set once, before the user is shared
+        user.getAuthorities();
+
+        evictOldest(now);
+
+        Entry entry = new Entry(user, now + timeToLiveNanos);
+        Entry previousEntry = entriesById.put(user.getId(), entry);
+
+        if (previousEntry != null) {
+            entriesByUsername.remove(previousEntry.user.getUsername(), previousEntry);
+        }
+
+        entriesByUsername.put(user.getUsername(), entry);
+        entriesInInsertionOrder.addLast(entry);
+    }
+
+    /**
+     * Drops expired and replaced entries from the head of the insertion order, then the oldest ones until there
+     * is room for one more. Entries dropped out of order by an event are purged once they make up half of the queue
+     */
+    private void evictOldest(long now) {
+        Entry oldestEntry;
+
+        while ((oldestEntry = entriesInInsertionOrder.peekFirst()) != null
+                && (entriesById.size() >= maxSize || oldestEntry.isExpired(now) || !isCached(oldestEntry))) {
+            entriesInInsertionOrder.removeFirst();
+            entriesById.remove(oldestEntry.user.getId(), oldestEntry);
+            entriesByUsername.remove(oldestEntry.user.getUsername(), oldestEntry);
+        }
+
+        if (entriesInInsertionOrder.size() > 2 * maxSize) {
+            entriesInInsertionOrder.removeIf(entry -> !isCached(entry));
+        }
+    }
+
+    private boolean isCached(Entry entry) {
+        return entriesById.get(entry.user.getId()) == entry;
+    }
+
+    private static class Entry {
+        private final User user;
+        private final long expiresAt;
+
+        private Entry(User user, long expiresAt) {
+            this.user = user;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired(long now) {
+            return now - expiresAt >= 0;
+        }
+    }
+}
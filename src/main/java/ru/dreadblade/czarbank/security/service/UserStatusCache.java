@@ -0,0 +1,84 @@
+package ru.dreadblade.czarbank.security.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.dreadblade.czarbank.repository.projection.UserStatusProjection;
+import ru.dreadblade.czarbank.repository.security.UserRepository;
+import ru.dreadblade.czarbank.security.event.UserChangedEvent;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Keeps the account status of principals built from access token claims for a short time, so locking or disabling
+ * an account takes effect within the time to live without a query on every request
+ */
+@Component
+public class UserStatusCache {
+    private final UserRepository userRepository;
+    private final long timeToLiveNanos;
+    private final int maxSize;
+
+    private final ConcurrentMap<Long, Entry> entries = new ConcurrentHashMap<>();
+
+    @Autowired
+    public UserStatusCache(UserRepository userRepository,
+                           @Value("${czar-bank.security.access-token.stateless-principal.status-ttl-seconds:5}") long timeToLiveSeconds,
+                           @Value("${czar-bank.security.access-token.stateless-principal.status-cache-size:10000}") int maxSize) {
+        this.userRepository = userRepository;
+        this.timeToLiveNanos = Duration.ofSeconds(timeToLiveSeconds).toNanos();
+        this.maxSize = maxSize;
+    }
+
+    public Optional<UserStatusProjection> getStatus(Long userId) {
+        long now = System.nanoTime();
+        Entry entry = entries.get(userId);
+
+        if (entry != null && !entry.isExpired(now)) {
+            return Optional.of(entry.status);
+        }
+
+        Optional<UserStatusProjection> status = userRepository.findStatusById(userId);
+
+        if (status.isEmpty()) {
+            entries.remove(userId);
+
+            return status;
+        }
+
+        if (entries.size() >= maxSize) {
+            entries.values().removeIf(e -> e.isExpired(now));
+
+            if (entries.size() >= maxSize) {
+                entries.clear();
+            }
+        }
+
+        entries.put(userId, new Entry(status.get(), now + timeToLiveNanos));
+
+        return status;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        entries.remove(event.getUserId());
+    }
+
+    private static class Entry {
+        private final UserStatusProjection status;
+        private final long expiresAt;
+
+        private Entry(UserStatusProjection status, long expiresAt) {
+            this.status = status;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired(long now) {
+            return now - expiresAt >= 0;
+        }
+    }
+}
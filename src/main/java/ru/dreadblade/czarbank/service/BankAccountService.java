@@ -47,6 +47,10 @@ public class BankAccountService {
     }
 
     public BankAccount create(Long ownerId, Long bankAccountTypeId, Long currencyId) {
+        return create(ownerId, bankAccountTypeId, currencyId, 0);
+    }
+
+    public BankAccount create(Long ownerId, Long bankAccountTypeId, Long currencyId, int balanceStripeCount) {
         BankAccountType bankAccountType = bankAccountTypeRepository.findById(bankAccountTypeId)
                 .orElseThrow(() -> new CzarBankException(ExceptionMessage.BANK_ACCOUNT_TYPE_NOT_FOUND));
 
@@ -55,6 +59,7 @@ public class BankAccountService {
 
         return bankAccountRepository.save(BankAccount.builder()
                 .balance(BigDecimal.ZERO)
+                .balanceStripeCount(balanceStripeCount)
                 .number(RandomStringUtils.randomNumeric(20))
                 .bankAccountType(bankAccountType)
                 .usedCurrency(currency)
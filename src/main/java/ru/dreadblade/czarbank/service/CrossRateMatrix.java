@@ -0,0 +1,78 @@
+package ru.dreadblade.czarbank.service;
+
+import lombok.Getter;
+import ru.dreadblade.czarbank.exception.CzarBankException;
+import ru.dreadblade.czarbank.exception.ExceptionMessage;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Exchange rates between every pair of currencies on a single rate date: the rate in row {@code i}, column {@code j}
+ * is the amount of the {@code j}-th currency given for a unit of the {@code i}-th one
+ */
+public class CrossRateMatrix {
+    /**
+     * Cross rates keep enough significant digits for the result of a conversion to match dividing the amount
+     * in the base currency by the target rate, which is then rounded half even
+     */
+    public static final MathContext CROSS_RATE_MATH_CONTEXT = new MathContext(20, RoundingMode.HALF_EVEN);
+
+    @Getter
+    private final LocalDate date;
+
+    @Getter
+    private final List<String> currencyCodes;
+
+    private final Map<String, Integer> currencyIndexes;
+    private final BigDecimal[][] crossRates;
+
+    /**
+     * @param ratesToBaseCurrency price of a unit of every currency in the base currency, the base currency included
+     */
+    CrossRateMatrix(LocalDate date, Map<String, BigDecimal> ratesToBaseCurrency) {
+        this.date = date;
+        this.currencyCodes = ratesToBaseCurrency.keySet().stream()
+                .sorted()
+                .toList();
+        this.currencyIndexes = new HashMap<>();
+        this.crossRates = new BigDecimal[currencyCodes.size()][currencyCodes.size()];
+
+        for (int i = 0; i < currencyCodes.size(); i++) {
+            currencyIndexes.put(currencyCodes.get(i), i);
+        }
+
+        for (int i = 0; i < currencyCodes.size(); i++) {
+            BigDecimal sourceRate = ratesToBaseCurrency.get(currencyCodes.get(i));
+
+            for (int j = 0; j < currencyCodes.size(); j++) {
+                crossRates[i][j] = i == j
+                        ? BigDecimal.ONE
+                        : sourceRate.divide(ratesToBaseCurrency.get(currencyCodes.get(j)), CROSS_RATE_MATH_CONTEXT);
+            }
+        }
+    }
+
+    public BigDecimal getCrossRate(String sourceCurrencyCode, String targetCurrencyCode) {
+        Integer sourceIndex = currencyIndexes.get(sourceCurrencyCode);
+        Integer targetIndex = currencyIndexes.get(targetCurrencyCode);
+
+        if (sourceIndex == null || targetIndex == null) {
+            throw new CzarBankException(ExceptionMessage.LATEST_EXCHANGE_RATES_NOT_FOUND);
+        }
+
+        return crossRates[sourceIndex][targetIndex];
+    }
+
+    public List<List<BigDecimal>> getCrossRates() {
+        return Arrays.stream(crossRates)
+                .map(List::of)
+                .toList();
+    }
+}
@@ -4,11 +4,12 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import ru.dreadblade.czarbank.domain.Currency;
+import ru.dreadblade.czarbank.domain.ExchangeRate;
 import ru.dreadblade.czarbank.exception.CzarBankException;
 import ru.dreadblade.czarbank.exception.ExceptionMessage;
 import ru.dreadblade.czarbank.repository.CurrencyRepository;
 import ru.dreadblade.czarbank.repository.ExchangeRateRepository;
-import ru.dreadblade.czarbank.service.external.CentralBankOfRussiaService;
+import ru.dreadblade.czarbank.service.external.ExchangeRateProvider;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
@@ -22,7 +23,9 @@ public class CurrencyService {
 
     private final CurrencyRepository currencyRepository;
     private final ExchangeRateRepository exchangeRateRepository;
-    private final CentralBankOfRussiaService centralBankOfRussiaService;
+    private final ExchangeRateProvider exchangeRateProvider;
+    private final LatestExchangeRateSnapshot latestExchangeRateSnapshot;
+    private final ExchangeRateTimeSeriesStore exchangeRateTimeSeriesStore;
 
     @Value("#{T(java.time.LocalDate).parse('${czar-bank.exchange-rate.history.load-from-date:2012-01-01}')}")
     private LocalDate loadHistoryFromDate;
@@ -45,7 +48,7 @@ public class CurrencyService {
                 .symbol(currencySymbol)
                 .build();
 
-        if (!centralBankOfRussiaService.exchangeRateForCurrencyExists(currency, loadHistoryFromDate)) {
+        if (!exchangeRateProvider.exchangeRateForCurrencyExists(currency, loadHistoryFromDate)) {
             throw new CzarBankException(ExceptionMessage.UNSUPPORTED_CURRENCY);
         }
 
@@ -54,9 +57,12 @@ public class CurrencyService {
         LocalDate today = LocalDate.now();
 
         exchangeRateRepository.saveAll(
-                centralBankOfRussiaService.getExchangeRatesForCurrencyBetweenDates(currency, loadHistoryFromDate, today)
+                exchangeRateProvider.getExchangeRatesForCurrencyBetweenDates(currency, loadHistoryFromDate, today)
         );
 
+        latestExchangeRateSnapshot.refresh();
+        exchangeRateTimeSeriesStore.reload();
+
         return currency;
     }
 
@@ -75,20 +81,13 @@ public class CurrencyService {
             return amount.multiply(rate);
         }
 
-        BigDecimal rateToRub = getExchangeRateByCurrency(source);
-
-        BigDecimal amountInRub = amount.multiply(rateToRub);
-
-        BigDecimal rateToTarget = getExchangeRateByCurrency(target);
+        BigDecimal crossRate = latestExchangeRateSnapshot.getCrossRateMatrix().getCrossRate(source.getCode(), target.getCode());
 
-        return amountInRub.divide(rateToTarget, RoundingMode.HALF_EVEN);
+        // rounded to the scale a conversion through the base currency had
+        return amount.multiply(crossRate).setScale(amount.scale() + ExchangeRate.SCALE, RoundingMode.HALF_EVEN);
     }
 
     private BigDecimal getExchangeRateByCurrency(Currency currency) {
-        return exchangeRateRepository.findAllLatest().stream()
-                .filter(exchangeRate -> exchangeRate.getCurrency().getCode().equals(currency.getCode()))
-                .findFirst()
-                .orElseThrow(() -> new CzarBankException(ExceptionMessage.LATEST_EXCHANGE_RATES_NOT_FOUND))
-                .getExchangeRate();
+        return latestExchangeRateSnapshot.getExchangeRate(currency.getCode());
     }
 }
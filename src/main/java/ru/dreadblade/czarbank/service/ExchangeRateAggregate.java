@@ -0,0 +1,22 @@
+package ru.dreadblade.czarbank.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Exchange rates of a currency over a single aggregation period, {@code date} is the first day of the period
+ */
+@Getter
+@AllArgsConstructor
+public class ExchangeRateAggregate {
+    private final Long currencyId;
+    private final LocalDate date;
+    private final BigDecimal open;
+    private final BigDecimal high;
+    private final BigDecimal low;
+    private final BigDecimal close;
+    private final BigDecimal average;
+}
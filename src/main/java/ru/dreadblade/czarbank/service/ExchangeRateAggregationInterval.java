@@ -0,0 +1,28 @@
+package ru.dreadblade.czarbank.service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+
+public enum ExchangeRateAggregationInterval {
+    /**
+     * Weeks start on Monday
+     */
+    WEEK,
+
+    MONTH;
+
+    public LocalDate getPeriodStart(LocalDate date) {
+        return switch (this) {
+            case WEEK -> date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTH -> date.withDayOfMonth(1);
+        };
+    }
+
+    public LocalDate getPeriodEnd(LocalDate date) {
+        return switch (this) {
+            case WEEK -> date.with(TemporalAdjusters.nextOrSame(DayOfWeek.SUNDAY));
+            case MONTH -> date.with(TemporalAdjusters.lastDayOfMonth());
+        };
+    }
+}
@@ -7,20 +7,29 @@ import ru.dreadblade.czarbank.exception.CzarBankException;
 import ru.dreadblade.czarbank.exception.ExceptionMessage;
 import ru.dreadblade.czarbank.repository.CurrencyRepository;
 import ru.dreadblade.czarbank.repository.ExchangeRateRepository;
+import ru.dreadblade.czarbank.repository.projection.ExchangeRateValueProjection;
 
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.Set;
 
 @Service
 public class ExchangeRateService {
     private final ExchangeRateRepository exchangeRateRepository;
     private final CurrencyRepository currencyRepository;
+    private final ExchangeRateTimeSeriesStore exchangeRateTimeSeriesStore;
+    private final LatestExchangeRateSnapshot latestExchangeRateSnapshot;
 
     @Autowired
-    public ExchangeRateService(ExchangeRateRepository exchangeRateRepository, CurrencyRepository currencyRepository) {
+    public ExchangeRateService(ExchangeRateRepository exchangeRateRepository, CurrencyRepository currencyRepository,
+                               ExchangeRateTimeSeriesStore exchangeRateTimeSeriesStore,
+                               LatestExchangeRateSnapshot latestExchangeRateSnapshot) {
         this.exchangeRateRepository = exchangeRateRepository;
         this.currencyRepository = currencyRepository;
+        this.exchangeRateTimeSeriesStore = exchangeRateTimeSeriesStore;
+        this.latestExchangeRateSnapshot = latestExchangeRateSnapshot;
     }
 
     public List<ExchangeRate> findAllLatest() {
@@ -33,8 +42,35 @@ public class ExchangeRateService {
         return exchangeRates;
     }
 
-    public List<ExchangeRate> findAllByDate(LocalDate date) {
-        List<ExchangeRate> exchangeRates = exchangeRateRepository.findAllByDate(date);
+    /**
+     * The latest exchange rates with their digest, read from memory so unchanged rates can be confirmed without a query
+     */
+    public LatestExchangeRates getLatestExchangeRates() {
+        LatestExchangeRates latestExchangeRates = latestExchangeRateSnapshot.getLatestExchangeRates();
+
+        if (latestExchangeRates.isEmpty()) {
+            throw new CzarBankException(ExceptionMessage.LATEST_EXCHANGE_RATES_NOT_FOUND);
+        }
+
+        return latestExchangeRates;
+    }
+
+    public Instant getHistoricalModifiedAt(LocalDate date) {
+        return exchangeRateTimeSeriesStore.getModifiedAt(date);
+    }
+
+    public CrossRateMatrix getLatestCrossRateMatrix() {
+        CrossRateMatrix crossRateMatrix = latestExchangeRateSnapshot.getCrossRateMatrix();
+
+        if (crossRateMatrix.getDate() == null) {
+            throw new CzarBankException(ExceptionMessage.LATEST_EXCHANGE_RATES_NOT_FOUND);
+        }
+
+        return crossRateMatrix;
+    }
+
+    public List<ExchangeRateValueProjection> findAllByDate(LocalDate date) {
+        List<ExchangeRateValueProjection> exchangeRates = exchangeRateTimeSeriesStore.findAllByDate(date);
 
         if (exchangeRates.isEmpty()) {
             throw new CzarBankException(ExceptionMessage.EXCHANGE_RATES_AT_DATE_NOT_FOUND);
@@ -43,10 +79,15 @@ public class ExchangeRateService {
         return exchangeRates;
     }
 
-    public List<ExchangeRate> findAllInTimeSeries(LocalDate startDate, LocalDate endDate) {
-        List<ExchangeRate> exchangeRates = exchangeRateRepository.findAllInTimeSeries(startDate, endDate);
+    /**
+     * @param currencyIds currencies to include, all foreign currencies when empty
+     */
+    public List<ExchangeRateValueProjection> findAllInTimeSeries(LocalDate startDate, LocalDate endDate, Set<Long> currencyIds) {
+        List<ExchangeRateValueProjection> exchangeRates = exchangeRateTimeSeriesStore
+                .findAllInTimeSeries(startDate, endDate, currencyIds);
 
-        long exchangeRatesPerCurrency = exchangeRates.size() / (currencyRepository.count() - 1L);
+        long currencyCount = currencyIds.isEmpty() ? currencyRepository.count() - 1L : currencyIds.size();
+        long exchangeRatesPerCurrency = exchangeRates.size() / currencyCount;
 
         if (exchangeRates.isEmpty() || ChronoUnit.DAYS.between(startDate, endDate) + 1L > exchangeRatesPerCurrency) {
             throw new CzarBankException(ExceptionMessage.EXCHANGE_RATES_AT_DATE_NOT_FOUND);
@@ -54,4 +95,20 @@ public class ExchangeRateService {
 
         return exchangeRates;
     }
+
+    /**
+     * @param currencyIds currencies to include, all foreign currencies when empty
+     */
+    public List<ExchangeRateAggregate> findAllAggregatedInTimeSeries(LocalDate startDate, LocalDate endDate,
+                                                                     ExchangeRateAggregationInterval interval,
+                                                                     Set<Long> currencyIds) {
+        List<ExchangeRateAggregate> exchangeRateAggregates = exchangeRateTimeSeriesStore
+                .aggregate(startDate, endDate, currencyIds, interval);
+
+        if (exchangeRateAggregates.isEmpty()) {
+            throw new CzarBankException(ExceptionMessage.EXCHANGE_RATES_AT_DATE_NOT_FOUND);
+        }
+
+        return exchangeRateAggregates;
+    }
 }
@@ -0,0 +1,347 @@
+package ru.dreadblade.czarbank.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.dreadblade.czarbank.domain.ExchangeRate;
+import ru.dreadblade.czarbank.repository.ExchangeRateRepository;
+import ru.dreadblade.czarbank.repository.projection.ExchangeRateValueProjection;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+
+/**
+ * Read-only copy of the exchange rate history laid out as one column of scaled {@code long} values per currency,
+ * indexed by epoch day and kept in a memory-mapped file. Missing days hold {@link #MISSING}.
+ */
+@Slf4j
+@Component
+public class ExchangeRateTimeSeriesStore {
+    private static final long MISSING = Long.MIN_VALUE;
+    private static final int AVERAGE_SCALE = 4;
+
+    private final ExchangeRateRepository exchangeRateRepository;
+    private final Path directory;
+
+    private final AtomicReference<Columns> columns = new AtomicReference<>();
+
+    @Autowired
+    public ExchangeRateTimeSeriesStore(ExchangeRateRepository exchangeRateRepository,
+                                       @Value("${czar-bank.exchange-rate.time-series.directory:${java.io.tmpdir}}") Path directory) {
+        this.exchangeRateRepository = exchangeRateRepository;
+        this.directory = directory;
+    }
+
+    public List<ExchangeRateValueProjection> findAllByDate(LocalDate date) {
+        return getColumns().slice(date.toEpochDay(), date.toEpochDay());
+    }
+
+    /**
+     * @param currencyIds currencies to include, all of them when empty
+     */
+    public List<ExchangeRateValueProjection> findAllInTimeSeries(LocalDate startDate, LocalDate endDate,
+                                                                 Collection<Long> currencyIds) {
+        return getColumns().slice(startDate.toEpochDay(), endDate.toEpochDay(), currencyIds);
+    }
+
+    /**
+     * Open, high, low, close and average rates of every period between the given days inclusive, computed from the
+     * scaled values without materializing the daily rates. Ordered by period and currency id
+     *
+     * @param currencyIds currencies to include, all of them when empty
+     */
+    public List<ExchangeRateAggregate> aggregate(LocalDate startDate, LocalDate endDate, Collection<Long> currencyIds,
+                                                 ExchangeRateAggregationInterval interval) {
+        return getColumns().aggregate(startDate, endDate, currencyIds, interval);
+    }
+
+    /**
+     * When the rates of the day last changed between reloads, the epoch for a day without rates
+     */
+    public Instant getModifiedAt(LocalDate date) {
+        return Instant.ofEpochMilli(getColumns().getModifiedAt(date.toEpochDay()));
+    }
+
+    public synchronized void reload() {
+        List<ExchangeRateValueProjection> values = exchangeRateRepository.findAllValues();
+
+        Columns previousColumns = columns.get();
+        Columns newColumns = values.isEmpty() ? Columns.empty() : map(values);
+        long now = Instant.now().toEpochMilli();
+
+        for (int dayIndex = 0; dayIndex < newColumns.dayCount; dayIndex++) {
+            long epochDay = newColumns.firstEpochDay + dayIndex;
+
+            newColumns.dayModifiedAt[dayIndex] = previousColumns != null
+                    && Arrays.equals(previousColumns.getDayValues(epochDay), newColumns.getDayValues(epochDay))
+                    ? previousColumns.getModifiedAt(epochDay)
+                    : now;
+        }
+
+        columns.set(newColumns);
+
+        log.trace("Loaded {} exchange rates into the time series store", values.size());
+    }
+
+    private Columns getColumns() {
+        Columns currentColumns = columns.get();
+
+        if (currentColumns == null) {
+            reload();
+            currentColumns = columns.get();
+        }
+
+        return currentColumns;
+    }
+
+    /**
+     * Expects values ordered by currency id and date
+     */
+    private Columns map(List<ExchangeRateValueProjection> values) {
+        long[] currencyIds = values.stream()
+                .mapToLong(ExchangeRateValueProjection::getCurrencyId)
+                .distinct()
+                .toArray();
+
+        long firstEpochDay = Long.MAX_VALUE;
+        long lastEpochDay = Long.MIN_VALUE;
+
+        for (ExchangeRateValueProjection value : values) {
+            firstEpochDay = Math.min(firstEpochDay, value.getDate().toEpochDay());
+            lastEpochDay = Math.max(lastEpochDay, value.getDate().toEpochDay());
+        }
+
+        int dayCount = Math.toIntExact(lastEpochDay - firstEpochDay + 1);
+        int size = Math.multiplyExact(Math.multiplyExact(currencyIds.length, dayCount), Long.BYTES);
+
+        try {
+            Path file = Files.createTempFile(directory, "exchange-rates", ".bin");
+
+            // the mapping outlives the channel, the file itself is removed as soon as the channel is closed
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                    StandardOpenOption.DELETE_ON_CLOSE)) {
+                LongBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size).asLongBuffer();
+
+                for (int i = 0; i < buffer.capacity(); i++) {
+                    buffer.put(i, MISSING);
+                }
+
+                int currencyIndex = -1;
+                long currencyId = 0L;
+
+                for (ExchangeRateValueProjection value : values) {
+                    if (currencyIndex < 0 || value.getCurrencyId() != currencyId) {
+                        currencyIndex++;
+                        currencyId = value.getCurrencyId();
+                    }
+
+                    long unscaled = value.getExchangeRate().setScale(ExchangeRate.SCALE, RoundingMode.HALF_EVEN)
+                            .unscaledValue()
+                            .longValueExact();
+
+                    buffer.put(currencyIndex * dayCount + Math.toIntExact(value.getDate().toEpochDay() - firstEpochDay),
+                            unscaled);
+                }
+
+                return new Columns(currencyIds, firstEpochDay, dayCount, buffer.asReadOnlyBuffer(), new long[dayCount]);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @AllArgsConstructor
+    private static class Columns {
+        private final long[] currencyIds;
+        private final long firstEpochDay;
+        private final int dayCount;
+        private final LongBuffer buffer;
+
+        /**
+         * Epoch millis of the last change of every day, filled in before the columns are published
+         */
+        private final long[] dayModifiedAt;
+
+        private static Columns empty() {
+            return new Columns(new long[0], 0L, 0, LongBuffer.allocate(0), new long[0]);
+        }
+
+        private long getModifiedAt(long epochDay) {
+            return epochDay >= firstEpochDay && epochDay < firstEpochDay + dayCount
+                    ? dayModifiedAt[Math.toIntExact(epochDay - firstEpochDay)]
+                    : 0L;
+        }
+
+        /**
+         * Currency ids and scaled rates of the day in pairs, comparable between loads
+         */
+        private long[] getDayValues(long epochDay) {
+            if (epochDay < firstEpochDay || epochDay >= firstEpochDay + dayCount) {
+                return new long[0];
+            }
+
+            int dayIndex = Math.toIntExact(epochDay - firstEpochDay);
+
+            long[] dayValues = new long[currencyIds.length * 2];
+            int size = 0;
+
+            for (int currencyIndex = 0; currencyIndex < currencyIds.length; currencyIndex++) {
+                long unscaled = buffer.get(currencyIndex * dayCount + dayIndex);
+
+                if (unscaled != MISSING) {
+                    dayValues[size++] = currencyIds[currencyIndex];
+                    dayValues[size++] = unscaled;
+                }
+            }
+
+            return Arrays.copyOf(dayValues, size);
+        }
+
+        private List<ExchangeRateValueProjection> slice(long startEpochDay, long endEpochDay) {
+            return slice(startEpochDay, endEpochDay, List.of());
+        }
+
+        /**
+         * Rates between the given days inclusive, ordered by date and currency id
+         */
+        private List<ExchangeRateValueProjection> slice(long startEpochDay, long endEpochDay, Collection<Long> includedCurrencyIds) {
+            long from = Math.max(startEpochDay, firstEpochDay);
+            long to = Math.min(endEpochDay, firstEpochDay + dayCount - 1);
+
+            if (from > to) {
+                return List.of();
+            }
+
+            int[] currencyIndexes = findCurrencyIndexes(includedCurrencyIds);
+
+            List<ExchangeRateValueProjection> result = new ArrayList<>(Math.toIntExact(to - from + 1) * currencyIndexes.length);
+
+            for (long epochDay = from; epochDay <= to; epochDay++) {
+                int dayIndex = Math.toIntExact(epochDay - firstEpochDay);
+                LocalDate date = null;
+
+                for (int currencyIndex : currencyIndexes) {
+                    long unscaled = buffer.get(currencyIndex * dayCount + dayIndex);
+
+                    if (unscaled == MISSING) {
+                        continue;
+                    }
+
+                    if (date == null) {
+                        date = LocalDate.ofEpochDay(epochDay);
+                    }
+
+                    result.add(new StoredExchangeRate(currencyIds[currencyIndex], date,
+                            BigDecimal.valueOf(unscaled, ExchangeRate.SCALE)));
+                }
+            }
+
+            return result;
+        }
+
+        private List<ExchangeRateAggregate> aggregate(LocalDate startDate, LocalDate endDate,
+                                                      Collection<Long> includedCurrencyIds,
+                                                      ExchangeRateAggregationInterval interval) {
+            long from = Math.max(startDate.toEpochDay(), firstEpochDay);
+            long to = Math.min(endDate.toEpochDay(), firstEpochDay + dayCount - 1);
+
+            if (from > to) {
+                return List.of();
+            }
+
+            int[] currencyIndexes = findCurrencyIndexes(includedCurrencyIds);
+
+            List<ExchangeRateAggregate> result = new ArrayList<>();
+
+            for (long periodFrom = from; periodFrom <= to; ) {
+                LocalDate periodStart = interval.getPeriodStart(LocalDate.ofEpochDay(periodFrom));
+                long periodTo = Math.min(interval.getPeriodEnd(periodStart).toEpochDay(), to);
+
+                for (int currencyIndex : currencyIndexes) {
+                    ExchangeRateAggregate aggregate = aggregate(currencyIndex, periodStart, periodFrom, periodTo);
+
+                    if (aggregate != null) {
+                        result.add(aggregate);
+                    }
+                }
+
+                periodFrom = periodTo + 1;
+            }
+
+            return result;
+        }
+
+        private ExchangeRateAggregate aggregate(int currencyIndex, LocalDate periodStart, long fromEpochDay, long toEpochDay) {
+            long open = MISSING;
+            long close = MISSING;
+            long high = Long.MIN_VALUE;
+            long low = Long.MAX_VALUE;
+            long sum = 0L;
+            int count = 0;
+
+            for (long epochDay = fromEpochDay; epochDay <= toEpochDay; epochDay++) {
+                long unscaled = buffer.get(currencyIndex * dayCount + Math.toIntExact(epochDay - firstEpochDay));
+
+                if (unscaled == MISSING) {
+                    continue;
+                }
+
+                if (open == MISSING) {
+                    open = unscaled;
+                }
+
+                close = unscaled;
+                high = Math.max(high, unscaled);
+                low = Math.min(low, unscaled);
+                sum += unscaled;
+                count++;
+            }
+
+            if (count == 0) {
+                return null;
+            }
+
+            BigDecimal average = BigDecimal.valueOf(sum, ExchangeRate.SCALE)
+                    .divide(BigDecimal.valueOf(count), AVERAGE_SCALE, RoundingMode.HALF_EVEN);
+
+            return new ExchangeRateAggregate(currencyIds[currencyIndex], periodStart, BigDecimal.valueOf(open, ExchangeRate.SCALE),
+                    BigDecimal.valueOf(high, ExchangeRate.SCALE), BigDecimal.valueOf(low, ExchangeRate.SCALE),
+                    BigDecimal.valueOf(close, ExchangeRate.SCALE), average);
+        }
+
+        /**
+         * Indexes of the given currencies in the ascending order of their ids, every currency when none are given
+         */
+        private int[] findCurrencyIndexes(Collection<Long> includedCurrencyIds) {
+            return IntStream.range(0, currencyIds.length)
+                    .filter(currencyIndex -> includedCurrencyIds.isEmpty() || includedCurrencyIds.contains(currencyIds[currencyIndex]))
+                    .toArray();
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class StoredExchangeRate implements ExchangeRateValueProjection {
+        private final Long currencyId;
+        private final LocalDate date;
+        private final BigDecimal exchangeRate;
+    }
+}
@@ -0,0 +1,112 @@
+package ru.dreadblade.czarbank.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import ru.dreadblade.czarbank.domain.ExchangeRate;
+import ru.dreadblade.czarbank.exception.CzarBankException;
+import ru.dreadblade.czarbank.exception.ExceptionMessage;
+import ru.dreadblade.czarbank.repository.ExchangeRateRepository;
+import ru.dreadblade.czarbank.util.ExchangeRateDigest;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * Immutable view of the latest exchange rates, keyed by currency code and as a list, and the cross rates between
+ * them. Loaded on first use and swapped as a whole by {@link #refresh()} whenever exchange rates are written, so
+ * readers never hit the database. Refreshes run one at a time, so an earlier load can't replace a later one.
+ */
+@Component
+public class LatestExchangeRateSnapshot {
+    private final ExchangeRateRepository exchangeRateRepository;
+
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+
+    @Autowired
+    public LatestExchangeRateSnapshot(ExchangeRateRepository exchangeRateRepository) {
+        this.exchangeRateRepository = exchangeRateRepository;
+    }
+
+    public BigDecimal getExchangeRate(String currencyCode) {
+        BigDecimal rate = getSnapshot().rates.get(currencyCode);
+
+        if (rate == null) {
+            throw new CzarBankException(ExceptionMessage.LATEST_EXCHANGE_RATES_NOT_FOUND);
+        }
+
+        return rate;
+    }
+
+    public CrossRateMatrix getCrossRateMatrix() {
+        return getSnapshot().crossRateMatrix;
+    }
+
+    public LatestExchangeRates getLatestExchangeRates() {
+        return getSnapshot().latestExchangeRates;
+    }
+
+    public synchronized Map<String, BigDecimal> refresh() {
+        List<ExchangeRate> latestExchangeRates = exchangeRateRepository.findAllLatest();
+
+        Map<String, BigDecimal> latestRates = latestExchangeRates.stream()
+                .collect(Collectors.toUnmodifiableMap(
+                        exchangeRate -> exchangeRate.getCurrency().getCode(),
+                        ExchangeRate::getExchangeRate
+                ));
+
+        LocalDate date = latestExchangeRates.stream()
+                .map(ExchangeRate::getDate)
+                .max(Comparator.naturalOrder())
+                .orElse(null);
+
+        Map<String, BigDecimal> ratesToBaseCurrency = new HashMap<>(latestRates);
+        ratesToBaseCurrency.put(CurrencyService.BASE_CURRENCY, BigDecimal.ONE);
+
+        String digest = date + "-" + ExchangeRateDigest.digest(latestExchangeRates.stream()
+                        .sorted(Comparator.comparing(exchangeRate -> exchangeRate.getCurrency().getId()))
+                        .toList(),
+                exchangeRate -> exchangeRate.getCurrency().getId() + "@" + exchangeRate.getDate(),
+                ExchangeRate::getExchangeRate);
+
+        Snapshot previousSnapshot = snapshot.get();
+        Instant modifiedAt = previousSnapshot != null && previousSnapshot.latestExchangeRates.getDigest().equals(digest)
+                ? previousSnapshot.latestExchangeRates.getModifiedAt()
+                : Instant.now();
+
+        snapshot.set(new Snapshot(latestRates, new CrossRateMatrix(date, ratesToBaseCurrency),
+                new LatestExchangeRates(date, latestExchangeRates, digest, modifiedAt)));
+
+        return latestRates;
+    }
+
+    private Snapshot getSnapshot() {
+        Snapshot currentSnapshot = snapshot.get();
+
+        if (currentSnapshot == null) {
+            refresh();
+            currentSnapshot = snapshot.get();
+        }
+
+        return currentSnapshot;
+    }
+
+    private static class Snapshot {
+        private final Map<String, BigDecimal> rates;
+        private final CrossRateMatrix crossRateMatrix;
+        private final LatestExchangeRates latestExchangeRates;
+
+        private Snapshot(Map<String, BigDecimal> rates, CrossRateMatrix crossRateMatrix,
+                         LatestExchangeRates latestExchangeRates) {
+            this.rates = rates;
+            this.crossRateMatrix = crossRateMatrix;
+            this.latestExchangeRates = latestExchangeRates;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package ru.dreadblade.czarbank.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import ru.dreadblade.czarbank.domain.ExchangeRate;
+import ru.dreadblade.czarbank.repository.projection.ExchangeRateValueProjection;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * The latest exchange rates together with their rate date and digest, taken from a single snapshot so a response
+ * body always matches its validators
+ */
+public class LatestExchangeRates {
+    @Getter
+    private final LocalDate date;
+
+    @Getter
+    private final List<ExchangeRateValueProjection> exchangeRates;
+
+    /**
+     * The latest rate date and a content hash of the latest exchange rates, changes only when a rate or its date does
+     */
+    @Getter
+    private final String digest;
+
+    /**
+     * When a snapshot with this digest was first loaded. The Central Bank publishes the rates of the next day
+     * in advance, so the rate date itself may still lie ahead
+     */
+    @Getter
+    private final Instant modifiedAt;
+
+    LatestExchangeRates(LocalDate date, List<ExchangeRate> exchangeRates, String digest, Instant modifiedAt) {
+        this.date = date;
+        this.exchangeRates = exchangeRates.stream()
+                .<ExchangeRateValueProjection>map(exchangeRate -> new LatestExchangeRate(
+                        exchangeRate.getCurrency().getId(), exchangeRate.getDate(), exchangeRate.getExchangeRate()))
+                .toList();
+        this.digest = digest;
+        this.modifiedAt = modifiedAt;
+    }
+
+    public boolean isEmpty() {
+        return exchangeRates.isEmpty();
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class LatestExchangeRate implements ExchangeRateValueProjection {
+        private final Long currencyId;
+        private final LocalDate date;
+        private final BigDecimal exchangeRate;
+    }
+}
@@ -0,0 +1,33 @@
+package ru.dreadblade.czarbank.service;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import ru.dreadblade.czarbank.domain.Transaction;
+import ru.dreadblade.czarbank.exception.ExceptionMessage;
+
+/**
+ * Outcome of a single transaction of a batch, either the created transaction or the reason it failed
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class TransactionBatchItemResult {
+    private final Transaction transaction;
+    private final String errorMessage;
+
+    public static TransactionBatchItemResult succeeded(Transaction transaction) {
+        return new TransactionBatchItemResult(transaction, null);
+    }
+
+    public static TransactionBatchItemResult failed(String errorMessage) {
+        return new TransactionBatchItemResult(null, errorMessage);
+    }
+
+    public static TransactionBatchItemResult failed(ExceptionMessage exceptionMessage) {
+        return failed(exceptionMessage.getMessage());
+    }
+
+    public boolean isSucceeded() {
+        return transaction != null;
+    }
+}
@@ -0,0 +1,20 @@
+package ru.dreadblade.czarbank.service;
+
+public enum TransactionConcurrencyMode {
+    /**
+     * Both bank accounts are locked with SELECT ... FOR UPDATE in ascending id order
+     */
+    PESSIMISTIC,
+
+    /**
+     * Bank accounts are read without locks, conflicting updates are detected by the version column
+     * and the whole transfer is retried
+     */
+    OPTIMISTIC,
+
+    /**
+     * Bank account entities aren't loaded at all, both balances are changed by a single conditional UPDATE statement
+     * and the number of updated rows is used to detect insufficient funds
+     */
+    ATOMIC
+}
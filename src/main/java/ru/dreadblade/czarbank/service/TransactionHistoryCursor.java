@@ -0,0 +1,50 @@
+package ru.dreadblade.czarbank.service;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import ru.dreadblade.czarbank.exception.CzarBankException;
+import ru.dreadblade.czarbank.exception.ExceptionMessage;
+import ru.dreadblade.czarbank.repository.projection.TransactionHistoryProjection;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position in the transaction history of a bank account, clients receive it as an opaque string
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class TransactionHistoryCursor {
+    private static final String SEPARATOR = "_";
+
+    private final Instant createdAt;
+    private final Long id;
+
+    public static TransactionHistoryCursor of(TransactionHistoryProjection transaction) {
+        return new TransactionHistoryCursor(transaction.getCreatedAt(), transaction.getId());
+    }
+
+    public static TransactionHistoryCursor decode(String cursor) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separatorIndex = decoded.indexOf(SEPARATOR);
+
+            if (separatorIndex < 0) {
+                throw new CzarBankException(ExceptionMessage.INVALID_TRANSACTION_HISTORY_CURSOR);
+            }
+
+            return new TransactionHistoryCursor(Instant.parse(decoded.substring(0, separatorIndex)),
+                    Long.valueOf(decoded.substring(separatorIndex + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new CzarBankException(ExceptionMessage.INVALID_TRANSACTION_HISTORY_CURSOR);
+        }
+    }
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((createdAt + SEPARATOR + id).getBytes(StandardCharsets.UTF_8));
+    }
+}
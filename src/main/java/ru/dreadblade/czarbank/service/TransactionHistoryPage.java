@@ -0,0 +1,21 @@
+package ru.dreadblade.czarbank.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import ru.dreadblade.czarbank.repository.projection.BankAccountSummaryProjection;
+import ru.dreadblade.czarbank.repository.projection.TransactionHistoryProjection;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Page of the transaction history of a bank account with the bank accounts referenced by its transactions
+ * and the cursor of the next page, which is null on the last page
+ */
+@Getter
+@AllArgsConstructor
+public class TransactionHistoryPage {
+    private final List<TransactionHistoryProjection> transactions;
+    private final Map<Long, BankAccountSummaryProjection> bankAccounts;
+    private final String nextCursor;
+}
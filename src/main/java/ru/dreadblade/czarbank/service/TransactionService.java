@@ -1,66 +1,341 @@
 package ru.dreadblade.czarbank.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.retry.support.RetryTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import ru.dreadblade.czarbank.api.model.request.TransactionRequestDTO;
+import ru.dreadblade.czarbank.api.model.request.validation.CreateRequest;
 import ru.dreadblade.czarbank.domain.BankAccount;
+import ru.dreadblade.czarbank.domain.BankAccountType;
+import ru.dreadblade.czarbank.domain.Currency;
 import ru.dreadblade.czarbank.domain.Transaction;
+import ru.dreadblade.czarbank.domain.security.User;
 import ru.dreadblade.czarbank.exception.CzarBankException;
 import ru.dreadblade.czarbank.exception.ExceptionMessage;
+import ru.dreadblade.czarbank.repository.BankAccountBalanceStripeRepository;
 import ru.dreadblade.czarbank.repository.BankAccountRepository;
 import ru.dreadblade.czarbank.repository.TransactionRepository;
+import ru.dreadblade.czarbank.repository.projection.BankAccountSummaryProjection;
+import ru.dreadblade.czarbank.repository.projection.BankAccountTransferProjection;
+import ru.dreadblade.czarbank.repository.projection.TransactionHistoryProjection;
 
-import javax.transaction.Transactional;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
 import java.math.BigDecimal;
-import java.util.List;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class TransactionService {
 
+    private static final Instant LEDGER_START = Instant.EPOCH;
+    private static final Instant LEDGER_END = Instant.parse("9999-12-31T23:59:59Z");
+
     private final TransactionRepository transactionRepository;
     private final BankAccountRepository bankAccountRepository;
+    private final BankAccountBalanceStripeRepository bankAccountBalanceStripeRepository;
     private final CurrencyService currencyService;
+    private final RetryTemplate transactionRetryTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+
+    @Value("${czar-bank.transactions.concurrency-mode:pessimistic}")
+    private TransactionConcurrencyMode concurrencyMode;
+
+    @Value("${czar-bank.transactions.batch.max-size:50000}")
+    private int batchMaxSize;
+
+    @Value("${czar-bank.transactions.batch.chunk-size:500}")
+    private int batchChunkSize;
+
+    @Value("${czar-bank.transactions.history.default-limit:100}")
+    private int historyDefaultLimit;
+
+    @Value("${czar-bank.transactions.history.max-limit:1000}")
+    private int historyMaxLimit;
 
     @Autowired
-    public TransactionService(TransactionRepository transactionRepository, BankAccountRepository bankAccountRepository, CurrencyService currencyService) {
+    public TransactionService(TransactionRepository transactionRepository, BankAccountRepository bankAccountRepository,
+                              BankAccountBalanceStripeRepository bankAccountBalanceStripeRepository,
+                              CurrencyService currencyService, RetryTemplate transactionRetryTemplate,
+                              TransactionTemplate transactionTemplate, Validator validator) {
         this.transactionRepository = transactionRepository;
         this.bankAccountRepository = bankAccountRepository;
+        this.bankAccountBalanceStripeRepository = bankAccountBalanceStripeRepository;
         this.currencyService = currencyService;
+        this.transactionRetryTemplate = transactionRetryTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.validator = validator;
     }
 
     public List<Transaction> findAll() {
         return transactionRepository.findAll();
     }
 
-    public List<Transaction> findAllByBankAccountId(Long bankAccountId) {
-        if (bankAccountRepository.existsById(bankAccountId)) {
-            return transactionRepository.findAllByBankAccountId(bankAccountId);
+    /**
+     * Finds a page of the transaction history of the bank account, newest first. The transactions and the bank
+     * accounts they reference are read as projections, so no entity graphs are loaded for the page
+     */
+    public TransactionHistoryPage findHistoryByBankAccountId(Long bankAccountId, Integer limit, String after) {
+        int pageSize = limit == null ? historyDefaultLimit : limit;
+
+        if (pageSize < 1 || pageSize > historyMaxLimit) {
+            throw new CzarBankException(ExceptionMessage.INVALID_TRANSACTION_HISTORY_LIMIT);
+        }
+
+        if (!bankAccountRepository.existsById(bankAccountId)) {
+            throw new CzarBankException(ExceptionMessage.BANK_ACCOUNT_NOT_FOUND);
+        }
+
+        List<TransactionHistoryProjection> transactions;
+
+        if (after == null) {
+            transactions = transactionRepository.findHistoryByBankAccountId(bankAccountId, pageSize + 1);
+        } else {
+            TransactionHistoryCursor cursor = TransactionHistoryCursor.decode(after);
+            transactions = transactionRepository.findHistoryByBankAccountIdAfter(bankAccountId,
+                    cursor.getCreatedAt(), cursor.getId(), pageSize + 1);
+        }
+
+        String nextCursor = null;
+
+        if (transactions.size() > pageSize) {
+            transactions = transactions.subList(0, pageSize);
+            nextCursor = TransactionHistoryCursor.of(transactions.get(pageSize - 1)).encode();
+        }
+
+        Set<Long> bankAccountIds = new HashSet<>();
+
+        for (TransactionHistoryProjection transaction : transactions) {
+            bankAccountIds.add(transaction.getSourceBankAccountId());
+            bankAccountIds.add(transaction.getDestinationBankAccountId());
         }
 
-        throw new CzarBankException(ExceptionMessage.BANK_ACCOUNT_NOT_FOUND);
+        Map<Long, BankAccountSummaryProjection> bankAccounts = bankAccountIds.isEmpty() ? Collections.emptyMap() :
+                bankAccountRepository.findAllSummariesByIdIn(bankAccountIds).stream()
+                        .collect(Collectors.toMap(BankAccountSummaryProjection::getId, Function.identity()));
+
+        return new TransactionHistoryPage(transactions, bankAccounts, nextCursor);
+    }
+
+    /**
+     * Passes every transaction of the ledger created in [from, to) to the action in the order of creation,
+     * the rows are read from a database cursor, so memory use doesn't depend on the size of the ledger
+     */
+    @Transactional(readOnly = true)
+    public void forEachLedgerEntry(Instant from, Instant to, Consumer<TransactionHistoryProjection> action) {
+        try (Stream<TransactionHistoryProjection> ledger = transactionRepository.streamLedger(
+                from == null ? LEDGER_START : from, to == null ? LEDGER_END : to)) {
+            ledger.forEach(action);
+        }
     }
 
-    @Transactional
     public Transaction createTransaction(TransactionRequestDTO transactionRequest) {
-        BankAccount source = bankAccountRepository.findByNumber(transactionRequest.getSourceBankAccountNumber())
-                .orElseThrow(() -> new CzarBankException(ExceptionMessage.SOURCE_BANK_ACCOUNT_DOESNT_EXIST));
+        try {
+            return transactionRetryTemplate.execute(context ->
+                    transactionTemplate.execute(status -> transfer(transactionRequest)));
+        } catch (ConcurrencyFailureException e) {
+            throw new CzarBankException(ExceptionMessage.TRANSACTION_CONCURRENT_UPDATE);
+        }
+    }
+
+    /**
+     * Creates the transactions of the batch in chunks, every chunk is completed in its own database transaction.
+     * A transaction request that fails doesn't affect the other requests, its result carries the reason instead
+     */
+    public List<TransactionBatchItemResult> createTransactions(List<TransactionRequestDTO> transactionRequests, User currentUser) {
+        if (transactionRequests.size() > batchMaxSize) {
+            throw new CzarBankException(ExceptionMessage.TRANSACTION_BATCH_TOO_LARGE);
+        }
 
-        BankAccount destination = bankAccountRepository.findByNumber(transactionRequest.getDestinationBankAccountNumber())
-                .orElseThrow(() -> new CzarBankException(ExceptionMessage.DESTINATION_BANK_ACCOUNT_DOESNT_EXIST));
+        List<TransactionBatchItemResult> results = new ArrayList<>(Collections.nCopies(transactionRequests.size(), null));
+        List<Integer> validRequestIndexes = new ArrayList<>();
+
+        for (int i = 0; i < transactionRequests.size(); i++) {
+            String validationErrorMessage = validate(transactionRequests.get(i));
+
+            if (validationErrorMessage != null) {
+                results.set(i, TransactionBatchItemResult.failed(validationErrorMessage));
+            } else {
+                validRequestIndexes.add(i);
+            }
+        }
+
+        for (int chunkStart = 0; chunkStart < validRequestIndexes.size(); chunkStart += batchChunkSize) {
+            List<Integer> chunkIndexes = validRequestIndexes.subList(chunkStart,
+                    Math.min(chunkStart + batchChunkSize, validRequestIndexes.size()));
+
+            List<TransactionRequestDTO> chunk = chunkIndexes.stream()
+                    .map(transactionRequests::get)
+                    .collect(Collectors.toList());
+
+            List<TransactionBatchItemResult> chunkResults;
+
+            try {
+                chunkResults = transactionRetryTemplate.execute(context ->
+                        transactionTemplate.execute(status -> transferChunk(chunk, currentUser)));
+            } catch (ConcurrencyFailureException e) {
+                chunkResults = Collections.nCopies(chunk.size(),
+                        TransactionBatchItemResult.failed(ExceptionMessage.TRANSACTION_CONCURRENT_UPDATE));
+            }
+
+            for (int i = 0; i < chunkIndexes.size(); i++) {
+                results.set(chunkIndexes.get(i), chunkResults.get(i));
+            }
+        }
+
+        return results;
+    }
+
+    private String validate(TransactionRequestDTO transactionRequest) {
+        if (transactionRequest == null) {
+            return ExceptionMessage.TRANSACTION_REQUEST_IS_NULL.getMessage();
+        }
+
+        return validator.validate(transactionRequest, CreateRequest.class).stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .findFirst()
+                .orElse(null);
+    }
+
+    /**
+     * Loads (and, in the pessimistic mode, locks) all bank accounts of the chunk at once and applies the transfers
+     * to the entities, so the balance updates and the transaction inserts are flushed in JDBC batches on commit
+     */
+    private List<TransactionBatchItemResult> transferChunk(List<TransactionRequestDTO> transactionRequests, User currentUser) {
+        Set<String> sourceNumbers = transactionRequests.stream()
+                .map(TransactionRequestDTO::getSourceBankAccountNumber)
+                .collect(Collectors.toSet());
+
+        Set<String> destinationNumbers = transactionRequests.stream()
+                .map(TransactionRequestDTO::getDestinationBankAccountNumber)
+                .collect(Collectors.toSet());
+
+        Map<String, BankAccount> bankAccounts = findBankAccountsForTransfer(sourceNumbers, destinationNumbers);
+        Map<Long, BigDecimal> stripedBalances = new HashMap<>();
+        Map<BankAccount, BigDecimal> stripeCredits = new LinkedHashMap<>();
+
+        List<TransactionBatchItemResult> results = new ArrayList<>(transactionRequests.size());
+        List<Transaction> transactions = new ArrayList<>();
+
+        for (TransactionRequestDTO transactionRequest : transactionRequests) {
+            try {
+                Transaction transaction = transferInChunk(transactionRequest, currentUser, bankAccounts,
+                        stripedBalances, stripeCredits);
+
+                transactions.add(transaction);
+                results.add(TransactionBatchItemResult.succeeded(transaction));
+            } catch (CzarBankException e) {
+                results.add(TransactionBatchItemResult.failed(e.getMessage()));
+            }
+        }
+
+        transactionRepository.saveAll(transactions);
+
+        stripeCredits.forEach(this::credit);
+
+        return results;
+    }
+
+    private Transaction transferInChunk(TransactionRequestDTO transactionRequest, User currentUser,
+                                        Map<String, BankAccount> bankAccounts, Map<Long, BigDecimal> stripedBalances,
+                                        Map<BankAccount, BigDecimal> stripeCredits) {
+        BankAccount source = bankAccounts.get(transactionRequest.getSourceBankAccountNumber());
+
+        if (source == null) {
+            throw new CzarBankException(ExceptionMessage.SOURCE_BANK_ACCOUNT_DOESNT_EXIST);
+        }
+
+        if (!currentUser.hasAuthority("TRANSACTION_CREATE") && !source.getOwner().getId().equals(currentUser.getId())) {
+            throw new CzarBankException(ExceptionMessage.TRANSACTION_ACCESS_DENIED);
+        }
+
+        BankAccount destination = bankAccounts.get(transactionRequest.getDestinationBankAccountNumber());
+
+        if (destination == null) {
+            throw new CzarBankException(ExceptionMessage.DESTINATION_BANK_ACCOUNT_DOESNT_EXIST);
+        }
+
+        boolean currenciesDiffer = !source.getUsedCurrency().equals(destination.getUsedCurrency());
 
         BigDecimal transactionAmount = transactionRequest.getAmount();
-        BigDecimal transactionCommissionAmount = transactionAmount.multiply(source.getBankAccountType()
-                .getTransactionCommission());
+        BigDecimal transactionAmountWithCommission = calculateAmountWithCommission(source.getBankAccountType(),
+                transactionAmount, currenciesDiffer);
 
-        BigDecimal transactionAmountWithCommission = transactionAmount.add(transactionCommissionAmount);
+        BigDecimal availableBalance = source.getBalance();
 
-        if (!source.getUsedCurrency().equals(destination.getUsedCurrency())) {
-            transactionCommissionAmount = transactionAmount.multiply(source.getBankAccountType().getCurrencyExchangeCommission());
+        if (source.isBalanceStriped()) {
+            availableBalance = availableBalance
+                    .add(stripedBalances.computeIfAbsent(source.getId(),
+                            bankAccountBalanceStripeRepository::sumBalanceByBankAccountId))
+                    .add(stripeCredits.getOrDefault(source, BigDecimal.ZERO));
+        }
+
+        if (availableBalance.compareTo(transactionAmountWithCommission) < 0) {
+            throw new CzarBankException(ExceptionMessage.NOT_ENOUGH_BALANCE);
+        }
+
+        BigDecimal receivedAmount = currenciesDiffer
+                ? currencyService.exchangeCurrency(source.getUsedCurrency(), transactionAmount, destination.getUsedCurrency())
+                : transactionAmount;
 
-            transactionAmountWithCommission = transactionAmountWithCommission.add(transactionCommissionAmount);
+        source.setBalance(source.getBalance().subtract(transactionAmountWithCommission));
+
+        if (destination.isBalanceStriped()) {
+            stripeCredits.merge(destination, receivedAmount, BigDecimal::add);
+        } else {
+            destination.setBalance(destination.getBalance().add(receivedAmount));
+        }
+
+        return Transaction.builder()
+                .amount(transactionAmount)
+                .receivedAmount(receivedAmount)
+                .sourceBankAccount(source)
+                .destinationBankAccount(destination)
+                .build();
+    }
+
+    private Transaction transfer(TransactionRequestDTO transactionRequest) {
+        if (concurrencyMode == TransactionConcurrencyMode.ATOMIC) {
+            return transferAtomically(transactionRequest);
+        }
+
+        return transferWithEntities(transactionRequest);
+    }
+
+    private Transaction transferWithEntities(TransactionRequestDTO transactionRequest) {
+        String sourceNumber = transactionRequest.getSourceBankAccountNumber();
+        String destinationNumber = transactionRequest.getDestinationBankAccountNumber();
+
+        Map<String, BankAccount> bankAccounts = findBankAccountsForTransfer(Set.of(sourceNumber), Set.of(destinationNumber));
+
+        BankAccount source = bankAccounts.get(sourceNumber);
+
+        if (source == null) {
+            throw new CzarBankException(ExceptionMessage.SOURCE_BANK_ACCOUNT_DOESNT_EXIST);
         }
 
-        if (source.getBalance().compareTo(transactionAmountWithCommission) < 0) {
+        BankAccount destination = bankAccounts.get(destinationNumber);
+
+        if (destination == null) {
+            throw new CzarBankException(ExceptionMessage.DESTINATION_BANK_ACCOUNT_DOESNT_EXIST);
+        }
+
+        BigDecimal transactionAmount = transactionRequest.getAmount();
+        BigDecimal transactionAmountWithCommission = calculateAmountWithCommission(source.getBankAccountType(),
+                transactionAmount, !source.getUsedCurrency().equals(destination.getUsedCurrency()));
+
+        if (getAvailableBalance(source).compareTo(transactionAmountWithCommission) < 0) {
             throw new CzarBankException(ExceptionMessage.NOT_ENOUGH_BALANCE);
         }
 
@@ -78,8 +353,124 @@ public class TransactionService {
                     destination.getUsedCurrency()));
         }
 
-        destination.setBalance(destination.getBalance().add(transaction.getReceivedAmount()));
+        credit(destination, transaction.getReceivedAmount());
 
         return transactionRepository.save(transaction);
     }
+
+    private Transaction transferAtomically(TransactionRequestDTO transactionRequest) {
+        String sourceNumber = transactionRequest.getSourceBankAccountNumber();
+        String destinationNumber = transactionRequest.getDestinationBankAccountNumber();
+
+        Map<String, BankAccountTransferProjection> bankAccounts = bankAccountRepository
+                .findAllForTransferByNumberIn(Stream.of(sourceNumber, destinationNumber).collect(Collectors.toSet())).stream()
+                .collect(Collectors.toMap(BankAccountTransferProjection::getNumber, Function.identity()));
+
+        BankAccountTransferProjection source = bankAccounts.get(sourceNumber);
+
+        if (source == null) {
+            throw new CzarBankException(ExceptionMessage.SOURCE_BANK_ACCOUNT_DOESNT_EXIST);
+        }
+
+        BankAccountTransferProjection destination = bankAccounts.get(destinationNumber);
+
+        if (destination == null) {
+            throw new CzarBankException(ExceptionMessage.DESTINATION_BANK_ACCOUNT_DOESNT_EXIST);
+        }
+
+        Currency sourceCurrency = source.getUsedCurrency();
+        Currency destinationCurrency = destination.getUsedCurrency();
+        boolean currenciesDiffer = !sourceCurrency.getId().equals(destinationCurrency.getId());
+
+        BigDecimal transactionAmount = transactionRequest.getAmount();
+        BigDecimal transactionAmountWithCommission = calculateAmountWithCommission(source.getBankAccountType(),
+                transactionAmount, currenciesDiffer);
+
+        BigDecimal receivedAmount = currenciesDiffer
+                ? currencyService.exchangeCurrency(sourceCurrency, transactionAmount, destinationCurrency)
+                : transactionAmount;
+
+        BigDecimal minimumSourceBalance = transactionAmountWithCommission;
+
+        if (source.getBalanceStripeCount() > 0) {
+            // The stripes are summed up only after the source row is locked, so the sum can't be outdated by compaction
+            bankAccountRepository.lockById(source.getId());
+
+            minimumSourceBalance = minimumSourceBalance.subtract(bankAccountBalanceStripeRepository
+                    .sumBalanceByBankAccountId(source.getId()));
+        }
+
+        if (destination.getBalanceStripeCount() > 0) {
+            if (bankAccountRepository.debitBalance(source.getId(), transactionAmountWithCommission, minimumSourceBalance) != 1) {
+                throw new CzarBankException(ExceptionMessage.NOT_ENOUGH_BALANCE);
+            }
+
+            bankAccountBalanceStripeRepository.credit(destination.getId(),
+                    randomStripe(destination.getBalanceStripeCount()), receivedAmount);
+        } else {
+            int expectedUpdatedRows = source.getId().equals(destination.getId()) ? 1 : 2;
+
+            int updatedRows = bankAccountRepository.transferBalance(source.getId(), transactionAmountWithCommission,
+                    minimumSourceBalance, destination.getId(), receivedAmount);
+
+            if (updatedRows != expectedUpdatedRows) {
+                throw new CzarBankException(ExceptionMessage.NOT_ENOUGH_BALANCE);
+            }
+        }
+
+        return transactionRepository.save(Transaction.builder()
+                .amount(transactionAmount)
+                .receivedAmount(receivedAmount)
+                .sourceBankAccount(bankAccountRepository.getReferenceById(source.getId()))
+                .destinationBankAccount(bankAccountRepository.getReferenceById(destination.getId()))
+                .build());
+    }
+
+    private BigDecimal calculateAmountWithCommission(BankAccountType bankAccountType, BigDecimal transactionAmount,
+                                                     boolean currenciesDiffer) {
+        BigDecimal transactionAmountWithCommission = transactionAmount.add(transactionAmount
+                .multiply(bankAccountType.getTransactionCommission()));
+
+        if (currenciesDiffer) {
+            transactionAmountWithCommission = transactionAmountWithCommission.add(transactionAmount
+                    .multiply(bankAccountType.getCurrencyExchangeCommission()));
+        }
+
+        return transactionAmountWithCommission;
+    }
+
+    private Map<String, BankAccount> findBankAccountsForTransfer(Set<String> sourceNumbers, Set<String> destinationNumbers) {
+        Set<String> bankAccountNumbers = new HashSet<>(sourceNumbers);
+        bankAccountNumbers.addAll(destinationNumbers);
+
+        if (concurrencyMode == TransactionConcurrencyMode.PESSIMISTIC) {
+            bankAccountRepository.lockAllForTransfer(sourceNumbers, destinationNumbers);
+        }
+
+        return bankAccountRepository.findAllByNumberIn(bankAccountNumbers).stream()
+                .collect(Collectors.toMap(BankAccount::getNumber, Function.identity()));
+    }
+
+    private BigDecimal getAvailableBalance(BankAccount bankAccount) {
+        if (!bankAccount.isBalanceStriped()) {
+            return bankAccount.getBalance();
+        }
+
+        return bankAccount.getBalance().add(bankAccountBalanceStripeRepository.sumBalanceByBankAccountId(bankAccount.getId()));
+    }
+
+    private void credit(BankAccount bankAccount, BigDecimal amount) {
+        if (!bankAccount.isBalanceStriped()) {
+            bankAccount.setBalance(bankAccount.getBalance().add(amount));
+            return;
+        }
+
+        bankAccountBalanceStripeRepository.credit(bankAccount.getId(), randomStripe(bankAccount.getBalanceStripeCount()), amount);
+
+        bankAccount.setStripedBalance(bankAccount.getStripedBalance().add(amount));
+    }
+
+    private static int randomStripe(int stripeCount) {
+        return ThreadLocalRandom.current().nextInt(stripeCount);
+    }
 }
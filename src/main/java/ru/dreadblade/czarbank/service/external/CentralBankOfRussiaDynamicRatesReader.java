@@ -0,0 +1,90 @@
+package ru.dreadblade.czarbank.service.external;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.function.BiConsumer;
+
+/**
+ * Pull parser for XML_dynamic responses, reports every {@code Record} as its date and the rate for a single unit
+ * of the currency without binding the document to DTOs
+ */
+class CentralBankOfRussiaDynamicRatesReader {
+    private static final String RECORD_ELEMENT = "Record";
+    private static final String DATE_ATTRIBUTE = "Date";
+    private static final String NOMINAL_ELEMENT = "Nominal";
+    private static final String VALUE_ELEMENT = "Value";
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd.MM.yyyy");
+
+    private static final XMLInputFactory XML_INPUT_FACTORY = createXmlInputFactory();
+
+    private CentralBankOfRussiaDynamicRatesReader() {
+    }
+
+    static void read(InputStream inputStream, BiConsumer<LocalDate, BigDecimal> recordConsumer) throws XMLStreamException {
+        XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(inputStream);
+
+        try {
+            LocalDate date = null;
+            long nominal = 1L;
+            BigDecimal value = null;
+
+            while (reader.hasNext()) {
+                int event = reader.next();
+
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    switch (reader.getLocalName()) {
+                        case RECORD_ELEMENT -> {
+                            date = LocalDate.parse(reader.getAttributeValue(null, DATE_ATTRIBUTE), DATE_FORMATTER);
+                            nominal = 1L;
+                            value = null;
+                        }
+                        case NOMINAL_ELEMENT -> nominal = Long.parseLong(reader.getElementText().trim());
+                        case VALUE_ELEMENT -> value = parseDecimal(reader.getElementText());
+                        default -> {
+                        }
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT && RECORD_ELEMENT.equals(reader.getLocalName())
+                        && date != null && value != null) {
+                    BigDecimal rate = nominal > 1L
+                            ? value.divide(BigDecimal.valueOf(nominal), RoundingMode.HALF_EVEN)
+                            : value;
+
+                    recordConsumer.accept(date, rate);
+                }
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * The Central Bank writes decimals with a comma separator
+     */
+    private static BigDecimal parseDecimal(String text) {
+        char[] chars = text.trim().toCharArray();
+
+        for (int i = 0; i < chars.length; i++) {
+            if (chars[i] == ',') {
+                chars[i] = '.';
+            }
+        }
+
+        return new BigDecimal(chars);
+    }
+
+    private static XMLInputFactory createXmlInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+
+        return factory;
+    }
+}
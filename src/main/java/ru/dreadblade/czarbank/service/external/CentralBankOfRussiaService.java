@@ -1,24 +1,33 @@
 package ru.dreadblade.czarbank.service.external;
 
-import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
-import ru.dreadblade.czarbank.api.model.response.external.CentralBankOfRussiaExchangeRatesBetweenDatesResponseDTO;
 import ru.dreadblade.czarbank.api.model.response.external.CentralBankOfRussiaExchangeRatesResponseDTO;
 import ru.dreadblade.czarbank.domain.Currency;
 import ru.dreadblade.czarbank.domain.ExchangeRate;
 
+import javax.xml.stream.XMLStreamException;
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 @Service
-@RequiredArgsConstructor
-public class CentralBankOfRussiaService {
+public class CentralBankOfRussiaService implements ExchangeRateProvider {
+    public static final String NAME = "central-bank";
+
     private static final String CENTRAL_BANK_OF_RUSSIA_EXCHANGE_RATES_ON_DATE_API_URL = "https://www.cbr.ru/scripts/XML_daily.asp";
     private static final String CENTRAL_BANK_OF_RUSSIA_EXCHANGE_RATES_BETWEEN_DATES_API_URL = "https://www.cbr.ru/scripts/XML_dynamic.asp";
 
@@ -31,6 +40,33 @@ public class CentralBankOfRussiaService {
 
     private final RestTemplate restTemplate;
 
+    /**
+     * Parsed XML_daily documents by request URL, calls made close together share one download
+     */
+    private final SingleFlightCache<String, CentralBankOfRussiaExchangeRatesResponseDTO> dailyDocuments;
+
+    /**
+     * Central Bank currency ids by ISO currency code
+     */
+    private final SingleFlightCache<String, Map<String, String>> uniqueCurrencyCodes;
+
+    @Autowired
+    public CentralBankOfRussiaService(
+            RestTemplate restTemplate,
+            @Value("${czar-bank.exchange-rate.central-bank.daily-document-ttl-seconds:60}") long dailyDocumentTtlSeconds,
+            @Value("${czar-bank.exchange-rate.central-bank.currency-code-directory-ttl-seconds:86400}") long currencyCodeDirectoryTtlSeconds
+    ) {
+        this.restTemplate = restTemplate;
+        this.dailyDocuments = new SingleFlightCache<>(Duration.ofSeconds(dailyDocumentTtlSeconds));
+        this.uniqueCurrencyCodes = new SingleFlightCache<>(Duration.ofSeconds(currencyCodeDirectoryTtlSeconds));
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
     public List<ExchangeRate> getExchangeRatesForCurrenciesByDate(List<Currency> currencies, LocalDate date) {
         String formattedDateRequestParam = date.format(DateTimeFormatter.ofPattern(EXCHANGE_RATE_DATE_REQUEST_PARAM_PATTERN));
 
@@ -39,25 +75,21 @@ public class CentralBankOfRussiaService {
                 .encode()
                 .toUriString();
 
-        ResponseEntity<CentralBankOfRussiaExchangeRatesResponseDTO> response = restTemplate
-                .getForEntity(requestUrl, CentralBankOfRussiaExchangeRatesResponseDTO.class);
-
-        CentralBankOfRussiaExchangeRatesResponseDTO exchangeRatesResponseDTO = response.getBody();
+        CentralBankOfRussiaExchangeRatesResponseDTO exchangeRatesResponseDTO = getDailyDocument(requestUrl);
 
-        if (exchangeRatesResponseDTO == null || !exchangeRatesResponseDTO.isValid()) {
+        if (exchangeRatesResponseDTO == null) {
             return List.of();
         }
 
-        if (exchangeRatesResponseDTO.getDate().isBefore(date)) {
-            exchangeRatesResponseDTO.setDate(date);
-        }
+        // the document may be shared with other callers, so it is never modified
+        LocalDate exchangeRateDate = exchangeRatesResponseDTO.getDate().isBefore(date) ? date : exchangeRatesResponseDTO.getDate();
 
         return exchangeRatesResponseDTO.getRates().stream()
                 .filter(dto -> currencies.stream().anyMatch(c -> Objects.equals(c.getCode(), dto.getCurrencyCode())))
                 .map(dto -> {
-                    if (dto.getNominal() > 1) {
-                        dto.setRate(dto.getRate().divide(BigDecimal.valueOf(dto.getNominal()), RoundingMode.HALF_EVEN));
-                    }
+                    BigDecimal rate = dto.getNominal() > 1
+                            ? dto.getRate().divide(BigDecimal.valueOf(dto.getNominal()), RoundingMode.HALF_EVEN)
+                            : dto.getRate();
 
                     Currency currency = currencies.stream()
                             .filter(c -> c.getCode().equals(dto.getCurrencyCode()))
@@ -65,13 +97,19 @@ public class CentralBankOfRussiaService {
 
                     return ExchangeRate.builder()
                             .currency(currency)
-                            .exchangeRate(dto.getRate())
-                            .date(exchangeRatesResponseDTO.getDate())
+                            .exchangeRate(rate)
+                            .date(exchangeRateDate)
                             .build();
                 }).toList();
     }
 
-    public List<ExchangeRate> getExchangeRatesForCurrencyBetweenDates(Currency currency, LocalDate startDate, LocalDate endDate) {
+    /**
+     * Passes rates to the consumer while the response is being read, days without a published rate get the previously
+     * published one
+     */
+    @Override
+    public void streamExchangeRatesForCurrencyBetweenDates(Currency currency, LocalDate startDate, LocalDate endDate,
+                                                           Consumer<ExchangeRate> exchangeRateConsumer) {
         String formattedStartDateRequestParam = startDate.format(DateTimeFormatter.ofPattern(EXCHANGE_RATE_DATE_REQUEST_PARAM_PATTERN));
         String formattedEndDateRequestParam = endDate.format(DateTimeFormatter.ofPattern(EXCHANGE_RATE_DATE_REQUEST_PARAM_PATTERN));
 
@@ -82,44 +120,24 @@ public class CentralBankOfRussiaService {
                 .encode()
                 .toUriString();
 
-        ResponseEntity<CentralBankOfRussiaExchangeRatesBetweenDatesResponseDTO> response = restTemplate
-                .getForEntity(requestUrl, CentralBankOfRussiaExchangeRatesBetweenDatesResponseDTO.class);
-
-        var exchangeRatesResponseDTO = response.getBody();
-
-        if (exchangeRatesResponseDTO == null || !exchangeRatesResponseDTO.isValid()) {
-            return List.of();
-        }
-
-        LocalDate currentDate = startDate;
-        List<ExchangeRate> result = new ArrayList<>();
-
-        var exchangeRateDTOs = exchangeRatesResponseDTO.getRates();
-        int exchangeRatesCount = exchangeRateDTOs.size();
+        ForwardFill forwardFill = new ForwardFill(currency, startDate, exchangeRateConsumer);
 
-        exchangeRateDTOs.sort(Comparator.comparing(e -> e.getDate()));
-
-        for (int i = 0; i < exchangeRatesCount; i++) {
-            var rateDTO = exchangeRateDTOs.get(i);
-
-            if (rateDTO.getNominal() > 1) {
-                rateDTO.setRate(rateDTO.getRate().divide(BigDecimal.valueOf(rateDTO.getNominal()), RoundingMode.HALF_EVEN));
-            }
-
-            while (i != exchangeRatesCount - 1 && currentDate.isBefore(exchangeRateDTOs.get(i + 1).getDate()) || i == exchangeRatesCount - 1 && currentDate.isBefore(endDate.plusDays(1))) {
-                result.add(ExchangeRate.builder()
-                        .currency(currency)
-                        .exchangeRate(rateDTO.getRate())
-                        .date(currentDate)
-                        .build());
+        restTemplate.execute(requestUrl, HttpMethod.GET,
+                request -> request.getHeaders().setAccept(List.of(MediaType.APPLICATION_XML, MediaType.TEXT_XML)),
+                response -> {
+                    try {
+                        CentralBankOfRussiaDynamicRatesReader.read(response.getBody(), forwardFill);
+                    } catch (XMLStreamException e) {
+                        throw new IOException("Malformed response of the Central Bank of the Russian Federation", e);
+                    }
 
-                currentDate = currentDate.plusDays(1);
-            }
-        }
+                    return null;
+                });
 
-        return result;
+        forwardFill.finish(endDate);
     }
 
+    @Override
     public boolean exchangeRateForCurrencyExists(Currency currency, LocalDate fromDate) {
         String formattedDateRequestParam = fromDate.format(DateTimeFormatter.ofPattern(EXCHANGE_RATE_DATE_REQUEST_PARAM_PATTERN));
 
@@ -128,12 +146,9 @@ public class CentralBankOfRussiaService {
                 .encode()
                 .toUriString();
 
-        ResponseEntity<CentralBankOfRussiaExchangeRatesResponseDTO> response = restTemplate
-                .getForEntity(requestUrl, CentralBankOfRussiaExchangeRatesResponseDTO.class);
-
-        CentralBankOfRussiaExchangeRatesResponseDTO exchangeRatesResponseDTO = response.getBody();
+        CentralBankOfRussiaExchangeRatesResponseDTO exchangeRatesResponseDTO = getDailyDocument(requestUrl);
 
-        if (exchangeRatesResponseDTO == null || !exchangeRatesResponseDTO.isValid()) {
+        if (exchangeRatesResponseDTO == null) {
             return false;
         }
 
@@ -146,18 +161,84 @@ public class CentralBankOfRussiaService {
                 .encode()
                 .toUriString();
 
-        ResponseEntity<CentralBankOfRussiaExchangeRatesResponseDTO> response = restTemplate
-                .getForEntity(requestUrl, CentralBankOfRussiaExchangeRatesResponseDTO.class);
+        Map<String, String> uniqueCurrencyCodesByCode = uniqueCurrencyCodes.get(requestUrl, () -> {
+            CentralBankOfRussiaExchangeRatesResponseDTO exchangeRatesResponseDTO = getDailyDocument(requestUrl);
 
-        CentralBankOfRussiaExchangeRatesResponseDTO exchangeRatesResponseDTO = response.getBody();
+            if (exchangeRatesResponseDTO == null) {
+                return null;
+            }
 
-        if (exchangeRatesResponseDTO == null || !exchangeRatesResponseDTO.isValid()) {
+            return exchangeRatesResponseDTO.getRates().stream()
+                    .collect(Collectors.toUnmodifiableMap(
+                            CentralBankOfRussiaExchangeRatesResponseDTO.ExchangeRateOnDateDTO::getCurrencyCode,
+                            CentralBankOfRussiaExchangeRatesResponseDTO.ExchangeRateOnDateDTO::getUniqueCurrencyCode,
+                            (first, second) -> first
+                    ));
+        });
+
+        if (uniqueCurrencyCodesByCode == null) {
             return null;
         }
 
-        return exchangeRatesResponseDTO.getRates().stream()
-                .filter(dto -> dto.getCurrencyCode().equals(currency.getCode()))
-                .map(dto -> dto.getUniqueCurrencyCode())
-                .findAny().orElseThrow(IllegalStateException::new);
+        return Optional.ofNullable(uniqueCurrencyCodesByCode.get(currency.getCode()))
+                .orElseThrow(IllegalStateException::new);
+    }
+
+    /**
+     * Invalid documents aren't cached, the next call asks the Central Bank again
+     */
+    private CentralBankOfRussiaExchangeRatesResponseDTO getDailyDocument(String requestUrl) {
+        return dailyDocuments.get(requestUrl, () -> {
+            ResponseEntity<CentralBankOfRussiaExchangeRatesResponseDTO> response = restTemplate
+                    .getForEntity(requestUrl, CentralBankOfRussiaExchangeRatesResponseDTO.class);
+
+            CentralBankOfRussiaExchangeRatesResponseDTO exchangeRatesResponseDTO = response.getBody();
+
+            return exchangeRatesResponseDTO != null && exchangeRatesResponseDTO.isValid() ? exchangeRatesResponseDTO : null;
+        });
+    }
+
+    /**
+     * Expects records in ascending date order, as the Central Bank returns them
+     */
+    private static class ForwardFill implements BiConsumer<LocalDate, BigDecimal> {
+        private final Currency currency;
+        private final Consumer<ExchangeRate> exchangeRateConsumer;
+
+        private LocalDate currentDate;
+        private BigDecimal previousRate;
+
+        private ForwardFill(Currency currency, LocalDate startDate, Consumer<ExchangeRate> exchangeRateConsumer) {
+            this.currency = currency;
+            this.currentDate = startDate;
+            this.exchangeRateConsumer = exchangeRateConsumer;
+        }
+
+        @Override
+        public void accept(LocalDate date, BigDecimal rate) {
+            if (previousRate != null) {
+                fillUntil(date);
+            }
+
+            previousRate = rate;
+        }
+
+        private void finish(LocalDate endDate) {
+            if (previousRate != null) {
+                fillUntil(endDate.plusDays(1));
+            }
+        }
+
+        private void fillUntil(LocalDate endDateExclusive) {
+            while (currentDate.isBefore(endDateExclusive)) {
+                exchangeRateConsumer.accept(ExchangeRate.builder()
+                        .currency(currency)
+                        .exchangeRate(previousRate)
+                        .date(currentDate)
+                        .build());
+
+                currentDate = currentDate.plusDays(1);
+            }
+        }
     }
 }
@@ -0,0 +1,217 @@
+package ru.dreadblade.czarbank.service.external;
+
+import lombok.extern.slf4j.Slf4j;
+import ru.dreadblade.czarbank.domain.Currency;
+import ru.dreadblade.czarbank.domain.ExchangeRate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Asks the providers in order, moving on to the next one when a provider fails, doesn't answer in time
+ * or has no rates. Failures are only rethrown when every provider failed
+ */
+@Slf4j
+public class CompositeExchangeRateProvider implements ExchangeRateProvider, AutoCloseable {
+    private final List<ExchangeRateProvider> providers;
+    private final Duration timeout;
+    private final ExecutorService executor;
+
+    public CompositeExchangeRateProvider(List<ExchangeRateProvider> providers, Duration timeout) {
+        this.providers = List.copyOf(providers);
+        this.timeout = timeout;
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "exchange-rate-provider");
+            thread.setDaemon(true);
+
+            return thread;
+        });
+    }
+
+    @Override
+    public String getName() {
+        return providers.stream()
+                .map(ExchangeRateProvider::getName)
+                .toList()
+                .toString();
+    }
+
+    @Override
+    public List<ExchangeRate> getExchangeRatesForCurrenciesByDate(List<Currency> currencies, LocalDate date) {
+        return firstUsable(provider -> provider.getExchangeRatesForCurrenciesByDate(currencies, date),
+                exchangeRates -> !exchangeRates.isEmpty(), List.of());
+    }
+
+    @Override
+    public boolean exchangeRateForCurrencyExists(Currency currency, LocalDate fromDate) {
+        return firstUsable(provider -> provider.exchangeRateForCurrencyExists(currency, fromDate),
+                Boolean::booleanValue, false);
+    }
+
+    @Override
+    public List<ExchangeRate> getExchangeRatesForCurrencyBetweenDates(Currency currency, LocalDate startDate, LocalDate endDate) {
+        return firstUsable(provider -> provider.getExchangeRatesForCurrencyBetweenDates(currency, startDate, endDate),
+                exchangeRates -> !exchangeRates.isEmpty(), List.of());
+    }
+
+    /**
+     * A provider failing part way is followed by the next one, which only passes on days after the last one passed.
+     * The timeout applies to the time without a new rate, so long histories are not cut off while they make progress
+     */
+    @Override
+    public void streamExchangeRatesForCurrencyBetweenDates(Currency currency, LocalDate startDate, LocalDate endDate,
+                                                           Consumer<ExchangeRate> exchangeRateConsumer) {
+        LocalDate nextDate = startDate;
+        RuntimeException failure = null;
+        boolean answered = false;
+
+        for (ExchangeRateProvider provider : providers) {
+            ResumingConsumer resumingConsumer = new ResumingConsumer(nextDate, exchangeRateConsumer);
+
+            try {
+                withTimeout(() -> {
+                    provider.streamExchangeRatesForCurrencyBetweenDates(currency, startDate, endDate, resumingConsumer);
+
+                    return null;
+                }, resumingConsumer::getNextDate);
+
+                answered = true;
+
+                if (resumingConsumer.getNextDate().isAfter(endDate)) {
+                    return;
+                }
+            } catch (RuntimeException e) {
+                failure = e;
+
+                log.warn("Exchange rate provider {} failed: {}", provider.getName(), e.toString());
+            } finally {
+                nextDate = resumingConsumer.abandon();
+            }
+        }
+
+        if (!answered && nextDate.equals(startDate) && failure != null) {
+            throw failure;
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private <T> T firstUsable(Function<ExchangeRateProvider, T> call, Predicate<T> isUsable, T emptyResult) {
+        RuntimeException failure = null;
+        boolean answered = false;
+
+        for (ExchangeRateProvider provider : providers) {
+            try {
+                T result = withTimeout(() -> call.apply(provider), () -> null);
+                answered = true;
+
+                if (isUsable.test(result)) {
+                    return result;
+                }
+            } catch (RuntimeException e) {
+                failure = e;
+
+                log.warn("Exchange rate provider {} failed: {}", provider.getName(), e.toString());
+            }
+        }
+
+        if (!answered && failure != null) {
+            throw failure;
+        }
+
+        return emptyResult;
+    }
+
+    /**
+     * Waits for another timeout as long as the progress changes between two timeouts
+     */
+    private <T> T withTimeout(Callable<T> call, Supplier<Object> progress) {
+        Future<T> future = executor.submit(call);
+        Object lastProgress = progress.get();
+
+        try {
+            while (true) {
+                try {
+                    return future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    Object currentProgress = progress.get();
+
+                    if (Objects.equals(currentProgress, lastProgress)) {
+                        future.cancel(true);
+
+                        throw new IllegalStateException("Exchange rate provider didn't answer in " + timeout, e);
+                    }
+
+                    lastProgress = currentProgress;
+                }
+            }
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Skips days that were already passed on and stops passing anything on once abandoned, so a provider that
+     * timed out can't interleave with the next one
+     */
+    private static class ResumingConsumer implements Consumer<ExchangeRate> {
+        private final Consumer<ExchangeRate> exchangeRateConsumer;
+
+        private LocalDate nextDate;
+        private boolean abandoned;
+
+        private ResumingConsumer(LocalDate nextDate, Consumer<ExchangeRate> exchangeRateConsumer) {
+            this.nextDate = nextDate;
+            this.exchangeRateConsumer = exchangeRateConsumer;
+        }
+
+        @Override
+        public synchronized void accept(ExchangeRate exchangeRate) {
+            if (abandoned || exchangeRate.getDate().isBefore(nextDate)) {
+                return;
+            }
+
+            exchangeRateConsumer.accept(exchangeRate);
+            nextDate = exchangeRate.getDate().plusDays(1);
+        }
+
+        private synchronized LocalDate getNextDate() {
+            return nextDate;
+        }
+
+        private synchronized LocalDate abandon() {
+            abandoned = true;
+
+            return nextDate;
+        }
+    }
+}
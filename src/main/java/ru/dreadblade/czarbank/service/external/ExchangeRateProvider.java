@@ -0,0 +1,37 @@
+package ru.dreadblade.czarbank.service.external;
+
+import ru.dreadblade.czarbank.domain.Currency;
+import ru.dreadblade.czarbank.domain.ExchangeRate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Source of exchange rates against the Russian Ruble
+ */
+public interface ExchangeRateProvider {
+    /**
+     * Name used to select the provider in {@code czar-bank.exchange-rate.providers}
+     */
+    String getName();
+
+    List<ExchangeRate> getExchangeRatesForCurrenciesByDate(List<Currency> currencies, LocalDate date);
+
+    /**
+     * Passes the rate for every day between the given dates inclusive to the consumer in ascending date order
+     */
+    void streamExchangeRatesForCurrencyBetweenDates(Currency currency, LocalDate startDate, LocalDate endDate,
+                                                    Consumer<ExchangeRate> exchangeRateConsumer);
+
+    boolean exchangeRateForCurrencyExists(Currency currency, LocalDate fromDate);
+
+    default List<ExchangeRate> getExchangeRatesForCurrencyBetweenDates(Currency currency, LocalDate startDate, LocalDate endDate) {
+        List<ExchangeRate> result = new ArrayList<>();
+
+        streamExchangeRatesForCurrencyBetweenDates(currency, startDate, endDate, result::add);
+
+        return result;
+    }
+}
@@ -0,0 +1,173 @@
+package ru.dreadblade.czarbank.service.external;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Service;
+import ru.dreadblade.czarbank.domain.Currency;
+import ru.dreadblade.czarbank.domain.ExchangeRate;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Replays exchange rates recorded on disk, one file per currency code in the configured location:
+ * {@code USD.xml} holding an XML_dynamic response of the Central Bank, or {@code USD.csv} with
+ * {@code yyyy-MM-dd,rate} lines. Days between recorded rates get the previously recorded one, as long as
+ * it is at most the maximum gap old. There are no rates before the first or after the last recorded day
+ */
+@Slf4j
+@Service
+public class RecordedExchangeRateProvider implements ExchangeRateProvider {
+    public static final String NAME = "recorded";
+
+    private static final String XML_EXTENSION = ".xml";
+    private static final String CSV_EXTENSION = ".csv";
+    private static final String CSV_SEPARATOR = ",";
+
+    private final Resource location;
+    private final int maxGapDays;
+
+    private final Map<String, Optional<NavigableMap<LocalDate, BigDecimal>>> recordings = new ConcurrentHashMap<>();
+
+    @Autowired
+    public RecordedExchangeRateProvider(ResourceLoader resourceLoader,
+                                        @Value("${czar-bank.exchange-rate.recorded.location:}") String location,
+                                        @Value("${czar-bank.exchange-rate.recorded.max-gap-days:7}") int maxGapDays) {
+        this.location = location.isBlank() ? null : resourceLoader.getResource(location.endsWith("/") ? location : location + "/");
+        this.maxGapDays = maxGapDays;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public List<ExchangeRate> getExchangeRatesForCurrenciesByDate(List<Currency> currencies, LocalDate date) {
+        return currencies.stream()
+                .map(currency -> getRecording(currency)
+                        .map(recording -> recordedRateAt(recording, date))
+                        .map(rate -> ExchangeRate.builder()
+                                .currency(currency)
+                                .exchangeRate(rate)
+                                .date(date)
+                                .build())
+                        .orElse(null))
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    @Override
+    public void streamExchangeRatesForCurrencyBetweenDates(Currency currency, LocalDate startDate, LocalDate endDate,
+                                                           Consumer<ExchangeRate> exchangeRateConsumer) {
+        getRecording(currency).ifPresent(recording -> startDate.datesUntil(endDate.plusDays(1))
+                .forEach(date -> {
+                    BigDecimal rate = recordedRateAt(recording, date);
+
+                    if (rate != null) {
+                        exchangeRateConsumer.accept(ExchangeRate.builder()
+                                .currency(currency)
+                                .exchangeRate(rate)
+                                .date(date)
+                                .build());
+                    }
+                }));
+    }
+
+    @Override
+    public boolean exchangeRateForCurrencyExists(Currency currency, LocalDate fromDate) {
+        return getRecording(currency)
+                .map(recording -> recordedRateAt(recording, fromDate))
+                .isPresent();
+    }
+
+    /**
+     * Returns null outside the recorded days and when the previously recorded rate is older than the maximum gap,
+     * so a stale recording reports no rates instead of passing its last rate off as a current one
+     */
+    private BigDecimal recordedRateAt(NavigableMap<LocalDate, BigDecimal> recording, LocalDate date) {
+        if (date.isAfter(recording.lastKey())) {
+            return null;
+        }
+
+        Map.Entry<LocalDate, BigDecimal> entry = recording.floorEntry(date);
+
+        if (entry == null || entry.getKey().plusDays(maxGapDays).isBefore(date)) {
+            return null;
+        }
+
+        return entry.getValue();
+    }
+
+    private Optional<NavigableMap<LocalDate, BigDecimal>> getRecording(Currency currency) {
+        if (location == null) {
+            return Optional.empty();
+        }
+
+        return recordings.computeIfAbsent(currency.getCode(), this::loadRecording);
+    }
+
+    private Optional<NavigableMap<LocalDate, BigDecimal>> loadRecording(String currencyCode) {
+        try {
+            NavigableMap<LocalDate, BigDecimal> recording = new TreeMap<>();
+
+            Resource xmlRecording = location.createRelative(currencyCode + XML_EXTENSION);
+            Resource csvRecording = location.createRelative(currencyCode + CSV_EXTENSION);
+
+            if (xmlRecording.exists()) {
+                try (InputStream inputStream = xmlRecording.getInputStream()) {
+                    CentralBankOfRussiaDynamicRatesReader.read(inputStream, recording::put);
+                }
+            } else if (csvRecording.exists()) {
+                readCsv(csvRecording, recording);
+            }
+
+            if (recording.isEmpty()) {
+                return Optional.empty();
+            }
+
+            log.trace("Loaded {} recorded exchange rates ({})", recording.size(), currencyCode);
+
+            return Optional.of(Collections.unmodifiableNavigableMap(recording));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (XMLStreamException e) {
+            throw new IllegalStateException("Malformed exchange rate recording " + currencyCode + XML_EXTENSION, e);
+        }
+    }
+
+    private void readCsv(Resource csvRecording, NavigableMap<LocalDate, BigDecimal> recording) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(csvRecording.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                String[] values = line.split(CSV_SEPARATOR);
+
+                if (values.length != 2 || values[0].isBlank() || !Character.isDigit(values[0].trim().charAt(0))) {
+                    continue;
+                }
+
+                recording.put(LocalDate.parse(values[0].trim()), new BigDecimal(values[1].trim()));
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package ru.dreadblade.czarbank.service.external;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Caches values for a fixed time, concurrent callers asking for the same missing key wait for a single load.
+ * Failed loads and {@code null} values are not cached
+ */
+class SingleFlightCache<K, V> {
+    private final ConcurrentMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final Duration timeToLive;
+
+    SingleFlightCache(Duration timeToLive) {
+        this.timeToLive = timeToLive;
+    }
+
+    V get(K key, Supplier<V> loader) {
+        Instant now = Instant.now();
+
+        entries.values().removeIf(entry -> entry.isExpired(now));
+
+        Entry<V> newEntry = new Entry<>(now.plus(timeToLive));
+        Entry<V> entry = entries.compute(key, (k, current) -> current != null && current.isUsable(now) ? current : newEntry);
+
+        if (entry == newEntry) {
+            try {
+                V value = loader.get();
+
+                if (value == null) {
+                    entries.remove(key, entry);
+                }
+
+                entry.value.complete(value);
+            } catch (RuntimeException | Error e) {
+                entries.remove(key, entry);
+                entry.value.completeExceptionally(e);
+
+                throw e;
+            }
+        }
+
+        try {
+            return entry.value.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+
+            throw e;
+        }
+    }
+
+    private static class Entry<V> {
+        private final CompletableFuture<V> value = new CompletableFuture<>();
+        private final Instant expiresAt;
+
+        private Entry(Instant expiresAt) {
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isUsable(Instant now) {
+            return !value.isDone() || !value.isCompletedExceptionally() && now.isBefore(expiresAt);
+        }
+
+        private boolean isExpired(Instant now) {
+            return value.isDone() && !now.isBefore(expiresAt);
+        }
+    }
+}
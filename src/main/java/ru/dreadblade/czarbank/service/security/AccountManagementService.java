@@ -3,6 +3,7 @@ package ru.dreadblade.czarbank.service.security;
 import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import ru.dreadblade.czarbank.domain.security.EmailVerificationToken;
@@ -10,6 +11,7 @@ import ru.dreadblade.czarbank.domain.security.User;
 import ru.dreadblade.czarbank.exception.CzarBankSecurityException;
 import ru.dreadblade.czarbank.exception.ExceptionMessage;
 import ru.dreadblade.czarbank.repository.security.UserRepository;
+import ru.dreadblade.czarbank.security.event.UserChangedEvent;
 import ru.dreadblade.czarbank.service.email.MailService;
 import ru.dreadblade.czarbank.service.freemarker.FreemarkerTemplateService;
 
@@ -28,6 +30,7 @@ public class AccountManagementService {
     private final EmailVerificationTokenService emailVerificationTokenService;
     private final MailService mailService;
     private final FreemarkerTemplateService templateService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Value("${czar-bank.security.email-verification-token.expiration-seconds:86400}")
     private Long emailVerificationTokenExpirationSeconds;
@@ -66,5 +69,7 @@ public class AccountManagementService {
         userToVerify.setEmailVerified(true);
 
         userRepository.save(userToVerify);
+
+        eventPublisher.publishEvent(new UserChangedEvent(userToVerify.getId()));
     }
 }
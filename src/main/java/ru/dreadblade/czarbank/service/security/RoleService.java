@@ -1,12 +1,14 @@
 package ru.dreadblade.czarbank.service.security;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import ru.dreadblade.czarbank.domain.security.Permission;
 import ru.dreadblade.czarbank.domain.security.Role;
 import ru.dreadblade.czarbank.exception.*;
 import ru.dreadblade.czarbank.repository.security.PermissionRepository;
 import ru.dreadblade.czarbank.repository.security.RoleRepository;
+import ru.dreadblade.czarbank.security.event.RoleChangedEvent;
 
 import java.util.List;
 import java.util.Set;
@@ -16,11 +18,14 @@ import java.util.stream.Collectors;
 public class RoleService {
     private final RoleRepository roleRepository;
     private final PermissionRepository permissionRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
-    public RoleService(RoleRepository roleRepository, PermissionRepository permissionRepository) {
+    public RoleService(RoleRepository roleRepository, PermissionRepository permissionRepository,
+                       ApplicationEventPublisher eventPublisher) {
         this.roleRepository = roleRepository;
         this.permissionRepository = permissionRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     public List<Role> findAll() {
@@ -70,7 +75,11 @@ public class RoleService {
             roleToUpdate.setPermissions(existingPermissions);
         }
 
-        return roleRepository.save(roleToUpdate);
+        Role updatedRole = roleRepository.save(roleToUpdate);
+
+        eventPublisher.publishEvent(new RoleChangedEvent(roleId));
+
+        return updatedRole;
     }
 
     public void deleteRoleById(Long roleId) {
@@ -79,6 +88,8 @@ public class RoleService {
         }
 
         roleRepository.deleteById(roleId);
+
+        eventPublisher.publishEvent(new RoleChangedEvent(roleId));
     }
 
     private Set<Permission> filterAndFindPermissionsFromDb(Set<Permission> permissions) {
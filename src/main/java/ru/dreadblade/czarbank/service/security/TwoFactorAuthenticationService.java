@@ -5,6 +5,7 @@ import dev.samstevens.totp.secret.SecretGenerator;
 import lombok.RequiredArgsConstructor;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -14,6 +15,7 @@ import ru.dreadblade.czarbank.exception.CzarBankSecurityException;
 import ru.dreadblade.czarbank.exception.ExceptionMessage;
 import ru.dreadblade.czarbank.repository.security.RecoveryCodeRepository;
 import ru.dreadblade.czarbank.repository.security.UserRepository;
+import ru.dreadblade.czarbank.security.event.UserChangedEvent;
 import ru.dreadblade.czarbank.security.service.TotpService;
 
 import java.util.Arrays;
@@ -35,11 +37,14 @@ public class TwoFactorAuthenticationService {
     private final UserRepository userRepository;
     private final RecoveryCodeGenerator recoveryCodeGenerator;
     private final RecoveryCodeRepository recoveryCodeRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Value("${czar-bank.security.two-factor-authentication.recovery-codes.amount}")
     private int recoveryCodesAmount;
 
-    public byte[] generateQrCodeImageForUser(User user) {
+    public byte[] generateQrCodeImageForUser(User principal) {
+        User user = findStoredUser(principal);
+
         if (user.isTwoFactorAuthenticationEnabled()) {
             throw new CzarBankSecurityException(TWO_FACTOR_AUTHENTICATION_ALREADY_SETUP);
         }
@@ -47,7 +52,7 @@ public class TwoFactorAuthenticationService {
         String secretKey = secretGenerator.generate();
         user.setTwoFactorAuthenticationSecretKey(secretKey);
 
-        userRepository.save(user);
+        save(user);
 
         return totpService.generateQrCodeImage(secretKey, user.getEmail(), "CzarBank");
     }
@@ -56,7 +61,9 @@ public class TwoFactorAuthenticationService {
         return totpService.getQrCodeImageMediaType();
     }
 
-    public List<String> verifyTwoFactorAuthentication(String code, User user) {
+    public List<String> verifyTwoFactorAuthentication(String code, User principal) {
+        User user = findStoredUser(principal);
+
         if (user.isTwoFactorAuthenticationEnabled()) {
             throw new CzarBankSecurityException(TWO_FACTOR_AUTHENTICATION_ALREADY_SETUP);
         }
@@ -72,7 +79,7 @@ public class TwoFactorAuthenticationService {
         }
 
         user.setTwoFactorAuthenticationEnabled(true);
-        userRepository.save(user);
+        save(user);
 
         return generateRecoveryCodesForUser(user);
     }
@@ -92,7 +99,9 @@ public class TwoFactorAuthenticationService {
     }
 
     @Transactional
-    public void disableTwoFactorAuthentication(String code, User user) {
+    public void disableTwoFactorAuthentication(String code, User principal) {
+        User user = findStoredUser(principal);
+
         if (!user.isTwoFactorAuthenticationEnabled()) {
             throw new CzarBankSecurityException(SETUP_TWO_FACTOR_AUTHENTICATION);
         }
@@ -112,12 +121,27 @@ public class TwoFactorAuthenticationService {
         }
     }
 
+    /**
+     * The principal may be built from access token claims or shared through the user cache, so it's reloaded
+     * before anything about it is saved
+     */
+    private User findStoredUser(User principal) {
+        return userRepository.findById(principal.getId())
+                .orElseThrow(() -> new CzarBankSecurityException(USER_NOT_FOUND));
+    }
+
     private void disableTwoFactorAuthenticationForUser(User user) {
         user.setTwoFactorAuthenticationEnabled(false);
         user.setTwoFactorAuthenticationSecretKey(null);
         recoveryCodeRepository.deleteAllByUser(user);
 
+        save(user);
+    }
+
+    private void save(User user) {
         userRepository.save(user);
+
+        eventPublisher.publishEvent(new UserChangedEvent(user.getId()));
     }
 
     private List<String> generateRecoveryCodesForUser(User user) {
@@ -4,6 +4,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
 import org.apache.commons.lang3.RandomStringUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
@@ -14,6 +15,7 @@ import ru.dreadblade.czarbank.exception.CzarBankException;
 import ru.dreadblade.czarbank.exception.ExceptionMessage;
 import ru.dreadblade.czarbank.repository.security.RoleRepository;
 import ru.dreadblade.czarbank.repository.security.UserRepository;
+import ru.dreadblade.czarbank.security.event.UserChangedEvent;
 import ru.dreadblade.czarbank.service.email.MailService;
 import ru.dreadblade.czarbank.service.freemarker.FreemarkerTemplateService;
 
@@ -33,6 +35,7 @@ public class UserService {
     private final PasswordEncoder passwordEncoder;
     private final MailService mailService;
     private final FreemarkerTemplateService templateService;
+    private final ApplicationEventPublisher eventPublisher;
 
     public List<User> findAll() {
         return userRepository.findAll();
@@ -130,7 +133,11 @@ public class UserService {
             userToUpdate.setRoles(roles);
         }
 
-        return userRepository.save(userToUpdate);
+        User user = userRepository.save(userToUpdate);
+
+        eventPublisher.publishEvent(new UserChangedEvent(userId));
+
+        return user;
     }
 
     public void deleteUserById(Long userId) {
@@ -139,5 +146,7 @@ public class UserService {
         }
 
         userRepository.deleteById(userId);
+
+        eventPublisher.publishEvent(new UserChangedEvent(userId));
     }
 }
@@ -0,0 +1,41 @@
+package ru.dreadblade.czarbank.service.task.scheduled;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.dreadblade.czarbank.repository.BankAccountBalanceStripeRepository;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves the balance of the stripes back into the bank account rows, so the number of stripe rows stays small
+ * and the balance of the rarely credited accounts is read from the bank account row only
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CompactBankAccountBalanceStripesScheduledTask implements ScheduledTask {
+    private final BankAccountBalanceStripeRepository bankAccountBalanceStripeRepository;
+
+    @Scheduled(fixedDelayString = "${czar-bank.bank-accounts.balance-stripes.compaction-delay-seconds:60}",
+            timeUnit = TimeUnit.SECONDS)
+    @Override
+    public void run() {
+        List<Long> bankAccountIds = bankAccountBalanceStripeRepository.findAllBankAccountIds();
+
+        int compactedBankAccountCount = 0;
+
+        for (Long bankAccountId : bankAccountIds) {
+            try {
+                compactedBankAccountCount += bankAccountBalanceStripeRepository.compact(bankAccountId);
+            } catch (ConcurrencyFailureException e) {
+                log.warn("Balance stripes of the bank account with id {} will be compacted on the next run", bankAccountId);
+            }
+        }
+
+        log.info("Compacted balance stripes of {} bank accounts", compactedBankAccountCount);
+    }
+}
@@ -1,5 +1,6 @@
 package ru.dreadblade.czarbank.service.task.scheduled;
 
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -7,23 +8,31 @@ import org.springframework.stereotype.Component;
 import ru.dreadblade.czarbank.domain.Currency;
 import ru.dreadblade.czarbank.domain.ExchangeRate;
 import ru.dreadblade.czarbank.repository.CurrencyRepository;
+import ru.dreadblade.czarbank.repository.ExchangeRateBatchRepository;
 import ru.dreadblade.czarbank.repository.ExchangeRateRepository;
-import ru.dreadblade.czarbank.service.external.CentralBankOfRussiaService;
+import ru.dreadblade.czarbank.service.ExchangeRateTimeSeriesStore;
+import ru.dreadblade.czarbank.service.LatestExchangeRateSnapshot;
+import ru.dreadblade.czarbank.service.external.ExchangeRateProvider;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.util.List;
-import java.util.Optional;
 
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class GetExchangeRatesFromCentralBankOfRussiaScheduledTask implements ScheduledTask {
-    private final CentralBankOfRussiaService centralBankOfRussiaService;
+    private final ExchangeRateProvider exchangeRateProvider;
     private final ExchangeRateRepository exchangeRateRepository;
+    private final LatestExchangeRateSnapshot latestExchangeRateSnapshot;
+    private final ExchangeRateTimeSeriesStore exchangeRateTimeSeriesStore;
     private final CurrencyRepository currencyRepository;
 
+    /**
+     * Row counts of the last successful run
+     */
+    @Getter
+    private volatile ExchangeRateBatchRepository.UpsertResult lastUpsertResult;
+
     @Scheduled(cron = "@daily")
     @Override
     public void run() {
@@ -31,35 +40,21 @@ public class GetExchangeRatesFromCentralBankOfRussiaScheduledTask implements Sch
         LocalDate date = LocalDate.now();
 
         try {
-            List<ExchangeRate> exchangeRates = centralBankOfRussiaService.getExchangeRatesForCurrenciesByDate(currencies, date);
+            List<ExchangeRate> exchangeRates = exchangeRateProvider.getExchangeRatesForCurrenciesByDate(currencies, date);
 
             if (exchangeRates == null || exchangeRates.isEmpty()) {
                 throw new IllegalStateException();
             }
 
-            if (exchangeRateRepository.findAllLatest().stream().anyMatch(exchangeRate -> exchangeRate.getDate().equals(date))) {
-                for (ExchangeRate exchangeRate : exchangeRates) {
-                    Optional<ExchangeRate> existingExchangeRateOptional = exchangeRateRepository.findByCurrencyAndDate(exchangeRate.getCurrency(), date);
-
-                    if (existingExchangeRateOptional.isPresent()) {
-                        ExchangeRate existingExchangeRate = existingExchangeRateOptional.get();
+            ExchangeRateBatchRepository.UpsertResult upsertResult = exchangeRateRepository.upsertAll(exchangeRates);
 
-                        BigDecimal exchangeRateValue = exchangeRate.getExchangeRate().setScale(2, RoundingMode.HALF_EVEN);
+            lastUpsertResult = upsertResult;
 
-                        if (exchangeRateValue.compareTo(existingExchangeRate.getExchangeRate()) != 0) {
-                            existingExchangeRate.setExchangeRate(exchangeRate.getExchangeRate());
-
-                            exchangeRateRepository.save(existingExchangeRate);
-                        }
-                    } else {
-                        exchangeRateRepository.save(exchangeRate);
-                    }
-                }
-            } else {
-                exchangeRateRepository.saveAll(exchangeRates);
-            }
+            latestExchangeRateSnapshot.refresh();
+            exchangeRateTimeSeriesStore.reload();
 
-            log.info("Loading exchange rates from the API of the Central Bank of the Russian Federation has been successfully completed");
+            log.info("Loading exchange rates from the API of the Central Bank of the Russian Federation has been successfully completed " +
+                    "({})", upsertResult);
         } catch (Exception e) {
             log.error("Error when loading exchange rates from the API of the Central Bank of the Russian Federation");
         }
@@ -5,11 +5,10 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import ru.dreadblade.czarbank.domain.security.BlacklistedAccessToken;
 import ru.dreadblade.czarbank.repository.security.BlacklistedAccessTokenRepository;
+import ru.dreadblade.czarbank.security.service.AccessTokenBlacklist;
 
 import java.time.Instant;
-import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 @Component
@@ -17,6 +16,7 @@ import java.util.concurrent.TimeUnit;
 @RequiredArgsConstructor
 public class ReleaseBlacklistedAccessTokensScheduledTask implements ScheduledTask {
     private final BlacklistedAccessTokenRepository blacklistedAccessTokenRepository;
+    private final AccessTokenBlacklist accessTokenBlacklist;
 
     @Value("${czar-bank.security.access-token.expiration-seconds}")
     private int accessTokenExpirationSeconds;
@@ -24,13 +24,10 @@ public class ReleaseBlacklistedAccessTokensScheduledTask implements ScheduledTas
     @Scheduled(fixedRateString = "#{${czar-bank.security.access-token.expiration-seconds:900}}", timeUnit = TimeUnit.SECONDS)
     @Override
     public void run() {
-        List<BlacklistedAccessToken> blacklistedAccessTokens = blacklistedAccessTokenRepository
-                .findAllByCreatedAtIsBefore(Instant.now().minusSeconds(accessTokenExpirationSeconds));
+        blacklistedAccessTokenRepository.deleteAllByCreatedAtIsBefore(Instant.now().minusSeconds(accessTokenExpirationSeconds));
 
-        if (!blacklistedAccessTokens.isEmpty()) {
-            blacklistedAccessTokens.forEach(blacklistedAccessToken ->
-                    blacklistedAccessTokenRepository.deleteById(blacklistedAccessToken.getId()));
-        }
+        // the expired tokens may have been deleted by another instance already, the blacklist is rebuilt regardless
+        accessTokenBlacklist.reload();
 
         log.info("Released blacklisted access tokens");
     }
@@ -0,0 +1,25 @@
+package ru.dreadblade.czarbank.service.task.scheduled;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.dreadblade.czarbank.security.service.AccessTokenBlacklist;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Picks up access tokens blacklisted by the other instances of the application, a logout there takes effect here
+ * within the delay unless the blacklist checks the database as well
+ */
+@Component
+@RequiredArgsConstructor
+public class ReloadAccessTokenBlacklistScheduledTask implements ScheduledTask {
+    private final AccessTokenBlacklist accessTokenBlacklist;
+
+    @Scheduled(fixedDelayString = "${czar-bank.security.access-token.blacklist.reload-delay-seconds:1}",
+            timeUnit = TimeUnit.SECONDS)
+    @Override
+    public void run() {
+        accessTokenBlacklist.reloadRecent();
+    }
+}
@@ -0,0 +1,33 @@
+package ru.dreadblade.czarbank.service.task.scheduled;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.dreadblade.czarbank.security.service.AccessTokenKeyRing;
+import ru.dreadblade.czarbank.security.service.AccessTokenSigningAlgorithm;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Picks up keys added to or removed from the access token key store, which is how signing keys are rotated
+ */
+@Component
+@RequiredArgsConstructor
+public class ReloadAccessTokenKeyRingScheduledTask implements ScheduledTask {
+    private final AccessTokenKeyRing accessTokenKeyRing;
+
+    @Value("${czar-bank.security.access-token.signing-algorithm:HS512}")
+    private AccessTokenSigningAlgorithm signingAlgorithm;
+
+    @Scheduled(fixedDelayString = "${czar-bank.security.access-token.key-store.reload-delay-seconds:300}",
+            timeUnit = TimeUnit.SECONDS)
+    @Override
+    public void run() {
+        if (signingAlgorithm == AccessTokenSigningAlgorithm.HS512) {
+            return;
+        }
+
+        accessTokenKeyRing.reload();
+    }
+}
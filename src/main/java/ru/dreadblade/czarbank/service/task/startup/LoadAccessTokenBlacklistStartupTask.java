@@ -0,0 +1,22 @@
+package ru.dreadblade.czarbank.service.task.startup;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.stereotype.Component;
+import ru.dreadblade.czarbank.security.service.AccessTokenBlacklist;
+
+@Component
+@RequiredArgsConstructor
+public class LoadAccessTokenBlacklistStartupTask implements StartupTask {
+    private final AccessTokenBlacklist accessTokenBlacklist;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        run();
+    }
+
+    @Override
+    public void run() {
+        accessTokenBlacklist.reload();
+    }
+}
@@ -9,23 +9,45 @@ import ru.dreadblade.czarbank.domain.Currency;
 import ru.dreadblade.czarbank.domain.ExchangeRate;
 import ru.dreadblade.czarbank.repository.CurrencyRepository;
 import ru.dreadblade.czarbank.repository.ExchangeRateRepository;
-import ru.dreadblade.czarbank.service.external.CentralBankOfRussiaService;
+import ru.dreadblade.czarbank.service.ExchangeRateTimeSeriesStore;
+import ru.dreadblade.czarbank.service.LatestExchangeRateSnapshot;
+import ru.dreadblade.czarbank.service.external.ExchangeRateProvider;
 
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class LoadExchangeRatesHistoryStartupTask implements StartupTask {
-    private final CentralBankOfRussiaService centralBankOfRussiaService;
+    /**
+     * The Central Bank doesn't publish rates on weekends and holidays, so a backfill starts this many days
+     * before the first missing date to pick up the rate in effect on that date
+     */
+    private static final long PUBLICATION_GAP_DAYS = 14L;
+
+    private final ExchangeRateProvider exchangeRateProvider;
     private final CurrencyRepository currencyRepository;
     private final ExchangeRateRepository exchangeRateRepository;
+    private final LatestExchangeRateSnapshot latestExchangeRateSnapshot;
+    private final ExchangeRateTimeSeriesStore exchangeRateTimeSeriesStore;
 
     @Value("#{T(java.time.LocalDate).parse('${czar-bank.exchange-rate.history.load-from-date:2012-01-01}')}")
     private LocalDate loadHistoryFromDate;
 
+    @Value("${czar-bank.exchange-rate.history.loader-threads:4}")
+    private int loaderThreads;
+
+    @Value("${czar-bank.exchange-rate.history.batch-size:500}")
+    private int batchSize;
+
     @Override
     public void run(ApplicationArguments args) {
         run();
@@ -40,24 +62,81 @@ public class LoadExchangeRatesHistoryStartupTask implements StartupTask {
         long requiredExchangeRateCount = (ChronoUnit.DAYS.between(loadHistoryFromDate, loadHistoryToDate) + 1) *
                 foreignCurrencies.size();
 
-        if (exchangeRateRepository.count() == requiredExchangeRateCount) {
+        if (exchangeRateRepository.countByDateBetween(loadHistoryFromDate, loadHistoryToDate) == requiredExchangeRateCount) {
             log.info("Historical exchange rate data already loaded");
 
+            exchangeRateTimeSeriesStore.reload();
+
             return;
         }
 
-        exchangeRateRepository.deleteAll();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(loaderThreads, foreignCurrencies.size())));
+
+        try {
+            List<CompletableFuture<Integer>> backfills = foreignCurrencies.stream()
+                    .map(currency -> CompletableFuture.supplyAsync(() -> backfill(currency, loadHistoryToDate), executor))
+                    .toList();
 
-        foreignCurrencies.forEach(currency -> {
-            List<ExchangeRate> exchangeRates = centralBankOfRussiaService
-                    .getExchangeRatesForCurrencyBetweenDates(currency, loadHistoryFromDate, loadHistoryToDate);
+            int loadedExchangeRateCount = backfills.stream()
+                    .mapToInt(CompletableFuture::join)
+                    .sum();
 
-            exchangeRateRepository.saveAll(exchangeRates);
+            log.trace("Backfilled {} missing exchange rates", loadedExchangeRateCount);
+        } finally {
+            executor.shutdown();
+        }
 
-            log.trace("Loaded exchange rates history ({})", currency.getSymbol());
-        });
+        latestExchangeRateSnapshot.refresh();
+        exchangeRateTimeSeriesStore.reload();
 
         log.info("Loading the history of exchange rates from the API of the Central Bank of the Russian Federation " +
                 "has been successfully completed");
     }
+
+    private int backfill(Currency currency, LocalDate loadHistoryToDate) {
+        Set<LocalDate> existingDates = new HashSet<>(exchangeRateRepository
+                .findAllDatesByCurrencyBetween(currency, loadHistoryFromDate, loadHistoryToDate));
+
+        LocalDate firstMissingDate = loadHistoryFromDate.datesUntil(loadHistoryToDate.plusDays(1))
+                .filter(date -> !existingDates.contains(date))
+                .findFirst()
+                .orElse(null);
+
+        if (firstMissingDate == null) {
+            return 0;
+        }
+
+        List<ExchangeRate> batch = new ArrayList<>(batchSize);
+        int[] loadedExchangeRateCount = { 0 };
+
+        exchangeRateProvider.streamExchangeRatesForCurrencyBetweenDates(currency,
+                firstMissingDate.minusDays(PUBLICATION_GAP_DAYS), loadHistoryToDate, exchangeRate -> {
+                    if (exchangeRate.getDate().isBefore(firstMissingDate) || existingDates.contains(exchangeRate.getDate())) {
+                        return;
+                    }
+
+                    batch.add(exchangeRate);
+
+                    if (batch.size() == batchSize) {
+                        loadedExchangeRateCount[0] += insert(batch);
+                    }
+                });
+
+        loadedExchangeRateCount[0] += insert(batch);
+
+        log.trace("Loaded exchange rates history ({})", currency.getSymbol());
+
+        return loadedExchangeRateCount[0];
+    }
+
+    private int insert(List<ExchangeRate> batch) {
+        int size = batch.size();
+
+        if (size > 0) {
+            exchangeRateRepository.insertAllIgnoringExisting(batch);
+            batch.clear();
+        }
+
+        return size;
+    }
 }
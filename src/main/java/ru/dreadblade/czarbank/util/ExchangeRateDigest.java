@@ -0,0 +1,40 @@
+package ru.dreadblade.czarbank.util;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.function.Function;
+
+/**
+ * Content hash of a set of exchange rates, equal rates in the same order always give the same digest
+ */
+public class ExchangeRateDigest {
+    private static final int DIGEST_LENGTH = 16;
+
+    private ExchangeRateDigest() {
+    }
+
+    public static <T> String digest(Collection<T> exchangeRates, Function<T, ?> currencyKey, Function<T, BigDecimal> exchangeRate) {
+        MessageDigest messageDigest = createMessageDigest();
+
+        for (T rate : exchangeRates) {
+            String entry = currencyKey.apply(rate) + "=" + exchangeRate.apply(rate).toPlainString() + ";";
+
+            messageDigest.update(entry.getBytes(StandardCharsets.UTF_8));
+        }
+
+        return HexFormat.of().formatHex(Arrays.copyOf(messageDigest.digest(), DIGEST_LENGTH));
+    }
+
+    private static MessageDigest createMessageDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1 @@
+alter table bank_account add column version bigint not null default 0;
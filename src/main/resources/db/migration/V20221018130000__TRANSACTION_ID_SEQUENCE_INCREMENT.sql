@@ -0,0 +1 @@
+alter sequence transaction_id_sequence increment 50;
@@ -0,0 +1,12 @@
+-- The increments must match the allocationSize of the corresponding @SequenceGenerator,
+-- ids are handed out by the pooled-lo optimizer in blocks starting at the value returned by nextval
+alter sequence bank_account_id_sequence increment 20;
+alter sequence bank_account_type_id_sequence increment 10;
+alter sequence blacklisted_access_token_id_sequence increment 50;
+alter sequence currency_id_sequence increment 10;
+alter sequence email_verification_token_id_sequence increment 20;
+alter sequence permission_id_sequence increment 10;
+alter sequence recovery_code_sequence increment 50;
+alter sequence refresh_token_session_sequence increment 50;
+alter sequence role_id_sequence increment 10;
+alter sequence user_id_sequence increment 20;
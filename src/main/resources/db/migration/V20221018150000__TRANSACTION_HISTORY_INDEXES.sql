@@ -0,0 +1,6 @@
+-- Keyset pagination of the transaction history reads the transactions of a bank account
+-- ordered by (created_at, id), the index of each side of the transaction serves it without sorting
+create index transaction_source_bank_account_id_created_at_id_idx
+    on transaction (source_bank_account_id, created_at, id);
+create index transaction_destination_bank_account_id_created_at_id_idx
+    on transaction (destination_bank_account_id, created_at, id);
@@ -0,0 +1,9 @@
+-- Each branch of the transaction history reads the rows of one side of the transaction in (created_at, id) order,
+-- the remaining columns are appended to the indexes so that the branches can be answered by index only scans
+drop index transaction_source_bank_account_id_created_at_id_idx;
+drop index transaction_destination_bank_account_id_created_at_id_idx;
+
+create index transaction_source_bank_account_id_created_at_id_idx
+    on transaction (source_bank_account_id, created_at, id, destination_bank_account_id, amount, received_amount);
+create index transaction_destination_bank_account_id_created_at_id_idx
+    on transaction (destination_bank_account_id, created_at, id, source_bank_account_id, amount, received_amount);
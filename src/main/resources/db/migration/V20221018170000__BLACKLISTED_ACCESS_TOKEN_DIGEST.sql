@@ -0,0 +1,13 @@
+-- The blacklist is reloaded by digest and by creation time instead of reading every token,
+-- the hex SHA-256 digest of the token is looked up when the database is checked directly
+alter table blacklisted_access_token add column access_token_digest varchar(64);
+
+update blacklisted_access_token
+set access_token_digest = encode(sha256(convert_to(access_token, 'UTF8')), 'hex');
+
+alter table blacklisted_access_token alter column access_token_digest set not null;
+
+create index blacklisted_access_token_access_token_digest_idx
+    on blacklisted_access_token (access_token_digest);
+create index blacklisted_access_token_created_at_idx
+    on blacklisted_access_token (created_at);
@@ -0,0 +1,11 @@
+-- The columns appended to the transaction history indexes are only read, never searched or sorted by,
+-- so they are carried as non-key INCLUDE columns that keep the inner pages of the indexes small
+drop index transaction_source_bank_account_id_created_at_id_idx;
+drop index transaction_destination_bank_account_id_created_at_id_idx;
+
+create index transaction_source_bank_account_id_created_at_id_idx
+    on transaction (source_bank_account_id, created_at, id)
+    include (destination_bank_account_id, amount, received_amount);
+create index transaction_destination_bank_account_id_created_at_id_idx
+    on transaction (destination_bank_account_id, created_at, id)
+    include (source_bank_account_id, amount, received_amount);
@@ -1,12 +1,16 @@
 package ru.dreadblade.czarbank.api.controller;
 
+import com.auth0.jwt.exceptions.JWTVerificationException;
 import dev.samstevens.totp.code.CodeGenerator;
 import dev.samstevens.totp.recovery.RecoveryCodeGenerator;
 import dev.samstevens.totp.secret.SecretGenerator;
 import dev.samstevens.totp.spring.autoconfigure.TotpProperties;
 import dev.samstevens.totp.time.TimeProvider;
 import org.apache.commons.lang3.RandomStringUtils;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.hamcrest.Matchers;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -19,37 +23,56 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.test.annotation.Rollback;
+import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.context.WebApplicationContext;
 import ru.dreadblade.czarbank.util.RecoveryCodeTestUtils;
 import ru.dreadblade.czarbank.api.model.request.security.AuthenticationRequestDTO;
 import ru.dreadblade.czarbank.api.model.request.security.LogoutRequestDTO;
 import ru.dreadblade.czarbank.api.model.request.security.RefreshTokensRequestDTO;
 import ru.dreadblade.czarbank.api.model.response.security.AuthenticationResponseDTO;
+import ru.dreadblade.czarbank.domain.security.BlacklistedAccessToken;
+import ru.dreadblade.czarbank.domain.security.Permission;
 import ru.dreadblade.czarbank.domain.security.RecoveryCode;
 import ru.dreadblade.czarbank.domain.security.RefreshTokenSession;
+import ru.dreadblade.czarbank.domain.security.Role;
 import ru.dreadblade.czarbank.domain.security.User;
 import ru.dreadblade.czarbank.exception.ExceptionMessage;
 import ru.dreadblade.czarbank.repository.security.BlacklistedAccessTokenRepository;
 import ru.dreadblade.czarbank.repository.security.RecoveryCodeRepository;
 import ru.dreadblade.czarbank.repository.security.RefreshTokenSessionRepository;
 import ru.dreadblade.czarbank.repository.security.UserRepository;
+import ru.dreadblade.czarbank.security.service.AccessTokenBlacklist;
 import ru.dreadblade.czarbank.security.service.AccessTokenService;
 import ru.dreadblade.czarbank.security.service.RefreshTokenService;
+import ru.dreadblade.czarbank.security.service.UserCache;
+import ru.dreadblade.czarbank.service.security.RoleService;
+import ru.dreadblade.czarbank.service.security.UserService;
 import ru.dreadblade.czarbank.service.task.scheduled.ReleaseBlacklistedAccessTokensScheduledTask;
 
+import javax.persistence.EntityManagerFactory;
 import java.time.Instant;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.hasSize;
 import static org.springframework.security.test.web.servlet.response.SecurityMockMvcResultMatchers.authenticated;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -97,6 +120,9 @@ public class AuthenticationIntegrationTest extends BaseIntegrationTest {
     @Autowired
     BlacklistedAccessTokenRepository blacklistedAccessTokenRepository;
 
+    @Autowired
+    AccessTokenBlacklist accessTokenBlacklist;
+
     @Autowired
     RecoveryCodeRepository recoveryCodeRepository;
 
@@ -514,6 +540,24 @@ public class AuthenticationIntegrationTest extends BaseIntegrationTest {
                     .andExpect(jsonPath("$.message").value(ACCESS_TOKEN_EXPIRED_MESSAGE));
         }
 
+        @Test
+        void accessToken_verifiedThenExpired_authIsFailed() throws Exception {
+            User user = userRepository.findById(1L).orElseThrow();
+
+            String accessToken = headerPrefix + accessTokenService.generateAccessToken(user);
+
+            mockMvc.perform(get(USERS_API_URL)
+                            .header(HttpHeaders.AUTHORIZATION, accessToken))
+                    .andExpect(status().isOk());
+
+            TimeUnit.SECONDS.sleep(ACCESS_TOKEN_EXPIRATION_SECONDS + 1);
+
+            mockMvc.perform(get(USERS_API_URL)
+                            .header(HttpHeaders.AUTHORIZATION, accessToken))
+                    .andExpect(status().isUnauthorized())
+                    .andExpect(jsonPath("$.message").value(ACCESS_TOKEN_EXPIRED_MESSAGE));
+        }
+
         @Test
         @Transactional
         void accessToken_thenLockingTheUser_authIsFailed() throws Exception {
@@ -623,6 +667,33 @@ public class AuthenticationIntegrationTest extends BaseIntegrationTest {
     @Nested
     @DisplayName("refreshTokens() Tests")
     class RefreshTokenTests {
+        @Test
+        void saveAll_refreshTokenSessions_idsArePreallocatedAndInsertsAreBatched() {
+            User user = userRepository.findByUsername("client").orElseThrow();
+
+            int refreshTokenSessionCount = 1000;
+
+            List<RefreshTokenSession> refreshTokenSessions = IntStream.range(0, refreshTokenSessionCount)
+                    .mapToObj(i -> RefreshTokenSession.builder()
+                            .refreshToken(UUID.randomUUID().toString())
+                            .user(user)
+                            .build())
+                    .collect(Collectors.toList());
+
+            Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+            statistics.clear();
+            statistics.setStatisticsEnabled(true);
+
+            try {
+                refreshTokenSessionRepository.saveAll(refreshTokenSessions);
+
+                assertThat(statistics.getEntityInsertCount()).isEqualTo(refreshTokenSessionCount);
+                assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(refreshTokenSessionCount / 10);
+            } finally {
+                statistics.setStatisticsEnabled(false);
+            }
+        }
+
         @Test
         @Transactional
         void refreshTokens_refreshTokenIsValid_isSuccessful() throws Exception {
@@ -897,6 +968,84 @@ public class AuthenticationIntegrationTest extends BaseIntegrationTest {
                     .andExpect(jsonPath("$.message").value(ExceptionMessage.INVALID_REFRESH_TOKEN.getMessage()));
         }
 
+        @Test
+        void generateAccessToken_sameUserTwice_logoutOfOneDoesntBlacklistTheOther() {
+            User user = userRepository.findById(1L).orElseThrow();
+
+            String accessToken = accessTokenService.generateAccessToken(user);
+            String otherAccessToken = accessTokenService.generateAccessToken(user);
+
+            assertThat(otherAccessToken).isNotEqualTo(accessToken);
+
+            accessTokenBlacklist.add(accessToken);
+
+            assertThat(accessTokenBlacklist.contains(otherAccessToken)).isFalse();
+        }
+
+        @Test
+        void releaseBlacklistedAccessTokens_nothingExpiredHere_rebuildsBlacklist() {
+            String accessToken = accessTokenService.generateAccessToken(userRepository.findById(1L).orElseThrow());
+
+            // as if another instance had blacklisted the token and already released it
+            accessTokenBlacklist.add(accessToken);
+
+            assertThat(accessTokenBlacklist.contains(accessToken)).isTrue();
+
+            releaseBlacklistedAccessTokensScheduledTask.run();
+
+            assertThat(accessTokenBlacklist.contains(accessToken)).isFalse();
+        }
+
+        @Test
+        void accessTokenBlacklist_tokenIsNotBlacklisted_doesntQueryDatabase() {
+            accessTokenBlacklist.reload();
+
+            String accessToken = accessTokenService.generateAccessToken(userRepository.findById(1L).orElseThrow());
+
+            Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+            statistics.clear();
+            statistics.setStatisticsEnabled(true);
+
+            try {
+                for (int i = 0; i < 1000; i++) {
+                    assertThat(accessTokenBlacklist.contains(accessToken + i)).isFalse();
+                }
+
+                assertThat(statistics.getPrepareStatementCount()).isZero();
+            } finally {
+                statistics.setStatisticsEnabled(false);
+            }
+        }
+
+        @Test
+        @Rollback
+        void accessTokenBlacklist_afterReloadRecent_rejectsTokenBlacklistedElsewhere() throws Exception {
+            User user = userRepository.findById(1L).orElseThrow();
+
+            String accessToken = accessTokenService.generateAccessToken(user);
+            String refreshToken = refreshTokenService.generateRefreshToken(user);
+
+            accessTokenBlacklist.reload();
+
+            blacklistedAccessTokenRepository.save(BlacklistedAccessToken.builder()
+                    .accessToken(accessToken)
+                    .accessTokenDigest(AccessTokenBlacklist.digestOf(accessToken))
+                    .build());
+
+            assertThat(accessTokenBlacklist.contains(accessToken)).isFalse();
+
+            accessTokenBlacklist.reloadRecent();
+
+            assertThat(accessTokenBlacklist.contains(accessToken)).isTrue();
+
+            mockMvc.perform(post(LOGOUT_API_URL)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .header(HttpHeaders.AUTHORIZATION, headerPrefix + accessToken)
+                            .content(objectMapper.writeValueAsString(new LogoutRequestDTO(refreshToken))))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.message").value(ExceptionMessage.INVALID_ACCESS_TOKEN.getMessage()));
+        }
+
         @Nested
         @DisplayName("Validation Tests")
         class ValidationTests {
@@ -922,6 +1071,236 @@ public class AuthenticationIntegrationTest extends BaseIntegrationTest {
         }
     }
 
+    /**
+     * Reuses the schema of the enclosing context, recreating it would reset the sequences that context has already
+     * allocated ids from
+     */
+    @Nested
+    @DisplayName("Stateless Principal Tests")
+    @TestPropertySource(properties = {
+            "spring.jpa.hibernate.ddl-auto=none",
+            "czar-bank.security.access-token.expiration-seconds=60",
+            "czar-bank.security.access-token.stateless-principal.enabled=true",
+            "czar-bank.security.access-token.stateless-principal.status-ttl-seconds=1",
+            "czar-bank.security.access-token.verified-token-cache-size=2"
+    })
+    class StatelessPrincipalTests {
+        private static final String SETUP_2FA_API_URL = "/api/account-management/2fa/setup";
+
+        @Autowired
+        WebApplicationContext webApplicationContext;
+
+        @Autowired
+        AccessTokenService accessTokenService;
+
+        @Autowired
+        UserRepository userRepository;
+
+        @Autowired
+        EntityManagerFactory entityManagerFactory;
+
+        MockMvc mockMvc;
+
+        @BeforeEach
+        void setUp() {
+            mockMvc = MockMvcBuilders
+                    .webAppContextSetup(webApplicationContext)
+                    .apply(springSecurity())
+                    .build();
+        }
+
+        @Test
+        void getUserFromToken_withCachedStatus_buildsPrincipalFromClaimsWithoutQueries() {
+            User user = userRepository.findById(1L).orElseThrow();
+
+            String accessToken = accessTokenService.generateAccessToken(user);
+
+            accessTokenService.getUserFromToken(accessToken);
+
+            Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+            statistics.clear();
+            statistics.setStatisticsEnabled(true);
+
+            try {
+                User principal = accessTokenService.getUserFromToken(accessToken);
+
+                assertThat(statistics.getPrepareStatementCount()).isZero();
+
+                assertThat(principal.getId()).isEqualTo(user.getId());
+                assertThat(principal.getUsername()).isEqualTo(user.getUsername());
+                assertThat(Set.copyOf(principal.getAuthorities())).isEqualTo(Set.copyOf(user.getAuthorities()));
+                assertThat(principal.isEmailVerified()).isTrue();
+                assertThat(principal.isAccountNonLocked()).isTrue();
+                assertThat(principal.isEnabled()).isTrue();
+            } finally {
+                statistics.setStatisticsEnabled(false);
+            }
+        }
+
+        @Test
+        void generateAccessToken_andGetUserFromToken_verifiedTokenIsCached() {
+            User user = userRepository.findById(1L).orElseThrow();
+
+            String accessToken = accessTokenService.generateAccessToken(user);
+
+            User principal = accessTokenService.getUserFromToken(accessToken);
+            User cachedPrincipal = accessTokenService.getUserFromToken(accessToken);
+
+            assertThat(Set.copyOf(principal.getAuthorities())).isEqualTo(Set.copyOf(user.getAuthorities()));
+            assertThat(cachedPrincipal.getId()).isEqualTo(user.getId());
+            assertThat(cachedPrincipal.getAuthorities()).isSameAs(principal.getAuthorities());
+
+            assertThatThrownBy(() -> accessTokenService.getUserFromToken(accessToken + "A"))
+                    .isInstanceOf(JWTVerificationException.class);
+        }
+
+        @Test
+        void getUserFromToken_verifiedTokenCacheIsFull_evictsOnlyTheOldestToken() {
+            User user = userRepository.findById(1L).orElseThrow();
+
+            String oldestAccessToken = accessTokenService.generateAccessToken(user);
+            String olderAccessToken = accessTokenService.generateAccessToken(user);
+            String latestAccessToken = accessTokenService.generateAccessToken(user);
+
+            User oldestPrincipal = accessTokenService.getUserFromToken(oldestAccessToken);
+            User olderPrincipal = accessTokenService.getUserFromToken(olderAccessToken);
+            User latestPrincipal = accessTokenService.getUserFromToken(latestAccessToken);
+
+            assertThat(accessTokenService.getUserFromToken(latestAccessToken).getAuthorities())
+                    .isSameAs(latestPrincipal.getAuthorities());
+            assertThat(accessTokenService.getUserFromToken(olderAccessToken).getAuthorities())
+                    .isSameAs(olderPrincipal.getAuthorities());
+            assertThat(accessTokenService.getUserFromToken(oldestAccessToken).getAuthorities())
+                    .isNotSameAs(oldestPrincipal.getAuthorities());
+        }
+
+        @Test
+        void accessToken_thenLockingTheUser_authIsFailedOnceStatusExpires() throws Exception {
+            User user = userRepository.findById(1L).orElseThrow();
+
+            String accessToken = headerPrefix + accessTokenService.generateAccessToken(user);
+
+            mockMvc.perform(get(USERS_API_URL)
+                            .header(HttpHeaders.AUTHORIZATION, accessToken))
+                    .andExpect(status().isOk());
+
+            user.setAccountLocked(true);
+            userRepository.save(user);
+
+            TimeUnit.MILLISECONDS.sleep(1100);
+
+            mockMvc.perform(get(USERS_API_URL)
+                            .header(HttpHeaders.AUTHORIZATION, accessToken))
+                    .andExpect(status().isUnauthorized())
+                    .andExpect(jsonPath("$.message").value("User's account is locked"));
+        }
+
+        @Test
+        void setupTwoFactorAuthentication_withStatelessPrincipal_keepsStoredUser() throws Exception {
+            User user = userRepository.findById(3L).orElseThrow();
+
+            String accessToken = headerPrefix + accessTokenService.generateAccessToken(user);
+
+            mockMvc.perform(get(SETUP_2FA_API_URL)
+                            .header(HttpHeaders.AUTHORIZATION, accessToken))
+                    .andExpect(status().isOk());
+
+            User storedUser = userRepository.findById(3L).orElseThrow();
+
+            assertThat(storedUser.getTwoFactorAuthenticationSecretKey()).isNotBlank();
+            assertThat(storedUser.getEmail()).isEqualTo(user.getEmail());
+            assertThat(storedUser.getPassword()).isEqualTo(user.getPassword());
+            assertThat(storedUser.getUserId()).isEqualTo(user.getUserId());
+            assertThat(Set.copyOf(storedUser.getAuthorities())).isEqualTo(Set.copyOf(user.getAuthorities()));
+        }
+    }
+
+    @Nested
+    @DisplayName("User Cache Tests")
+    @TestPropertySource(properties = {
+            "spring.jpa.hibernate.ddl-auto=none",
+            "czar-bank.security.user-cache.enabled=true",
+            "czar-bank.security.user-cache.max-size=2"
+    })
+    class UserCacheTests {
+        @Autowired
+        UserCache userCache;
+
+        @Autowired
+        UserDetailsService userDetailsService;
+
+        @Autowired
+        UserService userService;
+
+        @Autowired
+        RoleService roleService;
+
+        @Autowired
+        EntityManagerFactory entityManagerFactory;
+
+        @BeforeEach
+        void setUp() {
+            userCache.invalidateAll();
+        }
+
+        @Test
+        void loadUserByUsername_cachedUser_doesntQueryDatabase() {
+            UserDetails user = userDetailsService.loadUserByUsername("admin");
+
+            Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+            statistics.clear();
+            statistics.setStatisticsEnabled(true);
+
+            try {
+                UserDetails cachedUser = userDetailsService.loadUserByUsername("admin");
+
+                assertThat(statistics.getPrepareStatementCount()).isZero();
+                assertThat(cachedUser).isSameAs(user);
+                assertThat(cachedUser.getAuthorities()).isSameAs(user.getAuthorities());
+                assertThatThrownBy(() -> cachedUser.getAuthorities().clear())
+                        .isInstanceOf(UnsupportedOperationException.class);
+            } finally {
+                statistics.setStatisticsEnabled(false);
+            }
+        }
+
+        @Test
+        void updateUser_cachedUser_isInvalidated() {
+            User admin = userCache.findById(1L).orElseThrow();
+            User client = userCache.findByUsername("client").orElseThrow();
+
+            userService.update(client.getId(), User.builder().username("renamedClient").build(), admin);
+
+            assertThat(userCache.findByUsername("client")).isEmpty();
+            assertThat(userCache.findById(client.getId()).orElseThrow().getUsername()).isEqualTo("renamedClient");
+            assertThat(userCache.findById(1L).orElseThrow()).isSameAs(admin);
+        }
+
+        @Test
+        void updateRole_cachedUsers_areInvalidated() {
+            User client = userCache.findByUsername("client").orElseThrow();
+
+            assertThat(client.hasAuthority("BANK_ACCOUNT_TYPE_READ")).isFalse();
+
+            roleService.updateRoleById(3L, Role.builder()
+                    .addPermission(Permission.builder().id(2L).build())
+                    .build());
+
+            assertThat(userCache.findByUsername("client").orElseThrow().hasAuthority("BANK_ACCOUNT_TYPE_READ")).isTrue();
+        }
+
+        @Test
+        void findById_cacheIsFull_evictsOnlyTheOldestUser() {
+            User admin = userCache.findById(1L).orElseThrow();
+            User employee = userCache.findById(2L).orElseThrow();
+            User client = userCache.findById(3L).orElseThrow();
+
+            assertThat(userCache.findById(3L).orElseThrow()).isSameAs(client);
+            assertThat(userCache.findById(2L).orElseThrow()).isSameAs(employee);
+            assertThat(userCache.findById(1L).orElseThrow()).isNotSameAs(admin);
+        }
+    }
+
     @Nested
     @DisplayName("Request validation tests")
     class RequestValidationTests {
@@ -575,4 +575,26 @@ public class BankAccountIntegrationTest extends BaseIntegrationTest {
                     .andExpect(jsonPath("$.message").value("Access is denied"));
         }
     }
+
+    @Nested
+    @DisplayName("Query count Tests")
+    class QueryCountTests {
+        @Test
+        @WithUserDetails("admin")
+        void findAll_isSingleQuery() throws Exception {
+            Assertions.assertThat(countStatements(get(BANK_ACCOUNTS_API_URL), status().isOk())).isEqualTo(1);
+        }
+
+        @Test
+        @WithUserDetails("admin")
+        void findById_withPermission_isSingleQuery() throws Exception {
+            Assertions.assertThat(countStatements(get(BANK_ACCOUNTS_API_URL + "/4"), status().isOk())).isEqualTo(1);
+        }
+
+        @Test
+        @WithUserDetails("client")
+        void findById_asOwnerOfBankAccount_isSingleQuery() throws Exception {
+            Assertions.assertThat(countStatements(get(BANK_ACCOUNTS_API_URL + "/3"), status().isOk())).isEqualTo(1);
+        }
+    }
 }
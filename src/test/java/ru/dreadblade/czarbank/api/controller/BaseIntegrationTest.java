@@ -1,6 +1,7 @@
 package ru.dreadblade.czarbank.api.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.provider.Arguments;
@@ -13,12 +14,16 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.support.TestPropertySourceUtils;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultMatcher;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Testcontainers;
 import org.testcontainers.utility.DockerImageName;
 
+import javax.persistence.EntityManagerFactory;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -39,6 +44,9 @@ public abstract class BaseIntegrationTest {
     @Autowired
     ObjectMapper objectMapper;
 
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
     MockMvc mockMvc;
 
     @BeforeEach
@@ -56,6 +64,52 @@ public abstract class BaseIntegrationTest {
         assertThat(objectMapper).isNotNull();
     }
 
+    /**
+     * Returns the number of statements prepared while the request was handled. Only statements of the request thread
+     * are counted, the scheduled tasks query the database at the same time
+     */
+    long countStatements(MockHttpServletRequestBuilder request, ResultMatcher expectedStatus) throws Exception {
+        ThreadStatementCounter.start();
+
+        try {
+            mockMvc.perform(request).andExpect(expectedStatus);
+
+            return ThreadStatementCounter.getCount();
+        } finally {
+            ThreadStatementCounter.stop();
+        }
+    }
+
+    /**
+     * Counts the statements Hibernate prepares on the threads that started counting
+     */
+    public static class ThreadStatementCounter implements StatementInspector {
+        private static final ThreadLocal<AtomicLong> COUNT = new ThreadLocal<>();
+
+        static void start() {
+            COUNT.set(new AtomicLong());
+        }
+
+        static long getCount() {
+            return COUNT.get().get();
+        }
+
+        static void stop() {
+            COUNT.remove();
+        }
+
+        @Override
+        public String inspect(String sql) {
+            AtomicLong count = COUNT.get();
+
+            if (count != null) {
+                count.incrementAndGet();
+            }
+
+            return sql;
+        }
+    }
+
     public static Stream<Arguments> getStreamAllUsers() {
         return Stream.of(Arguments.of("admin", "password"),
                 Arguments.of("employee", "password"),
@@ -3,6 +3,9 @@ package ru.dreadblade.czarbank.api.controller;
 import org.apache.commons.lang3.RandomStringUtils;
 import org.assertj.core.api.Assertions;
 import org.hamcrest.Matchers;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
@@ -19,6 +22,7 @@ import ru.dreadblade.czarbank.api.mapper.CurrencyMapper;
 import ru.dreadblade.czarbank.api.model.request.CurrencyRequestDTO;
 import ru.dreadblade.czarbank.api.model.response.CurrencyResponseDTO;
 import ru.dreadblade.czarbank.domain.Currency;
+import ru.dreadblade.czarbank.domain.ExchangeRate;
 import ru.dreadblade.czarbank.exception.ExceptionMessage;
 import ru.dreadblade.czarbank.repository.BankAccountRepository;
 import ru.dreadblade.czarbank.repository.CurrencyRepository;
@@ -27,6 +31,7 @@ import ru.dreadblade.czarbank.repository.security.UserRepository;
 import ru.dreadblade.czarbank.service.BankAccountService;
 import ru.dreadblade.czarbank.service.CurrencyService;
 import ru.dreadblade.czarbank.service.ExchangeRateService;
+import ru.dreadblade.czarbank.service.LatestExchangeRateSnapshot;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
@@ -65,6 +70,9 @@ public class CurrencyIntegrationTest extends BaseIntegrationTest {
     @Autowired
     CurrencyRepository currencyRepository;
 
+    @Autowired
+    LatestExchangeRateSnapshot latestExchangeRateSnapshot;
+
     @Autowired
     CurrencyMapper currencyMapper;
 
@@ -311,6 +319,50 @@ public class CurrencyIntegrationTest extends BaseIntegrationTest {
     @Nested
     @DisplayName("exchangeCurrency() Tests")
     class ExchangeCurrencyTests {
+        @BeforeEach
+        void refreshLatestExchangeRateSnapshot() {
+            latestExchangeRateSnapshot.refresh();
+        }
+
+        @Test
+        void exchangeCurrency_fromEurToUsd_doesntQueryDatabase() {
+            Currency sourceCurrency = currencyRepository.findByCode("EUR").orElseThrow();
+            Currency targetCurrency = currencyRepository.findByCode("USD").orElseThrow();
+
+            Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+            statistics.clear();
+            statistics.setStatisticsEnabled(true);
+
+            try {
+                currencyService.exchangeCurrency(sourceCurrency, new BigDecimal(100L), targetCurrency);
+
+                Assertions.assertThat(statistics.getPrepareStatementCount()).isZero();
+            } finally {
+                statistics.setStatisticsEnabled(false);
+            }
+        }
+
+        @Test
+        void exchangeCurrency_afterSnapshotRefresh_usesNewRates() {
+            Currency sourceCurrency = currencyRepository.findByCode("USD").orElseThrow();
+            Currency targetCurrency = currencyRepository.findByCode("RUB").orElseThrow();
+
+            ExchangeRate latestRate = exchangeRateRepository.findByCurrencyAndDate(sourceCurrency, LocalDate.parse("2021-09-05"))
+                    .orElseThrow();
+            latestRate.setExchangeRate(new BigDecimal("99.99"));
+            exchangeRateRepository.save(latestRate);
+
+            BigDecimal amountInUsd = new BigDecimal(100L);
+
+            Assertions.assertThat(currencyService.exchangeCurrency(sourceCurrency, amountInUsd, targetCurrency))
+                    .isEqualByComparingTo(amountInUsd.multiply(new BigDecimal("72.85")));
+
+            latestExchangeRateSnapshot.refresh();
+
+            Assertions.assertThat(currencyService.exchangeCurrency(sourceCurrency, amountInUsd, targetCurrency))
+                    .isEqualByComparingTo(amountInUsd.multiply(new BigDecimal("99.99")));
+        }
+
         @Test
         void exchangeCurrency_fromRubToUsd_isSuccessful() {
             Currency sourceCurrency = currencyRepository.findByCode("RUB").orElseThrow();
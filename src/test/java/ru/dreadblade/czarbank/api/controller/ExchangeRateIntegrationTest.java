@@ -1,28 +1,44 @@
 package ru.dreadblade.czarbank.api.controller;
 
 import org.assertj.core.api.Assertions;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.annotation.Rollback;
 import org.springframework.test.context.jdbc.Sql;
 import org.springframework.web.util.UriComponentsBuilder;
 import ru.dreadblade.czarbank.api.mapper.ExchangeRateMapper;
 import ru.dreadblade.czarbank.api.model.response.ExchangeRateResponseDTO;
+import ru.dreadblade.czarbank.domain.ExchangeRate;
 import ru.dreadblade.czarbank.exception.ExceptionMessage;
 import ru.dreadblade.czarbank.repository.CurrencyRepository;
 import ru.dreadblade.czarbank.repository.ExchangeRateRepository;
+import ru.dreadblade.czarbank.service.CrossRateMatrix;
+import ru.dreadblade.czarbank.service.ExchangeRateAggregationInterval;
+import ru.dreadblade.czarbank.service.ExchangeRateTimeSeriesStore;
+import ru.dreadblade.czarbank.service.LatestExchangeRateSnapshot;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.Instant;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.everyItem;
 import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.startsWith;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -34,8 +50,12 @@ public class ExchangeRateIntegrationTest extends BaseIntegrationTest {
 
     private static final String EXCHANGE_RATES_API_URL = "/api/currencies/exchange-rates";
     private static final String LATEST = "/latest";
+    private static final String MATRIX = "/matrix";
     private static final String HISTORICAL = "/historical/";
     private static final String TIME_SERIES = "/time-series/";
+    private static final String AGGREGATED_TIME_SERIES = "/time-series/aggregated";
+    private static final String INTERVAL_PARAMETER = "interval";
+    private static final String CURRENCY_ID_PARAMETER = "currency-id";
     private static final String START_DATE_PARAMETER = "start-date";
     private static final String END_DATE_PARAMETER = "end-date";
 
@@ -48,9 +68,25 @@ public class ExchangeRateIntegrationTest extends BaseIntegrationTest {
     @Autowired
     ExchangeRateMapper exchangeRateMapper;
 
+    @Autowired
+    ExchangeRateTimeSeriesStore exchangeRateTimeSeriesStore;
+
+    @Autowired
+    LatestExchangeRateSnapshot latestExchangeRateSnapshot;
+
+    @BeforeEach
+    void reloadExchangeRateTimeSeriesStore() {
+        exchangeRateTimeSeriesStore.reload();
+    }
+
     @Nested
     @DisplayName("findAllLatest() Tests")
     class FindAllLatestTests {
+        @BeforeEach
+        void refreshLatestExchangeRateSnapshot() {
+            latestExchangeRateSnapshot.refresh();
+        }
+
         @Test
         void findAllLatest_isSuccessful() throws Exception {
             List<ExchangeRateResponseDTO> expectedResponseDTOs = exchangeRateRepository.findAllLatest().stream()
@@ -72,6 +108,7 @@ public class ExchangeRateIntegrationTest extends BaseIntegrationTest {
         @Rollback
         void findAllLatest_isEmpty() throws Exception {
             exchangeRateRepository.deleteAll();
+            latestExchangeRateSnapshot.refresh();
 
             final long expectedSize = 0L;
 
@@ -85,6 +122,195 @@ public class ExchangeRateIntegrationTest extends BaseIntegrationTest {
         }
     }
 
+    @Nested
+    @DisplayName("HTTP caching Tests")
+    class HttpCachingTests {
+        @BeforeEach
+        void refreshLatestExchangeRateSnapshot() {
+            latestExchangeRateSnapshot.refresh();
+        }
+
+        @Test
+        void findAllLatest_withMatchingETag_isNotModified() throws Exception {
+            String eTag = mockMvc.perform(get(EXCHANGE_RATES_API_URL + LATEST)
+                            .accept(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string(HttpHeaders.ETAG, startsWith("\"latest-2021-09-05-")))
+                    .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=300, public"))
+                    .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                    .andReturn()
+                    .getResponse()
+                    .getHeader(HttpHeaders.ETAG);
+
+            Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+            statistics.clear();
+            statistics.setStatisticsEnabled(true);
+
+            try {
+                mockMvc.perform(get(EXCHANGE_RATES_API_URL + LATEST)
+                                .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                                .accept(MediaType.APPLICATION_JSON))
+                        .andExpect(status().isNotModified())
+                        .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                        .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=300, public"))
+                        .andExpect(content().string(""));
+
+                Assertions.assertThat(statistics.getPrepareStatementCount()).isZero();
+            } finally {
+                statistics.setStatisticsEnabled(false);
+            }
+        }
+
+        @Test
+        void findAllLatest_refreshWithoutChanges_keepsLastModified() throws Exception {
+            long lastModified = mockMvc.perform(get(EXCHANGE_RATES_API_URL + LATEST)
+                            .accept(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isOk())
+                    .andReturn()
+                    .getResponse()
+                    .getDateHeader(HttpHeaders.LAST_MODIFIED);
+
+            Assertions.assertThat(lastModified).isLessThanOrEqualTo(System.currentTimeMillis());
+
+            latestExchangeRateSnapshot.refresh();
+
+            mockMvc.perform(get(EXCHANGE_RATES_API_URL + LATEST)
+                            .accept(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isOk())
+                    .andExpect(header().dateValue(HttpHeaders.LAST_MODIFIED, lastModified));
+        }
+
+        @Test
+        @Rollback
+        void findAllLatest_afterRateChange_isModified() throws Exception {
+            String eTag = mockMvc.perform(get(EXCHANGE_RATES_API_URL + LATEST)
+                            .accept(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isOk())
+                    .andReturn()
+                    .getResponse()
+                    .getHeader(HttpHeaders.ETAG);
+
+            ExchangeRate latestRate = exchangeRateRepository.findByCurrencyAndDate(
+                    currencyRepository.findByCode("USD").orElseThrow(), LocalDate.parse("2021-09-05")).orElseThrow();
+            latestRate.setExchangeRate(new BigDecimal("99.99"));
+            exchangeRateRepository.save(latestRate);
+
+            latestExchangeRateSnapshot.refresh();
+
+            mockMvc.perform(get(EXCHANGE_RATES_API_URL + LATEST)
+                            .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                            .accept(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string(HttpHeaders.ETAG, not(eTag)))
+                    .andExpect(jsonPath("$[?(@.currencyId == %d)].exchangeRate", latestRate.getCurrency().getId())
+                            .value(99.99));
+        }
+
+        @Test
+        void findAllByDate_pastDate_isCachedForADay() throws Exception {
+            String eTag = mockMvc.perform(get(EXCHANGE_RATES_API_URL + HISTORICAL + "2021-09-01")
+                            .accept(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string(HttpHeaders.ETAG, startsWith("\"2021-09-01-")))
+                    .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=86400, public"))
+                    .andReturn()
+                    .getResponse()
+                    .getHeader(HttpHeaders.ETAG);
+
+            mockMvc.perform(get(EXCHANGE_RATES_API_URL + HISTORICAL + "2021-09-01")
+                            .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                            .accept(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isNotModified())
+                    .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=86400, public"));
+
+            mockMvc.perform(get(EXCHANGE_RATES_API_URL + HISTORICAL + "2021-09-02")
+                            .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                            .accept(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string(HttpHeaders.ETAG, startsWith("\"2021-09-02-")));
+        }
+
+        @Test
+        @Rollback
+        void findAllByDate_afterReload_keepsLastModifiedOfUnchangedDays() throws Exception {
+            LocalDate unchangedDate = LocalDate.parse("2021-09-01");
+            LocalDate changedDate = LocalDate.parse("2021-09-03");
+            Instant unchangedModifiedAt = exchangeRateTimeSeriesStore.getModifiedAt(unchangedDate);
+            Instant changedModifiedAt = exchangeRateTimeSeriesStore.getModifiedAt(changedDate);
+
+            ExchangeRate exchangeRate = exchangeRateRepository.findByCurrencyAndDate(
+                    currencyRepository.findByCode("USD").orElseThrow(), changedDate).orElseThrow();
+            exchangeRate.setExchangeRate(new BigDecimal("99.99"));
+            exchangeRateRepository.save(exchangeRate);
+
+            exchangeRateTimeSeriesStore.reload();
+
+            Assertions.assertThat(exchangeRateTimeSeriesStore.getModifiedAt(unchangedDate)).isEqualTo(unchangedModifiedAt);
+            Assertions.assertThat(exchangeRateTimeSeriesStore.getModifiedAt(changedDate)).isAfter(changedModifiedAt);
+
+            mockMvc.perform(get(EXCHANGE_RATES_API_URL + HISTORICAL + unchangedDate)
+                            .accept(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isOk())
+                    .andExpect(header().dateValue(HttpHeaders.LAST_MODIFIED, unchangedModifiedAt.toEpochMilli() / 1000 * 1000));
+        }
+    }
+
+    @Nested
+    @DisplayName("getLatestCrossRateMatrix() Tests")
+    class GetLatestCrossRateMatrixTests {
+        @BeforeEach
+        void refreshLatestExchangeRateSnapshot() {
+            latestExchangeRateSnapshot.refresh();
+        }
+
+        @Test
+        void getLatestCrossRateMatrix_isSuccessful() throws Exception {
+            BigDecimal expectedEurToUsd = new BigDecimal("86.54")
+                    .divide(new BigDecimal("72.85"), CrossRateMatrix.CROSS_RATE_MATH_CONTEXT);
+
+            mockMvc.perform(get(EXCHANGE_RATES_API_URL + MATRIX)
+                            .accept(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.date").value("2021-09-05"))
+                    .andExpect(jsonPath("$.currencyCodes").value(contains("EUR", "JPY", "RUB", "USD")))
+                    .andExpect(jsonPath("$.crossRates", hasSize(4)))
+                    .andExpect(jsonPath("$.crossRates[0]", hasSize(4)))
+                    .andExpect(jsonPath("$.crossRates[0][3]").value(expectedEurToUsd.doubleValue()))
+                    .andExpect(jsonPath("$.crossRates[2][2]").value(1))
+                    .andExpect(jsonPath("$.crossRates[3][2]").value(72.85));
+        }
+
+        @Test
+        void getLatestCrossRateMatrix_doesntQueryDatabase() throws Exception {
+            Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+            statistics.clear();
+            statistics.setStatisticsEnabled(true);
+
+            try {
+                mockMvc.perform(get(EXCHANGE_RATES_API_URL + MATRIX)
+                                .accept(MediaType.APPLICATION_JSON))
+                        .andExpect(status().isOk());
+
+                Assertions.assertThat(statistics.getPrepareStatementCount()).isZero();
+            } finally {
+                statistics.setStatisticsEnabled(false);
+            }
+        }
+
+        @Test
+        @Rollback
+        void getLatestCrossRateMatrix_isEmpty() throws Exception {
+            exchangeRateRepository.deleteAll();
+            latestExchangeRateSnapshot.refresh();
+
+            mockMvc.perform(get(EXCHANGE_RATES_API_URL + MATRIX)
+                            .accept(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isInternalServerError())
+                    .andExpect(jsonPath("$.message")
+                            .value(ExceptionMessage.LATEST_EXCHANGE_RATES_NOT_FOUND.getMessage()));
+        }
+    }
+
     @Nested
     @DisplayName("findAllByDate() Tests")
     class FindAllByDateTests {
@@ -109,6 +335,45 @@ public class ExchangeRateIntegrationTest extends BaseIntegrationTest {
                     .andExpect(content().json(expectedResponse));
         }
 
+        @Test
+        void findAllByDate_doesntQueryDatabase() throws Exception {
+            Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+            statistics.clear();
+            statistics.setStatisticsEnabled(true);
+
+            try {
+                mockMvc.perform(get(EXCHANGE_RATES_API_URL + HISTORICAL + "2021-09-03")
+                                .accept(MediaType.APPLICATION_JSON))
+                        .andExpect(status().isOk());
+
+                Assertions.assertThat(statistics.getPrepareStatementCount()).isZero();
+            } finally {
+                statistics.setStatisticsEnabled(false);
+            }
+        }
+
+        @Test
+        void findAllByDate_afterReload_returnsNewRates() throws Exception {
+            LocalDate date = LocalDate.of(2021, 9, 3);
+            ExchangeRate exchangeRate = exchangeRateRepository.findByCurrencyAndDate(
+                    currencyRepository.findByCode("USD").orElseThrow(), date).orElseThrow();
+            exchangeRate.setExchangeRate(new BigDecimal("99.99"));
+            exchangeRateRepository.save(exchangeRate);
+
+            String URL = EXCHANGE_RATES_API_URL + HISTORICAL + date.format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
+            String currencyRatePath = "$[?(@.currencyId == " + exchangeRate.getCurrency().getId() + ")].exchangeRate";
+
+            mockMvc.perform(get(URL).accept(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath(currencyRatePath).value(72.85));
+
+            exchangeRateTimeSeriesStore.reload();
+
+            mockMvc.perform(get(URL).accept(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath(currencyRatePath).value(99.99));
+        }
+
         @Test
         void findAllByDate_dataDoesNotExistOnTheGivenDate_isFailed() throws Exception {
             LocalDate expectedDate = LocalDate.of(2010, 6, 10);
@@ -197,4 +462,104 @@ public class ExchangeRateIntegrationTest extends BaseIntegrationTest {
                             .value(ExceptionMessage.EXCHANGE_RATES_AT_DATE_NOT_FOUND.getMessage()));
         }
     }
+
+    @Nested
+    @DisplayName("findAllAggregatedInTimeSeries() Tests")
+    class FindAllAggregatedInTimeSeriesTests {
+        @Test
+        void findAllInTimeSeries_withCurrencyFilter_isSuccessful() throws Exception {
+            String URL = UriComponentsBuilder.fromUriString(EXCHANGE_RATES_API_URL + TIME_SERIES)
+                    .queryParam(START_DATE_PARAMETER, "2021-09-01")
+                    .queryParam(END_DATE_PARAMETER, "2021-09-05")
+                    .queryParam(CURRENCY_ID_PARAMETER, 2L)
+                    .encode()
+                    .build()
+                    .toUriString();
+
+            mockMvc.perform(get(URL).accept(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", hasSize(5)))
+                    .andExpect(jsonPath("$[*].currencyId", everyItem(is(2))));
+        }
+
+        @Test
+        void findAllAggregatedInTimeSeries_weekly_isSuccessful() throws Exception {
+            String URL = UriComponentsBuilder.fromUriString(EXCHANGE_RATES_API_URL + AGGREGATED_TIME_SERIES)
+                    .queryParam(START_DATE_PARAMETER, "2021-09-01")
+                    .queryParam(END_DATE_PARAMETER, "2021-09-05")
+                    .queryParam(INTERVAL_PARAMETER, ExchangeRateAggregationInterval.WEEK)
+                    .queryParam(CURRENCY_ID_PARAMETER, 2L)
+                    .encode()
+                    .build()
+                    .toUriString();
+
+            mockMvc.perform(get(URL).accept(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", hasSize(1)))
+                    .andExpect(jsonPath("$[0].date").value("2021-08-30"))
+                    .andExpect(jsonPath("$[0].currencyId").value(2))
+                    .andExpect(jsonPath("$[0].open").value(73.28))
+                    .andExpect(jsonPath("$[0].high").value(73.28))
+                    .andExpect(jsonPath("$[0].low").value(72.85))
+                    .andExpect(jsonPath("$[0].close").value(72.85))
+                    .andExpect(jsonPath("$[0].average").value(73.004));
+        }
+
+        @Test
+        void findAllAggregatedInTimeSeries_monthly_allCurrencies_isSuccessful() throws Exception {
+            String URL = UriComponentsBuilder.fromUriString(EXCHANGE_RATES_API_URL + AGGREGATED_TIME_SERIES)
+                    .queryParam(START_DATE_PARAMETER, "2021-08-01")
+                    .queryParam(END_DATE_PARAMETER, "2021-09-30")
+                    .queryParam(INTERVAL_PARAMETER, ExchangeRateAggregationInterval.MONTH)
+                    .encode()
+                    .build()
+                    .toUriString();
+
+            mockMvc.perform(get(URL).accept(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", hasSize(Math.toIntExact(currencyRepository.count() - 1L))))
+                    .andExpect(jsonPath("$[*].date", everyItem(is("2021-09-01"))))
+                    .andExpect(jsonPath("$[*].currencyId", contains(2, 3, 4)));
+        }
+
+        @Test
+        void findAllAggregatedInTimeSeries_doesntQueryDatabase() throws Exception {
+            String URL = UriComponentsBuilder.fromUriString(EXCHANGE_RATES_API_URL + AGGREGATED_TIME_SERIES)
+                    .queryParam(START_DATE_PARAMETER, "2021-09-01")
+                    .queryParam(END_DATE_PARAMETER, "2021-09-05")
+                    .queryParam(INTERVAL_PARAMETER, ExchangeRateAggregationInterval.WEEK)
+                    .encode()
+                    .build()
+                    .toUriString();
+
+            Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+            statistics.clear();
+            statistics.setStatisticsEnabled(true);
+
+            try {
+                mockMvc.perform(get(URL).accept(MediaType.APPLICATION_JSON))
+                        .andExpect(status().isOk());
+
+                Assertions.assertThat(statistics.getPrepareStatementCount()).isZero();
+            } finally {
+                statistics.setStatisticsEnabled(false);
+            }
+        }
+
+        @Test
+        void findAllAggregatedInTimeSeries_dataDoesNotExistInTheGivenRange_isFailed() throws Exception {
+            String URL = UriComponentsBuilder.fromUriString(EXCHANGE_RATES_API_URL + AGGREGATED_TIME_SERIES)
+                    .queryParam(START_DATE_PARAMETER, "2009-06-10")
+                    .queryParam(END_DATE_PARAMETER, "2010-06-10")
+                    .queryParam(INTERVAL_PARAMETER, ExchangeRateAggregationInterval.MONTH)
+                    .encode()
+                    .build()
+                    .toUriString();
+
+            mockMvc.perform(get(URL).accept(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isNotFound())
+                    .andExpect(jsonPath("$.message")
+                            .value(ExceptionMessage.EXCHANGE_RATES_AT_DATE_NOT_FOUND.getMessage()));
+        }
+    }
 }
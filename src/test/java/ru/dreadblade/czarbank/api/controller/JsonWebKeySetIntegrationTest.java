@@ -0,0 +1,192 @@
+package ru.dreadblade.czarbank.api.controller;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.jdbc.Sql;
+import ru.dreadblade.czarbank.domain.security.User;
+import ru.dreadblade.czarbank.exception.ExceptionMessage;
+import ru.dreadblade.czarbank.repository.security.UserRepository;
+import ru.dreadblade.czarbank.security.service.AccessTokenService;
+
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.security.AlgorithmParameters;
+import java.security.KeyFactory;
+import java.security.KeyPairGenerator;
+import java.security.KeyStore;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.ECParameterSpec;
+import java.security.spec.ECPoint;
+import java.security.spec.ECPublicKeySpec;
+import java.util.Base64;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {
+        "czar-bank.security.access-token.signing-algorithm=ES256",
+        "czar-bank.security.access-token.key-store.location=classpath:access-token/signing-keys.p12",
+        "czar-bank.security.access-token.key-store.password=" + JsonWebKeySetIntegrationTest.KEY_STORE_PASSWORD
+})
+@DisplayName("JSON Web Key Set Integration Tests")
+@Sql(value = "/user/users-insertion.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(value = "/user/users-deletion.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+public class JsonWebKeySetIntegrationTest extends BaseIntegrationTest {
+    static final String KEY_STORE_PASSWORD = "czar-bank-test";
+
+    private static final String JWKS_API_URL = "/.well-known/jwks.json";
+    private static final String USERS_API_URL = "/api/users";
+
+    /**
+     * key-2022 and key-2023 are valid since the start of their year, key-2099 only from 2099
+     */
+    private static final String SIGNING_KEY_ID = "key-2023";
+    private static final String PREVIOUS_KEY_ID = "key-2022";
+
+    @Value("${czar-bank.security.access-token.header.prefix}")
+    private String headerPrefix;
+
+    @Value("${czar-bank.security.access-token.secret-key}")
+    private String secretKey;
+
+    @Autowired
+    AccessTokenService accessTokenService;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Nested
+    @DisplayName("getJsonWebKeySet() Tests")
+    class GetJsonWebKeySetTests {
+        @Test
+        void getJsonWebKeySet_withoutAuth_publishesEveryKey() throws Exception {
+            mockMvc.perform(get(JWKS_API_URL))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=300, public"))
+                    .andExpect(jsonPath("$.keys", hasSize(3)))
+                    .andExpect(jsonPath("$.keys[*].kid", contains(PREVIOUS_KEY_ID, SIGNING_KEY_ID, "key-2099")))
+                    .andExpect(jsonPath("$.keys[*].kty", everyItem(is("EC"))))
+                    .andExpect(jsonPath("$.keys[*].crv", everyItem(is("P-256"))))
+                    .andExpect(jsonPath("$.keys[*].alg", everyItem(is("ES256"))))
+                    .andExpect(jsonPath("$.keys[*].use", everyItem(is("sig"))));
+        }
+
+        @Test
+        void accessToken_verifiedWithPublishedKey_isValid() throws Exception {
+            String accessToken = accessTokenService.generateAccessToken(userRepository.findById(1L).orElseThrow());
+
+            DecodedJWT decodedJWT = JWT.decode(accessToken);
+
+            assertThat(decodedJWT.getAlgorithm()).isEqualTo("ES256");
+            assertThat(decodedJWT.getKeyId()).isEqualTo(SIGNING_KEY_ID);
+
+            String responseContent = mockMvc.perform(get(JWKS_API_URL))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+
+            JsonNode publishedKey = null;
+
+            for (JsonNode key : objectMapper.readTree(responseContent).get("keys")) {
+                if (key.get("kid").asText().equals(decodedJWT.getKeyId())) {
+                    publishedKey = key;
+                }
+            }
+
+            assertThat(publishedKey).isNotNull();
+
+            ECPublicKey publicKey = toPublicKey(publishedKey.get("x").asText(), publishedKey.get("y").asText());
+
+            assertThat(JWT.require(Algorithm.ECDSA256(publicKey, null)).build().verify(accessToken).getSubject())
+                    .isEqualTo("admin");
+        }
+    }
+
+    @Nested
+    @DisplayName("Key Rotation Tests")
+    class KeyRotationTests {
+        @Test
+        void accessToken_signedWithPreviousKey_authIsSuccessful() throws Exception {
+            String accessToken = signAccessToken(PREVIOUS_KEY_ID, Algorithm.ECDSA256(null, loadPrivateKey(PREVIOUS_KEY_ID)));
+
+            mockMvc.perform(get(USERS_API_URL)
+                            .header(HttpHeaders.AUTHORIZATION, headerPrefix + accessToken))
+                    .andExpect(status().isOk());
+        }
+
+        @Test
+        void accessToken_signedWithUnpublishedKey_authIsFailed() throws Exception {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+            generator.initialize(new ECGenParameterSpec("secp256r1"));
+
+            ECPrivateKey privateKey = (ECPrivateKey) generator.generateKeyPair().getPrivate();
+
+            String accessToken = signAccessToken(SIGNING_KEY_ID, Algorithm.ECDSA256(null, privateKey));
+
+            mockMvc.perform(get(USERS_API_URL)
+                            .header(HttpHeaders.AUTHORIZATION, headerPrefix + accessToken))
+                    .andExpect(status().isUnauthorized())
+                    .andExpect(jsonPath("$.message").value(ExceptionMessage.INVALID_ACCESS_TOKEN.getMessage()));
+        }
+
+        @Test
+        void accessToken_signedWithSharedSecret_authIsFailed() throws Exception {
+            String accessToken = signAccessToken(null, Algorithm.HMAC512(secretKey));
+
+            mockMvc.perform(get(USERS_API_URL)
+                            .header(HttpHeaders.AUTHORIZATION, headerPrefix + accessToken))
+                    .andExpect(status().isUnauthorized())
+                    .andExpect(jsonPath("$.message").value(ExceptionMessage.INVALID_ACCESS_TOKEN.getMessage()));
+        }
+    }
+
+    private String signAccessToken(String keyId, Algorithm algorithm) {
+        User user = userRepository.findById(1L).orElseThrow();
+
+        return JWT.create()
+                .withKeyId(keyId)
+                .withSubject(user.getUsername())
+                .withIssuedAt(new Date())
+                .withExpiresAt(new Date(System.currentTimeMillis() + 60_000L))
+                .withClaim("uid", user.getId())
+                .sign(algorithm);
+    }
+
+    private ECPrivateKey loadPrivateKey(String keyId) throws Exception {
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+
+        try (InputStream inputStream = new ClassPathResource("access-token/signing-keys.p12").getInputStream()) {
+            keyStore.load(inputStream, KEY_STORE_PASSWORD.toCharArray());
+        }
+
+        return (ECPrivateKey) keyStore.getKey(keyId, KEY_STORE_PASSWORD.toCharArray());
+    }
+
+    private ECPublicKey toPublicKey(String x, String y) throws Exception {
+        AlgorithmParameters parameters = AlgorithmParameters.getInstance("EC");
+        parameters.init(new ECGenParameterSpec("secp256r1"));
+
+        ECPoint point = new ECPoint(new BigInteger(1, Base64.getUrlDecoder().decode(x)),
+                new BigInteger(1, Base64.getUrlDecoder().decode(y)));
+
+        return (ECPublicKey) KeyFactory.getInstance("EC")
+                .generatePublic(new ECPublicKeySpec(point, parameters.getParameterSpec(ECParameterSpec.class)));
+    }
+}
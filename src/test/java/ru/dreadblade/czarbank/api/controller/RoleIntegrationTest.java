@@ -848,4 +848,20 @@ public class RoleIntegrationTest extends BaseIntegrationTest {
                     .andExpect(jsonPath("$.message").value(ExceptionMessage.ROLE_NOT_FOUND.getMessage()));
         }
     }
+
+    @Nested
+    @DisplayName("Query count Tests")
+    class QueryCountTests {
+        @Test
+        @WithUserDetails("admin")
+        void findAll_isSingleQuery() throws Exception {
+            Assertions.assertThat(countStatements(get(ROLES_API_URL), status().isOk())).isEqualTo(1);
+        }
+
+        @Test
+        @WithUserDetails("admin")
+        void findRoleById_isSingleQuery() throws Exception {
+            Assertions.assertThat(countStatements(get(ROLES_API_URL + "/3"), status().isOk())).isEqualTo(1);
+        }
+    }
 }
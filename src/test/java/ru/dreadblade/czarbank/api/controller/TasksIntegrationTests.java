@@ -12,24 +12,35 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.core.io.ClassPathResource;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.test.annotation.Rollback;
+import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.jdbc.Sql;
 import org.springframework.test.web.client.ExpectedCount;
 import org.springframework.test.web.client.MockRestServiceServer;
 import org.springframework.web.client.RestTemplate;
+import ru.dreadblade.czarbank.api.model.response.external.CentralBankOfRussiaExchangeRatesBetweenDatesResponseDTO;
 import ru.dreadblade.czarbank.api.model.response.external.CentralBankOfRussiaExchangeRatesResponseDTO;
+import ru.dreadblade.czarbank.domain.Currency;
 import ru.dreadblade.czarbank.domain.ExchangeRate;
 import ru.dreadblade.czarbank.repository.CurrencyRepository;
+import ru.dreadblade.czarbank.repository.ExchangeRateBatchRepository;
 import ru.dreadblade.czarbank.repository.ExchangeRateRepository;
+import ru.dreadblade.czarbank.service.LatestExchangeRateSnapshot;
+import ru.dreadblade.czarbank.service.external.CentralBankOfRussiaService;
+import ru.dreadblade.czarbank.service.external.ExchangeRateProvider;
 import ru.dreadblade.czarbank.service.task.scheduled.GetExchangeRatesFromCentralBankOfRussiaScheduledTask;
 import ru.dreadblade.czarbank.service.task.startup.LoadExchangeRatesHistoryStartupTask;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.List;
@@ -38,12 +49,18 @@ import static org.springframework.test.web.client.match.MockRestRequestMatchers.
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
 import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
 
-@SpringBootTest(properties = { "czar-bank.scheduling.enabled=false", "czar-bank.exchange-rate.history.load-from-date=2022-01-01" })
+@SpringBootTest(properties = {
+        "czar-bank.scheduling.enabled=false",
+        "czar-bank.exchange-rate.history.load-from-date=2022-01-01",
+        "czar-bank.exchange-rate.central-bank.daily-document-ttl-seconds=0",
+        "czar-bank.exchange-rate.central-bank.currency-code-directory-ttl-seconds=0"
+})
 @DisplayName("Tasks Integration Tests")
 @Sql(value = { "/user/users-insertion.sql", "/bank-account/bank-accounts-insertion.sql" }, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
 @Sql(value = { "/bank-account/bank-accounts-deletion.sql", "/user/users-deletion.sql" }, executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
 public class TasksIntegrationTests extends BaseIntegrationTest {
     private static final String CENTRAL_BANK_OF_RUSSIA_EXCHANGE_RATE_API_URL = "https://www.cbr.ru/scripts/XML_daily.asp";
+    private static final String CENTRAL_BANK_OF_RUSSIA_EXCHANGE_RATE_DYNAMIC_API_URL = "https://www.cbr.ru/scripts/XML_dynamic.asp";
 
     @Autowired
     RestTemplate restTemplate;
@@ -54,12 +71,18 @@ public class TasksIntegrationTests extends BaseIntegrationTest {
     @Autowired
     CurrencyRepository currencyRepository;
 
+    @Autowired
+    NamedParameterJdbcTemplate jdbcTemplate;
+
     @Autowired
     GetExchangeRatesFromCentralBankOfRussiaScheduledTask getExchangeRatesFromCentralBankOfRussiaScheduledTask;
 
     @Autowired
     LoadExchangeRatesHistoryStartupTask loadExchangeRatesHistoryStartupTask;
 
+    @Autowired
+    LatestExchangeRateSnapshot latestExchangeRateSnapshot;
+
     @Value("#{T(java.time.LocalDate).parse('${czar-bank.exchange-rate.history.load-from-date:2012-01-01}')}")
     private LocalDate loadHistoryFromDate;
 
@@ -116,6 +139,11 @@ public class TasksIntegrationTests extends BaseIntegrationTest {
                     .isEqualByComparingTo(expectedRates.get(1).getRate().setScale(2, RoundingMode.HALF_EVEN));
             Assertions.assertThat(actualRates.get(1).getCurrency().getCode())
                     .isEqualTo(expectedRates.get(1).getCurrencyCode());
+
+            Assertions.assertThat(latestExchangeRateSnapshot.getExchangeRate(expectedRates.get(0).getCurrencyCode()))
+                    .isEqualByComparingTo(expectedRates.get(0).getRate().setScale(2, RoundingMode.HALF_EVEN));
+            Assertions.assertThat(latestExchangeRateSnapshot.getExchangeRate(expectedRates.get(1).getCurrencyCode()))
+                    .isEqualByComparingTo(expectedRates.get(1).getRate().setScale(2, RoundingMode.HALF_EVEN));
         }
 
         @Test
@@ -189,6 +217,52 @@ public class TasksIntegrationTests extends BaseIntegrationTest {
             Assertions.assertThat(exchangeRateRepository.findAllLatest().stream()
                     .map(ExchangeRate::getExchangeRate)
                     .toList()).doesNotContainAnyElementsOf(expectedExchangeRateValues);
+            Assertions.assertThat(getExchangeRatesFromCentralBankOfRussiaScheduledTask.getLastUpsertResult().getUpdatedCount())
+                    .isEqualTo(2);
+        }
+
+        @Test
+        @Rollback
+        void getExchangeRatesFromCentralBankOfRussiaScheduledTask_unchangedRates_areNotWritten() throws Exception {
+            MockRestServiceServer mockServer = MockRestServiceServer.createServer(restTemplate);
+
+            String responseBody = xmlMapper.writeValueAsString(CentralBankOfRussiaExchangeRatesResponseDTO.builder()
+                    .rates(List.of(
+                            CentralBankOfRussiaExchangeRatesResponseDTO.ExchangeRateOnDateDTO.builder()
+                                    .currencyCode(currencyRepository.findById(2L).orElseThrow().getCode())
+                                    .nominal(1L)
+                                    .rate(new BigDecimal("12.34567"))
+                                    .build(),
+                            CentralBankOfRussiaExchangeRatesResponseDTO.ExchangeRateOnDateDTO.builder()
+                                    .currencyCode(currencyRepository.findById(3L).orElseThrow().getCode())
+                                    .nominal(1L)
+                                    .rate(new BigDecimal("123.45678"))
+                                    .build()
+                    ))
+                    .date(LocalDate.now())
+                    .build());
+
+            mockServer.expect(ExpectedCount.twice(), requestTo(Matchers.containsString(CENTRAL_BANK_OF_RUSSIA_EXCHANGE_RATE_API_URL)))
+                    .andExpect(method(HttpMethod.GET))
+                    .andRespond(withStatus(HttpStatus.OK)
+                            .contentType(MediaType.APPLICATION_XML)
+                            .body(responseBody));
+
+            getExchangeRatesFromCentralBankOfRussiaScheduledTask.run();
+
+            Assertions.assertThat(getExchangeRatesFromCentralBankOfRussiaScheduledTask.getLastUpsertResult().getInsertedCount())
+                    .isEqualTo(2);
+
+            getExchangeRatesFromCentralBankOfRussiaScheduledTask.run();
+            mockServer.verify();
+
+            ExchangeRateBatchRepository.UpsertResult upsertResult = getExchangeRatesFromCentralBankOfRussiaScheduledTask
+                    .getLastUpsertResult();
+
+            Assertions.assertThat(upsertResult.getInsertedCount()).isZero();
+            Assertions.assertThat(upsertResult.getUpdatedCount()).isZero();
+            Assertions.assertThat(upsertResult.getUnchangedCount()).isEqualTo(2);
+            Mockito.verify(exchangeRateRepository, Mockito.never()).save(Mockito.any());
         }
         @Test
         @Rollback
@@ -320,7 +394,465 @@ public class TasksIntegrationTests extends BaseIntegrationTest {
             long expectedCount = (ChronoUnit.DAYS.between(loadHistoryFromDate, today) + 1) * currencyRepository.findAllForeignCurrencies().size();
 
             Assertions.assertThat(actualCount).isEqualTo(expectedCount);
-            Mockito.verify(exchangeRateRepository, Mockito.times(currencyRepository.findAllForeignCurrencies().size())).saveAll(Mockito.anyList());
+            Mockito.verify(exchangeRateRepository, Mockito.atLeast(currencyRepository.findAllForeignCurrencies().size()))
+                    .insertAllIgnoringExisting(Mockito.anyList());
+        }
+
+        @Test
+        @Rollback
+        void loadExchangeRatesHistoryStartupTask_backfillsOnlyMissingDates_isSuccessful() throws Exception {
+            LocalDate today = LocalDate.now();
+            LocalDate firstMissingDate = LocalDate.of(2022, 3, 1);
+            LocalDate lastMissingDate = LocalDate.of(2022, 3, 10);
+            LocalDate rateChangeDate = LocalDate.of(2022, 3, 5);
+
+            jdbcTemplate.update("insert into exchange_rate (date, exchange_rate, currency_id) " +
+                    "select d::date, 1.00, c.id from generate_series(:start_date::date, :end_date::date, interval '1 day') as d, currency as c " +
+                    "where c.code <> 'RUB' and (c.code <> 'USD' or d::date not between :first_missing_date::date and :last_missing_date::date)",
+                    new MapSqlParameterSource()
+                            .addValue("start_date", loadHistoryFromDate)
+                            .addValue("end_date", today)
+                            .addValue("first_missing_date", firstMissingDate)
+                            .addValue("last_missing_date", lastMissingDate));
+
+            long existingCount = exchangeRateRepository.count();
+
+            MockRestServiceServer mockServer = MockRestServiceServer.bindTo(restTemplate).ignoreExpectOrder(true).build();
+
+            String dailyResponseBody = xmlMapper.writeValueAsString(CentralBankOfRussiaExchangeRatesResponseDTO.builder()
+                    .date(today)
+                    .rates(List.of(CentralBankOfRussiaExchangeRatesResponseDTO.ExchangeRateOnDateDTO.builder()
+                            .uniqueCurrencyCode("R01235")
+                            .currencyCode("USD")
+                            .nominal(1L)
+                            .rate(new BigDecimal("75.00"))
+                            .build()))
+                    .build());
+
+            String dynamicResponseBody = xmlMapper.writeValueAsString(CentralBankOfRussiaExchangeRatesBetweenDatesResponseDTO.builder()
+                    .rates(new ArrayList<>(List.of(
+                            CentralBankOfRussiaExchangeRatesBetweenDatesResponseDTO.ExchangeRateBetweenDatesDTO.builder()
+                                    .date(firstMissingDate.minusDays(3))
+                                    .nominal(1L)
+                                    .rate(new BigDecimal("80.00"))
+                                    .build(),
+                            CentralBankOfRussiaExchangeRatesBetweenDatesResponseDTO.ExchangeRateBetweenDatesDTO.builder()
+                                    .date(rateChangeDate)
+                                    .nominal(1L)
+                                    .rate(new BigDecimal("90.00"))
+                                    .build()
+                    )))
+                    .build());
+
+            mockServer.expect(ExpectedCount.once(), requestTo(Matchers.containsString(CENTRAL_BANK_OF_RUSSIA_EXCHANGE_RATE_API_URL)))
+                    .andExpect(method(HttpMethod.GET))
+                    .andRespond(withStatus(HttpStatus.OK)
+                            .contentType(MediaType.APPLICATION_XML)
+                            .body(dailyResponseBody));
+
+            mockServer.expect(ExpectedCount.once(), requestTo(Matchers.containsString(CENTRAL_BANK_OF_RUSSIA_EXCHANGE_RATE_DYNAMIC_API_URL)))
+                    .andExpect(method(HttpMethod.GET))
+                    .andRespond(withStatus(HttpStatus.OK)
+                            .contentType(MediaType.APPLICATION_XML)
+                            .body(dynamicResponseBody));
+
+            loadExchangeRatesHistoryStartupTask.run();
+            mockServer.verify();
+
+            long missingCount = ChronoUnit.DAYS.between(firstMissingDate, lastMissingDate) + 1;
+
+            Assertions.assertThat(exchangeRateRepository.count()).isEqualTo(existingCount + missingCount);
+            Mockito.verify(exchangeRateRepository, Mockito.never()).deleteAll();
+
+            Currency usd = currencyRepository.findByCode("USD").orElseThrow();
+
+            Assertions.assertThat(exchangeRateRepository.findByCurrencyAndDate(usd, firstMissingDate).orElseThrow()
+                    .getExchangeRate()).isEqualByComparingTo("80.00");
+            Assertions.assertThat(exchangeRateRepository.findByCurrencyAndDate(usd, rateChangeDate).orElseThrow()
+                    .getExchangeRate()).isEqualByComparingTo("90.00");
+            Assertions.assertThat(exchangeRateRepository.findByCurrencyAndDate(usd, lastMissingDate.plusDays(1)).orElseThrow()
+                    .getExchangeRate()).isEqualByComparingTo("1.00");
+        }
+    }
+
+    @Nested
+    @DisplayName("Central Bank of the Russian Federation document cache tests")
+    @TestPropertySource(properties = {
+            "czar-bank.exchange-rate.central-bank.daily-document-ttl-seconds=60",
+            "czar-bank.exchange-rate.central-bank.currency-code-directory-ttl-seconds=86400"
+    })
+    class CentralBankOfRussiaDocumentCacheTests {
+        @Autowired
+        CentralBankOfRussiaService centralBankOfRussiaService;
+
+        @Autowired
+        RestTemplate restTemplate;
+
+        @Autowired
+        CurrencyRepository currencyRepository;
+
+        @Test
+        void exchangeRateForCurrencyExists_andGetExchangeRatesForCurrenciesByDate_shareDailyDocument() throws Exception {
+            MockRestServiceServer mockServer = MockRestServiceServer.createServer(restTemplate);
+
+            LocalDate date = LocalDate.of(2022, 1, 11);
+            Currency usd = currencyRepository.findByCode("USD").orElseThrow();
+            Currency jpy = currencyRepository.findByCode("JPY").orElseThrow();
+
+            String responseBody = xmlMapper.writeValueAsString(CentralBankOfRussiaExchangeRatesResponseDTO.builder()
+                    .date(date)
+                    .rates(List.of(
+                            CentralBankOfRussiaExchangeRatesResponseDTO.ExchangeRateOnDateDTO.builder()
+                                    .uniqueCurrencyCode("R01235")
+                                    .currencyCode(usd.getCode())
+                                    .nominal(1L)
+                                    .rate(new BigDecimal("74.29"))
+                                    .build(),
+                            CentralBankOfRussiaExchangeRatesResponseDTO.ExchangeRateOnDateDTO.builder()
+                                    .uniqueCurrencyCode("R01820")
+                                    .currencyCode(jpy.getCode())
+                                    .nominal(100L)
+                                    .rate(new BigDecimal("64.40"))
+                                    .build()
+                    ))
+                    .build());
+
+            mockServer.expect(ExpectedCount.once(), requestTo(Matchers.containsString(CENTRAL_BANK_OF_RUSSIA_EXCHANGE_RATE_API_URL)))
+                    .andExpect(method(HttpMethod.GET))
+                    .andRespond(withStatus(HttpStatus.OK)
+                            .contentType(MediaType.APPLICATION_XML)
+                            .body(responseBody));
+
+            Assertions.assertThat(centralBankOfRussiaService.exchangeRateForCurrencyExists(usd, date)).isTrue();
+
+            for (int i = 0; i < 2; i++) {
+                List<ExchangeRate> exchangeRates = centralBankOfRussiaService
+                        .getExchangeRatesForCurrenciesByDate(List.of(usd, jpy), date);
+
+                Assertions.assertThat(exchangeRates).hasSize(2);
+                Assertions.assertThat(exchangeRates.get(1).getExchangeRate()).isEqualByComparingTo("0.64");
+            }
+
+            mockServer.verify();
+        }
+
+        @Test
+        void exchangeRateForCurrencyExists_invalidDailyDocument_isNotCached() throws Exception {
+            MockRestServiceServer mockServer = MockRestServiceServer.createServer(restTemplate);
+
+            LocalDate date = LocalDate.of(2022, 1, 12);
+            Currency usd = currencyRepository.findByCode("USD").orElseThrow();
+
+            List<CentralBankOfRussiaExchangeRatesResponseDTO.ExchangeRateOnDateDTO> rates = List.of(
+                    CentralBankOfRussiaExchangeRatesResponseDTO.ExchangeRateOnDateDTO.builder()
+                            .uniqueCurrencyCode("R01235")
+                            .currencyCode(usd.getCode())
+                            .nominal(1L)
+                            .rate(new BigDecimal("74.29"))
+                            .build());
+
+            String invalidResponseBody = xmlMapper.writeValueAsString(CentralBankOfRussiaExchangeRatesResponseDTO.builder()
+                    .date(null)
+                    .rates(rates)
+                    .build());
+
+            String validResponseBody = xmlMapper.writeValueAsString(CentralBankOfRussiaExchangeRatesResponseDTO.builder()
+                    .date(date)
+                    .rates(rates)
+                    .build());
+
+            mockServer.expect(ExpectedCount.once(), requestTo(Matchers.containsString(CENTRAL_BANK_OF_RUSSIA_EXCHANGE_RATE_API_URL)))
+                    .andExpect(method(HttpMethod.GET))
+                    .andRespond(withStatus(HttpStatus.OK)
+                            .contentType(MediaType.APPLICATION_XML)
+                            .body(invalidResponseBody));
+            mockServer.expect(ExpectedCount.once(), requestTo(Matchers.containsString(CENTRAL_BANK_OF_RUSSIA_EXCHANGE_RATE_API_URL)))
+                    .andExpect(method(HttpMethod.GET))
+                    .andRespond(withStatus(HttpStatus.OK)
+                            .contentType(MediaType.APPLICATION_XML)
+                            .body(validResponseBody));
+
+            Assertions.assertThat(centralBankOfRussiaService.exchangeRateForCurrencyExists(usd, date)).isFalse();
+            Assertions.assertThat(centralBankOfRussiaService.exchangeRateForCurrencyExists(usd, date)).isTrue();
+
+            mockServer.verify();
+        }
+
+        @Test
+        void getExchangeRatesForCurrencyBetweenDates_reusesCurrencyCodeDirectory() throws Exception {
+            MockRestServiceServer mockServer = MockRestServiceServer.bindTo(restTemplate).ignoreExpectOrder(true).build();
+
+            LocalDate startDate = LocalDate.of(2022, 1, 11);
+            LocalDate endDate = LocalDate.of(2022, 1, 12);
+            Currency usd = currencyRepository.findByCode("USD").orElseThrow();
+            Currency eur = currencyRepository.findByCode("EUR").orElseThrow();
+
+            String dailyResponseBody = xmlMapper.writeValueAsString(CentralBankOfRussiaExchangeRatesResponseDTO.builder()
+                    .date(startDate)
+                    .rates(List.of(
+                            CentralBankOfRussiaExchangeRatesResponseDTO.ExchangeRateOnDateDTO.builder()
+                                    .uniqueCurrencyCode("R01235")
+                                    .currencyCode(usd.getCode())
+                                    .nominal(1L)
+                                    .rate(new BigDecimal("74.29"))
+                                    .build(),
+                            CentralBankOfRussiaExchangeRatesResponseDTO.ExchangeRateOnDateDTO.builder()
+                                    .uniqueCurrencyCode("R01239")
+                                    .currencyCode(eur.getCode())
+                                    .nominal(1L)
+                                    .rate(new BigDecimal("84.09"))
+                                    .build()
+                    ))
+                    .build());
+
+            String dynamicResponseBody = xmlMapper.writeValueAsString(CentralBankOfRussiaExchangeRatesBetweenDatesResponseDTO.builder()
+                    .rates(new ArrayList<>(List.of(
+                            CentralBankOfRussiaExchangeRatesBetweenDatesResponseDTO.ExchangeRateBetweenDatesDTO.builder()
+                                    .date(startDate)
+                                    .nominal(1L)
+                                    .rate(new BigDecimal("75.00"))
+                                    .build()
+                    )))
+                    .build());
+
+            mockServer.expect(ExpectedCount.once(), requestTo(Matchers.containsString(CENTRAL_BANK_OF_RUSSIA_EXCHANGE_RATE_API_URL)))
+                    .andExpect(method(HttpMethod.GET))
+                    .andRespond(withStatus(HttpStatus.OK)
+                            .contentType(MediaType.APPLICATION_XML)
+                            .body(dailyResponseBody));
+
+            mockServer.expect(ExpectedCount.times(2), requestTo(Matchers.containsString(CENTRAL_BANK_OF_RUSSIA_EXCHANGE_RATE_DYNAMIC_API_URL)))
+                    .andExpect(method(HttpMethod.GET))
+                    .andRespond(withStatus(HttpStatus.OK)
+                            .contentType(MediaType.APPLICATION_XML)
+                            .body(dynamicResponseBody));
+
+            Assertions.assertThat(centralBankOfRussiaService.getExchangeRatesForCurrencyBetweenDates(usd, startDate, endDate))
+                    .hasSize(2);
+            Assertions.assertThat(centralBankOfRussiaService.getExchangeRatesForCurrencyBetweenDates(eur, startDate, endDate))
+                    .hasSize(2);
+
+            mockServer.verify();
+        }
+    }
+
+    @Nested
+    @DisplayName("Central Bank of the Russian Federation dynamic rates parsing tests")
+    class CentralBankOfRussiaDynamicRatesParsingTests {
+        @Autowired
+        CentralBankOfRussiaService centralBankOfRussiaService;
+
+        @Test
+        void getExchangeRatesForCurrencyBetweenDates_recordedResponse_isSuccessful() throws Exception {
+            Currency usd = currencyRepository.findByCode("USD").orElseThrow();
+
+            MockRestServiceServer mockServer = MockRestServiceServer.bindTo(restTemplate).ignoreExpectOrder(true).build();
+            expectCurrencyCodeDirectory(mockServer, usd);
+
+            mockServer.expect(ExpectedCount.once(), requestTo(Matchers.containsString(CENTRAL_BANK_OF_RUSSIA_EXCHANGE_RATE_DYNAMIC_API_URL)))
+                    .andExpect(method(HttpMethod.GET))
+                    .andRespond(withStatus(HttpStatus.OK)
+                            .contentType(MediaType.APPLICATION_XML)
+                            .body(new ClassPathResource("/central-bank/USD.xml")));
+
+            List<ExchangeRate> exchangeRates = centralBankOfRussiaService.getExchangeRatesForCurrencyBetweenDates(usd,
+                    LocalDate.of(2022, 1, 11), LocalDate.of(2022, 1, 31));
+
+            mockServer.verify();
+
+            Assertions.assertThat(exchangeRates).hasSize(21);
+            Assertions.assertThat(exchangeRates).allMatch(exchangeRate -> exchangeRate.getCurrency() == usd);
+            Assertions.assertThat(exchangeRates.get(0).getDate()).isEqualTo(LocalDate.of(2022, 1, 11));
+            Assertions.assertThat(exchangeRates.get(0).getExchangeRate()).isEqualByComparingTo("74.2926");
+            Assertions.assertThat(exchangeRates.get(5).getDate()).isEqualTo(LocalDate.of(2022, 1, 16));
+            Assertions.assertThat(exchangeRates.get(5).getExchangeRate()).isEqualByComparingTo("74.9900");
+            Assertions.assertThat(exchangeRates.get(20).getDate()).isEqualTo(LocalDate.of(2022, 1, 31));
+            Assertions.assertThat(exchangeRates.get(20).getExchangeRate()).isEqualByComparingTo("77.4148");
+        }
+
+        @Test
+        void streamExchangeRatesForCurrencyBetweenDates_decadeOfRecords_isSuccessful() throws Exception {
+            Currency jpy = currencyRepository.findByCode("JPY").orElseThrow();
+
+            LocalDate startDate = LocalDate.of(2012, 1, 1);
+            LocalDate endDate = LocalDate.of(2021, 12, 31);
+
+            StringBuilder responseBody = new StringBuilder("<?xml version=\"1.0\" encoding=\"windows-1251\"?>")
+                    .append("<ValCurs ID=\"R01820\" name=\"Foreign Currency Market Dynamic\">");
+
+            int recordCount = 0;
+
+            for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
+                if (date.getDayOfWeek().getValue() > 5) {
+                    continue;
+                }
+
+                responseBody.append("<Record Date=\"").append(date.format(DateTimeFormatter.ofPattern("dd.MM.yyyy")))
+                        .append("\" Id=\"R01820\"><Nominal>100</Nominal><Value>")
+                        .append(60 + recordCount % 10).append(',').append(String.format("%04d", recordCount % 10000))
+                        .append("</Value></Record>");
+
+                recordCount++;
+            }
+
+            responseBody.append("</ValCurs>");
+
+            MockRestServiceServer mockServer = MockRestServiceServer.bindTo(restTemplate).ignoreExpectOrder(true).build();
+            expectCurrencyCodeDirectory(mockServer, jpy);
+
+            mockServer.expect(ExpectedCount.once(), requestTo(Matchers.containsString(CENTRAL_BANK_OF_RUSSIA_EXCHANGE_RATE_DYNAMIC_API_URL)))
+                    .andExpect(method(HttpMethod.GET))
+                    .andRespond(withStatus(HttpStatus.OK)
+                            .contentType(MediaType.APPLICATION_XML)
+                            .body(responseBody.toString()));
+
+            long[] streamedCount = { 0L };
+
+            centralBankOfRussiaService.streamExchangeRatesForCurrencyBetweenDates(jpy, startDate, endDate, exchangeRate -> {
+                streamedCount[0]++;
+
+                Assertions.assertThat(exchangeRate.getExchangeRate()).isLessThan(BigDecimal.ONE);
+            });
+
+            mockServer.verify();
+
+            Assertions.assertThat(streamedCount[0]).isEqualTo(ChronoUnit.DAYS.between(startDate, endDate) + 1);
+        }
+
+        private void expectCurrencyCodeDirectory(MockRestServiceServer mockServer, Currency currency) throws Exception {
+            String responseBody = xmlMapper.writeValueAsString(CentralBankOfRussiaExchangeRatesResponseDTO.builder()
+                    .date(LocalDate.now())
+                    .rates(List.of(CentralBankOfRussiaExchangeRatesResponseDTO.ExchangeRateOnDateDTO.builder()
+                            .uniqueCurrencyCode(currency.getCode().equals("USD") ? "R01235" : "R01820")
+                            .currencyCode(currency.getCode())
+                            .nominal(1L)
+                            .rate(BigDecimal.ONE)
+                            .build()))
+                    .build());
+
+            mockServer.expect(ExpectedCount.once(), requestTo(Matchers.containsString(CENTRAL_BANK_OF_RUSSIA_EXCHANGE_RATE_API_URL)))
+                    .andExpect(method(HttpMethod.GET))
+                    .andRespond(withStatus(HttpStatus.OK)
+                            .contentType(MediaType.APPLICATION_XML)
+                            .body(responseBody));
+        }
+    }
+
+    @Nested
+    @DisplayName("Exchange rate provider fallback tests")
+    @TestPropertySource(properties = {
+            "czar-bank.exchange-rate.providers=central-bank,recorded",
+            "czar-bank.exchange-rate.provider-timeout-seconds=1",
+            "czar-bank.exchange-rate.recorded.location=classpath:central-bank/"
+    })
+    class ExchangeRateProviderFallbackTests {
+        @Autowired
+        ExchangeRateProvider exchangeRateProvider;
+
+        @Autowired
+        RestTemplate restTemplate;
+
+        @Autowired
+        CurrencyRepository currencyRepository;
+
+        @Test
+        void getExchangeRatesForCurrenciesByDate_centralBankFails_returnsRecordedRates() {
+            MockRestServiceServer mockServer = MockRestServiceServer.bindTo(restTemplate).ignoreExpectOrder(true).build();
+
+            Currency usd = currencyRepository.findByCode("USD").orElseThrow();
+            Currency eur = currencyRepository.findByCode("EUR").orElseThrow();
+
+            mockServer.expect(ExpectedCount.once(), requestTo(Matchers.containsString(CENTRAL_BANK_OF_RUSSIA_EXCHANGE_RATE_API_URL)))
+                    .andExpect(method(HttpMethod.GET))
+                    .andRespond(withStatus(HttpStatus.SERVICE_UNAVAILABLE));
+
+            List<ExchangeRate> exchangeRates = exchangeRateProvider
+                    .getExchangeRatesForCurrenciesByDate(List.of(usd, eur), LocalDate.of(2022, 1, 16));
+
+            Assertions.assertThat(exchangeRates).hasSize(2);
+            Assertions.assertThat(exchangeRates.get(0).getExchangeRate()).isEqualByComparingTo("74.99");
+            Assertions.assertThat(exchangeRates.get(1).getExchangeRate()).isEqualByComparingTo("86.4541");
+
+            mockServer.verify();
+        }
+
+        @Test
+        void exchangeRateForCurrencyExists_centralBankTimesOut_returnsRecordedAnswer() {
+            MockRestServiceServer mockServer = MockRestServiceServer.bindTo(restTemplate).ignoreExpectOrder(true).build();
+
+            Currency usd = currencyRepository.findByCode("USD").orElseThrow();
+
+            mockServer.expect(ExpectedCount.manyTimes(), requestTo(Matchers.containsString(CENTRAL_BANK_OF_RUSSIA_EXCHANGE_RATE_API_URL)))
+                    .andExpect(method(HttpMethod.GET))
+                    .andRespond(request -> {
+                        try {
+                            Thread.sleep(5000L);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+
+                        return withStatus(HttpStatus.OK).createResponse(request);
+                    });
+
+            long startTime = System.nanoTime();
+
+            Assertions.assertThat(exchangeRateProvider.exchangeRateForCurrencyExists(usd, LocalDate.of(2022, 1, 16))).isTrue();
+            Assertions.assertThat(System.nanoTime() - startTime).isLessThan(4_000_000_000L);
+        }
+
+        @Test
+        void getExchangeRatesForCurrencyBetweenDates_centralBankFails_returnsEveryRecordedDay() {
+            MockRestServiceServer mockServer = MockRestServiceServer.bindTo(restTemplate).ignoreExpectOrder(true).build();
+
+            Currency usd = currencyRepository.findByCode("USD").orElseThrow();
+            LocalDate startDate = LocalDate.of(2022, 1, 9);
+            LocalDate endDate = LocalDate.of(2022, 1, 31);
+
+            mockServer.expect(ExpectedCount.manyTimes(), requestTo(Matchers.containsString(CENTRAL_BANK_OF_RUSSIA_EXCHANGE_RATE_API_URL)))
+                    .andExpect(method(HttpMethod.GET))
+                    .andRespond(withStatus(HttpStatus.INTERNAL_SERVER_ERROR));
+
+            List<ExchangeRate> exchangeRates = exchangeRateProvider.getExchangeRatesForCurrencyBetweenDates(usd, startDate, endDate);
+
+            LocalDate firstRecordedDate = LocalDate.of(2022, 1, 11);
+
+            Assertions.assertThat(exchangeRates).hasSize((int) ChronoUnit.DAYS.between(firstRecordedDate, endDate) + 1);
+            Assertions.assertThat(exchangeRates.get(0).getDate()).isEqualTo(firstRecordedDate);
+            Assertions.assertThat(exchangeRates.get(0).getExchangeRate()).isEqualByComparingTo("74.2926");
+            Assertions.assertThat(exchangeRates.get(exchangeRates.size() - 1).getExchangeRate()).isEqualByComparingTo("77.4148");
+        }
+
+        @Test
+        void getExchangeRatesForCurrenciesByDate_centralBankFailsAfterRecording_returnsNoRates() {
+            MockRestServiceServer mockServer = MockRestServiceServer.bindTo(restTemplate).ignoreExpectOrder(true).build();
+
+            Currency usd = currencyRepository.findByCode("USD").orElseThrow();
+            Currency eur = currencyRepository.findByCode("EUR").orElseThrow();
+
+            mockServer.expect(ExpectedCount.manyTimes(), requestTo(Matchers.containsString(CENTRAL_BANK_OF_RUSSIA_EXCHANGE_RATE_API_URL)))
+                    .andExpect(method(HttpMethod.GET))
+                    .andRespond(withStatus(HttpStatus.SERVICE_UNAVAILABLE));
+
+            Assertions.assertThat(exchangeRateProvider.getExchangeRatesForCurrenciesByDate(List.of(usd, eur), LocalDate.of(2022, 3, 1)))
+                    .isEmpty();
+            Assertions.assertThat(exchangeRateProvider.exchangeRateForCurrencyExists(eur, LocalDate.of(2022, 1, 19)))
+                    .isFalse();
+            Assertions.assertThat(exchangeRateProvider.exchangeRateForCurrencyExists(usd, LocalDate.of(2022, 1, 10)))
+                    .isFalse();
+        }
+
+        @Test
+        void getExchangeRatesForCurrenciesByDate_centralBankFailsWithoutRecording_returnsNoRates() {
+            MockRestServiceServer mockServer = MockRestServiceServer.bindTo(restTemplate).ignoreExpectOrder(true).build();
+
+            Currency jpy = currencyRepository.findByCode("JPY").orElseThrow();
+
+            mockServer.expect(ExpectedCount.once(), requestTo(Matchers.containsString(CENTRAL_BANK_OF_RUSSIA_EXCHANGE_RATE_API_URL)))
+                    .andExpect(method(HttpMethod.GET))
+                    .andRespond(withStatus(HttpStatus.SERVICE_UNAVAILABLE));
+
+            Assertions.assertThat(exchangeRateProvider.getExchangeRatesForCurrenciesByDate(List.of(jpy), LocalDate.of(2022, 1, 16)))
+                    .isEmpty();
         }
     }
 }
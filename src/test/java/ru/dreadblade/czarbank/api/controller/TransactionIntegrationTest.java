@@ -3,6 +3,9 @@ package ru.dreadblade.czarbank.api.controller;
 import org.apache.commons.lang3.RandomStringUtils;
 import org.assertj.core.api.Assertions;
 import org.hamcrest.Matchers;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
@@ -10,28 +13,64 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
 import org.springframework.security.test.context.support.WithUserDetails;
 import org.springframework.test.annotation.Rollback;
+import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.transaction.annotation.Transactional;
 import ru.dreadblade.czarbank.api.mapper.TransactionMapper;
 import ru.dreadblade.czarbank.api.model.request.TransactionRequestDTO;
+import ru.dreadblade.czarbank.api.model.response.TransactionLedgerEntryResponseDTO;
 import ru.dreadblade.czarbank.api.model.response.TransactionResponseDTO;
 import ru.dreadblade.czarbank.domain.BankAccount;
 import ru.dreadblade.czarbank.domain.BankAccountType;
+import ru.dreadblade.czarbank.domain.Transaction;
+import ru.dreadblade.czarbank.domain.security.User;
+import ru.dreadblade.czarbank.exception.CzarBankException;
 import ru.dreadblade.czarbank.exception.ExceptionMessage;
+import ru.dreadblade.czarbank.repository.BankAccountBalanceStripeRepository;
 import ru.dreadblade.czarbank.repository.BankAccountRepository;
 import ru.dreadblade.czarbank.repository.TransactionRepository;
 import ru.dreadblade.czarbank.repository.security.UserRepository;
 import ru.dreadblade.czarbank.service.BankAccountService;
 import ru.dreadblade.czarbank.service.CurrencyService;
+import ru.dreadblade.czarbank.service.LatestExchangeRateSnapshot;
+import ru.dreadblade.czarbank.service.TransactionBatchItemResult;
+import ru.dreadblade.czarbank.service.TransactionConcurrencyMode;
+import ru.dreadblade.czarbank.service.TransactionService;
+import ru.dreadblade.czarbank.service.task.scheduled.CompactBankAccountBalanceStripesScheduledTask;
 
 import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -60,10 +99,32 @@ public class TransactionIntegrationTest extends BaseIntegrationTest {
     @Autowired
     CurrencyService currencyService;
 
+    @Autowired
+    TransactionService transactionService;
+
+    @Autowired
+    BankAccountBalanceStripeRepository bankAccountBalanceStripeRepository;
+
+    @Autowired
+    CompactBankAccountBalanceStripesScheduledTask compactBankAccountBalanceStripesScheduledTask;
+
+    @Autowired
+    LatestExchangeRateSnapshot latestExchangeRateSnapshot;
+
     private static final String TRANSACTIONS_API_URL = "/api/transactions";
+    private static final String TRANSACTIONS_BATCH_API_URL = "/api/transactions/batch";
+    private static final String TRANSACTIONS_EXPORT_API_URL = "/api/transactions/export";
     private static final String BANK_ACCOUNTS_API_URL = "/api/bank-accounts";
+
+    private static final int CONCURRENT_CREDIT_THREAD_COUNT = 16;
+    private static final int CONCURRENT_CREDITS_PER_THREAD = 50;
     private static final String TRANSACTIONS = "transactions";
 
+    @BeforeEach
+    void refreshLatestExchangeRateSnapshot() {
+        latestExchangeRateSnapshot.refresh();
+    }
+
     @Nested
     @DisplayName("findAll() Tests")
     class FindAllTests {
@@ -128,8 +189,7 @@ public class TransactionIntegrationTest extends BaseIntegrationTest {
         void findAllByBankAccountId_withAuth_withPermission_isSuccessful() throws Exception {
             BankAccount bankAccountForTest = bankAccountRepository.findById( 3L).orElseThrow();
 
-            List<TransactionResponseDTO> expectedTransactions = transactionRepository
-                    .findAllByBankAccountId(bankAccountForTest.getId())
+            List<TransactionResponseDTO> expectedTransactions = findAllTransactionsOfBankAccount(bankAccountForTest.getId())
                     .stream()
                     .map(transactionMapper::entityToResponseDto)
                     .collect(Collectors.toList());
@@ -149,8 +209,7 @@ public class TransactionIntegrationTest extends BaseIntegrationTest {
         void findAllByBankAccountId_withAuth_asOwner_isSuccessful() throws Exception {
             BankAccount bankAccountForTest = bankAccountRepository.findById(3L).orElseThrow();
 
-            List<TransactionResponseDTO> expectedTransactions = transactionRepository
-                    .findAllByBankAccountId(bankAccountForTest.getId())
+            List<TransactionResponseDTO> expectedTransactions = findAllTransactionsOfBankAccount(bankAccountForTest.getId())
                     .stream()
                     .map(transactionMapper::entityToResponseDto)
                     .collect(Collectors.toList());
@@ -165,6 +224,92 @@ public class TransactionIntegrationTest extends BaseIntegrationTest {
                     .andExpect(content().json(expectedResponse));
         }
 
+        @Test
+        @WithUserDetails("admin")
+        void findAllByBankAccountId_withLimit_followingCursor_returnsEveryTransactionOnce() throws Exception {
+            BankAccount bankAccountForTest = bankAccountRepository.findById(3L).orElseThrow();
+
+            List<Long> expectedIds = findAllTransactionsOfBankAccount(bankAccountForTest.getId())
+                    .stream()
+                    .map(Transaction::getId)
+                    .collect(Collectors.toList());
+
+            Assertions.assertThat(expectedIds).hasSizeGreaterThan(1);
+
+            List<Long> actualIds = new ArrayList<>();
+            String cursor = null;
+            int pageCount = 0;
+
+            do {
+                var request = get(BANK_ACCOUNTS_API_URL + "/" + bankAccountForTest.getId() + "/" + TRANSACTIONS)
+                        .param("limit", "1")
+                        .contentType(MediaType.APPLICATION_JSON);
+
+                if (cursor != null) {
+                    request.param("after", cursor);
+                }
+
+                MockHttpServletResponse response = mockMvc.perform(request)
+                        .andExpect(status().isOk())
+                        .andExpect(jsonPath("$", hasSize(1)))
+                        .andReturn()
+                        .getResponse();
+
+                for (TransactionResponseDTO transaction : objectMapper.readValue(response.getContentAsString(),
+                        TransactionResponseDTO[].class)) {
+                    actualIds.add(transaction.getId());
+                }
+
+                cursor = response.getHeader(TransactionController.NEXT_CURSOR_HEADER);
+                pageCount++;
+            } while (cursor != null);
+
+            Assertions.assertThat(pageCount).isEqualTo(expectedIds.size());
+            Assertions.assertThat(actualIds).doesNotHaveDuplicates();
+            Assertions.assertThat(actualIds).containsExactlyInAnyOrderElementsOf(expectedIds);
+        }
+
+        @Test
+        @WithUserDetails("admin")
+        void findAllByBankAccountId_lastPage_hasNoNextCursor() throws Exception {
+            BankAccount bankAccountForTest = bankAccountRepository.findById(3L).orElseThrow();
+
+            int expectedSize = findAllTransactionsOfBankAccount(bankAccountForTest.getId()).size();
+
+            mockMvc.perform(get(BANK_ACCOUNTS_API_URL + "/" + bankAccountForTest.getId() + "/" + TRANSACTIONS)
+                            .param("limit", String.valueOf(expectedSize))
+                            .contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", hasSize(expectedSize)))
+                    .andExpect(header().doesNotExist(TransactionController.NEXT_CURSOR_HEADER));
+        }
+
+        @Test
+        @WithUserDetails("admin")
+        void findAllByBankAccountId_withInvalidCursor_isBadRequest() throws Exception {
+            BankAccount bankAccountForTest = bankAccountRepository.findById(3L).orElseThrow();
+
+            mockMvc.perform(get(BANK_ACCOUNTS_API_URL + "/" + bankAccountForTest.getId() + "/" + TRANSACTIONS)
+                            .param("after", "not-a-cursor")
+                            .contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.message").value(ExceptionMessage.INVALID_TRANSACTION_HISTORY_CURSOR.getMessage()));
+        }
+
+        @Test
+        @WithUserDetails("admin")
+        void findAllByBankAccountId_withInvalidLimit_isBadRequest() throws Exception {
+            BankAccount bankAccountForTest = bankAccountRepository.findById(3L).orElseThrow();
+
+            for (String limit : List.of("0", "1001")) {
+                mockMvc.perform(get(BANK_ACCOUNTS_API_URL + "/" + bankAccountForTest.getId() + "/" + TRANSACTIONS)
+                                .param("limit", limit)
+                                .contentType(MediaType.APPLICATION_JSON))
+                        .andExpect(status().isBadRequest())
+                        .andExpect(jsonPath("$.message").value(ExceptionMessage.INVALID_TRANSACTION_HISTORY_LIMIT.getMessage()));
+            }
+        }
+
         @Test
         @WithUserDetails("client")
         void findAllByBankAccountId_withAuth_notAsOwner_isFailed() throws Exception {
@@ -223,6 +368,227 @@ public class TransactionIntegrationTest extends BaseIntegrationTest {
         }
     }
 
+    @Nested
+    @DisplayName("Query count Tests")
+    class QueryCountTests {
+        @Test
+        @WithUserDetails("admin")
+        void findAllTransactions_isSingleQuery() throws Exception {
+            Assertions.assertThat(countStatements(get(TRANSACTIONS_API_URL), status().isOk())).isEqualTo(1);
+        }
+
+        @Test
+        @WithUserDetails("admin")
+        void findAllByBankAccountId_withPermission_readsHistoryAndBankAccounts() throws Exception {
+            Assertions.assertThat(countStatements(get(BANK_ACCOUNTS_API_URL + "/3/" + TRANSACTIONS), status().isOk()))
+                    .isEqualTo(3);
+        }
+
+        @Test
+        @WithUserDetails("client")
+        void findAllByBankAccountId_asOwner_readsOwnerHistoryAndBankAccounts() throws Exception {
+            Assertions.assertThat(countStatements(get(BANK_ACCOUNTS_API_URL + "/3/" + TRANSACTIONS), status().isOk()))
+                    .isEqualTo(4);
+        }
+
+        @Test
+        @WithUserDetails("admin")
+        void createTransaction_locksReadsInsertsAndUpdates() throws Exception {
+            TransactionRequestDTO transactionRequest = TransactionRequestDTO.builder()
+                    .amount(BigDecimal.TEN)
+                    .sourceBankAccountNumber(bankAccountRepository.findById(1L).orElseThrow().getNumber())
+                    .destinationBankAccountNumber(bankAccountRepository.findById(2L).orElseThrow().getNumber())
+                    .build();
+
+            // the first transaction takes a block of ids from the sequence
+            transactionService.createTransaction(transactionRequest);
+
+            Assertions.assertThat(countStatements(post(TRANSACTIONS_API_URL)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(transactionRequest)), status().isCreated()))
+                    .isEqualTo(4);
+        }
+
+        @Test
+        @WithUserDetails("admin")
+        void createTransactions_statementCountDoesntDependOnBatchSize() throws Exception {
+            TransactionRequestDTO transactionRequest = TransactionRequestDTO.builder()
+                    .amount(BigDecimal.TEN)
+                    .sourceBankAccountNumber(bankAccountRepository.findById(1L).orElseThrow().getNumber())
+                    .destinationBankAccountNumber(bankAccountRepository.findById(2L).orElseThrow().getNumber())
+                    .build();
+
+            // the first transaction takes a block of ids from the sequence
+            transactionService.createTransaction(transactionRequest);
+
+            // one more statement when the ids of the batch run past the end of the current block
+            Assertions.assertThat(countStatements(post(TRANSACTIONS_BATCH_API_URL)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(Collections.nCopies(10, transactionRequest))), status().isOk()))
+                    .isBetween(4L, 5L);
+        }
+    }
+
+    @Nested
+    @DisplayName("Transaction history query plan Tests")
+    class TransactionHistoryQueryPlanTests {
+        private static final int GENERATED_TRANSACTION_COUNT = 20000;
+
+        @Autowired
+        NamedParameterJdbcTemplate jdbcTemplate;
+
+        @Test
+        @Transactional
+        void findHistoryByBankAccountId_usesIndexScans() {
+            generateTransactionsAndAnalyze();
+
+            String plan = explain(TransactionRepository.HISTORY_QUERY, new MapSqlParameterSource()
+                    .addValue("bankAccountId", 3L)
+                    .addValue("limit", 101));
+
+            assertThatPlanUsesIndexScansOnly(plan);
+        }
+
+        @Test
+        @Transactional
+        void findHistoryByBankAccountIdAfter_usesIndexScans() {
+            generateTransactionsAndAnalyze();
+
+            String plan = explain(TransactionRepository.HISTORY_AFTER_QUERY, new MapSqlParameterSource()
+                    .addValue("bankAccountId", 3L)
+                    .addValue("createdAt", Timestamp.from(Instant.now().minus(1, ChronoUnit.HOURS)))
+                    .addValue("id", Long.MAX_VALUE)
+                    .addValue("limit", 101));
+
+            assertThatPlanUsesIndexScansOnly(plan);
+        }
+
+        private void generateTransactionsAndAnalyze() {
+            jdbcTemplate.update("insert into transaction (id, amount, received_amount, source_bank_account_id, " +
+                    "destination_bank_account_id, created_at) " +
+                    "select 1000000 + g, 10, 10, 1 + g % 5, 1 + (g + 1) % 5, now() - g * interval '1 second' " +
+                    "from generate_series(1, :count) as g", Map.of("count", GENERATED_TRANSACTION_COUNT));
+            jdbcTemplate.update("analyze transaction", Map.of());
+        }
+
+        private String explain(String query, MapSqlParameterSource parameters) {
+            return String.join("\n", jdbcTemplate.queryForList("explain " + query, parameters, String.class));
+        }
+
+        private void assertThatPlanUsesIndexScansOnly(String plan) {
+            Assertions.assertThat(plan)
+                    .contains("transaction_source_bank_account_id_created_at_id_idx")
+                    .contains("transaction_destination_bank_account_id_created_at_id_idx")
+                    .doesNotContain("Seq Scan on transaction");
+        }
+    }
+
+    @Nested
+    @DisplayName("exportTransactions() Tests")
+    class ExportTransactionsTests {
+        @Test
+        @WithUserDetails("admin")
+        void exportTransactions_withAuth_withPermission_asNdjson_isSuccessful() throws Exception {
+            List<Long> expectedIds = transactionRepository.findAll().stream()
+                    .map(Transaction::getId)
+                    .collect(Collectors.toList());
+
+            MvcResult asyncResult = mockMvc.perform(get(TRANSACTIONS_EXPORT_API_URL))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            Assertions.assertThat(asyncResult.getRequest().getAsyncContext().getTimeout())
+                    .isEqualTo(TimeUnit.MINUTES.toMillis(30));
+
+            String response = mockMvc.perform(asyncDispatch(asyncResult))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                    .andReturn()
+                    .getResponse()
+                    .getContentAsString();
+
+            List<Long> actualIds = new ArrayList<>();
+
+            for (String line : response.split("\n")) {
+                actualIds.add(objectMapper.readValue(line, TransactionLedgerEntryResponseDTO.class).getId());
+            }
+
+            Assertions.assertThat(actualIds).containsExactlyInAnyOrderElementsOf(expectedIds);
+        }
+
+        @Test
+        @WithUserDetails("admin")
+        void exportTransactions_withAuth_withPermission_asCsv_isSuccessful() throws Exception {
+            Transaction expectedTransaction = transactionRepository.findById(1L).orElseThrow();
+
+            MvcResult asyncResult = mockMvc.perform(get(TRANSACTIONS_EXPORT_API_URL).param("format", "CSV"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            String[] lines = mockMvc.perform(asyncDispatch(asyncResult))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentTypeCompatibleWith("text/csv"))
+                    .andReturn()
+                    .getResponse()
+                    .getContentAsString()
+                    .split("\n");
+
+            Assertions.assertThat(lines[0])
+                    .isEqualTo("id,created_at,amount,received_amount,source_bank_account_id,destination_bank_account_id");
+            Assertions.assertThat(lines).hasSize((int) transactionRepository.count() + 1);
+            Assertions.assertThat(lines).contains(expectedTransaction.getId() + "," +
+                    expectedTransaction.getCreatedAt() + "," +
+                    expectedTransaction.getAmount() + "," +
+                    expectedTransaction.getReceivedAmount() + "," +
+                    expectedTransaction.getSourceBankAccount().getId() + "," +
+                    expectedTransaction.getDestinationBankAccount().getId());
+        }
+
+        @Test
+        @WithUserDetails("admin")
+        void exportTransactions_withDateRange_onlyTransactionsInRangeAreExported() throws Exception {
+            Instant from = Instant.now().plus(1, ChronoUnit.DAYS);
+
+            MvcResult asyncResult = mockMvc.perform(get(TRANSACTIONS_EXPORT_API_URL)
+                            .param("format", "CSV")
+                            .param("from", from.toString()))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            String[] lines = mockMvc.perform(asyncDispatch(asyncResult))
+                    .andExpect(status().isOk())
+                    .andReturn()
+                    .getResponse()
+                    .getContentAsString()
+                    .split("\n");
+
+            Assertions.assertThat(lines).hasSize(1);
+
+            asyncResult = mockMvc.perform(get(TRANSACTIONS_EXPORT_API_URL)
+                            .param("format", "CSV")
+                            .param("to", from.toString()))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            lines = mockMvc.perform(asyncDispatch(asyncResult))
+                    .andExpect(status().isOk())
+                    .andReturn()
+                    .getResponse()
+                    .getContentAsString()
+                    .split("\n");
+
+            Assertions.assertThat(lines).hasSize((int) transactionRepository.count() + 1);
+        }
+
+        @Test
+        @WithUserDetails("client")
+        void exportTransactions_withAuth_withoutPermission_isFailed() throws Exception {
+            mockMvc.perform(get(TRANSACTIONS_EXPORT_API_URL))
+                    .andExpect(status().isForbidden())
+                    .andExpect(jsonPath("$.message").value("Access is denied"));
+        }
+    }
+
     @Nested
     @DisplayName("createTransaction() Tests")
     class CreateTransactionTests {
@@ -607,6 +973,201 @@ public class TransactionIntegrationTest extends BaseIntegrationTest {
                     .andExpect(jsonPath("$.message").value(ExceptionMessage.NOT_ENOUGH_BALANCE.getMessage()));
         }
 
+        @Test
+        void createTransaction_concurrentTransfersInOppositeDirections_balancesAreExact() throws Exception {
+            performConcurrentTransfersAndAssertBalancesAreExact(transactionService);
+        }
+
+        @Test
+        void createTransaction_concurrentCreditsToBankAccountWithStripedBalance_balanceIsConserved() throws Exception {
+            performConcurrentCreditsAndAssertBalanceIsConserved(transactionService,
+                    TransactionConcurrencyMode.PESSIMISTIC, 8);
+        }
+
+        @Test
+        void createTransaction_sourceBankAccountWithStripedBalance_stripesAreIncludedInAvailableBalance() {
+            assertThatStripesAreIncludedInAvailableBalance(transactionService, TransactionConcurrencyMode.PESSIMISTIC);
+        }
+
+        @Test
+        void compactBalanceStripes_balanceIsMovedToBankAccount() throws Exception {
+            BankAccount bankAccount = performConcurrentCreditsAndAssertBalanceIsConserved(transactionService,
+                    TransactionConcurrencyMode.PESSIMISTIC, 8);
+            BigDecimal totalBalance = bankAccountRepository.findById(bankAccount.getId()).orElseThrow().getTotalBalance();
+
+            compactBankAccountBalanceStripesScheduledTask.run();
+
+            Assertions.assertThat(bankAccountBalanceStripeRepository.sumBalanceByBankAccountId(bankAccount.getId()))
+                    .isEqualByComparingTo(BigDecimal.ZERO);
+
+            BankAccount compactedBankAccount = bankAccountRepository.findById(bankAccount.getId()).orElseThrow();
+
+            Assertions.assertThat(compactedBankAccount.getBalance()).isEqualByComparingTo(totalBalance);
+            Assertions.assertThat(compactedBankAccount.getTotalBalance()).isEqualByComparingTo(totalBalance);
+        }
+
+        @Nested
+        @DisplayName("Optimistic concurrency mode Tests")
+        @TestPropertySource(properties = {
+                "czar-bank.transactions.concurrency-mode=optimistic",
+                "czar-bank.transactions.retry.max-attempts=50"
+        })
+        class OptimisticConcurrencyModeTests {
+            @Autowired
+            TransactionService transactionService;
+
+            @BeforeEach
+            void assertThatOptimisticConcurrencyModeIsUsed() {
+                assertThatConcurrencyModeIs(transactionService, TransactionConcurrencyMode.OPTIMISTIC);
+            }
+
+            @Test
+            void createTransaction_concurrentTransfersInOppositeDirections_balancesAreExact() throws Exception {
+                performConcurrentTransfersAndAssertBalancesAreExact(transactionService);
+            }
+
+            @Test
+            void createTransaction_concurrentCreditsToBankAccountWithStripedBalance_balanceIsConserved() throws Exception {
+                performConcurrentCreditsAndAssertBalanceIsConserved(transactionService,
+                        TransactionConcurrencyMode.OPTIMISTIC, 8);
+            }
+
+            @Test
+            void createTransaction_sourceBankAccountWithStripedBalance_stripesAreIncludedInAvailableBalance() {
+                assertThatStripesAreIncludedInAvailableBalance(transactionService, TransactionConcurrencyMode.OPTIMISTIC);
+            }
+        }
+
+        @Nested
+        @DisplayName("Atomic concurrency mode Tests")
+        @TestPropertySource(properties = "czar-bank.transactions.concurrency-mode=atomic")
+        class AtomicConcurrencyModeTests {
+            @Autowired
+            TransactionService transactionService;
+
+            @Autowired
+            WebApplicationContext webApplicationContext;
+
+            MockMvc mockMvc;
+
+            @BeforeEach
+            void setUpAtomicMockMvc() {
+                assertThatConcurrencyModeIs(transactionService, TransactionConcurrencyMode.ATOMIC);
+
+                mockMvc = MockMvcBuilders
+                        .webAppContextSetup(webApplicationContext)
+                        .apply(springSecurity())
+                        .build();
+            }
+
+            @Test
+            @WithUserDetails("admin")
+            void createTransaction_withAuth_withPermission_sourceIsDestination_onlyCommissionIsDebited() throws Exception {
+                BankAccount bankAccount = bankAccountRepository.findById(1L).orElseThrow();
+
+                TransactionRequestDTO transactionRequest = TransactionRequestDTO.builder()
+                        .amount(BigDecimal.valueOf(10000L))
+                        .sourceBankAccountNumber(bankAccount.getNumber())
+                        .destinationBankAccountNumber(bankAccount.getNumber())
+                        .build();
+
+                BigDecimal transactionAmount = transactionRequest.getAmount();
+                BigDecimal commission = transactionAmount
+                        .multiply(bankAccount.getBankAccountType().getTransactionCommission());
+
+                mockMvc.perform(post(TRANSACTIONS_API_URL)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(transactionRequest)))
+                        .andExpect(status().isCreated())
+                        .andExpect(jsonPath("$.id").isNumber())
+                        .andExpect(jsonPath("$.receivedAmount").value(transactionAmount))
+                        .andExpect(jsonPath("$.sourceBankAccount.number").value(bankAccount.getNumber()))
+                        .andExpect(jsonPath("$.destinationBankAccount.number").value(bankAccount.getNumber()));
+
+                Assertions.assertThat(bankAccountRepository.findById(1L).orElseThrow().getBalance())
+                        .isEqualByComparingTo(bankAccount.getBalance().subtract(commission));
+            }
+
+            @Test
+            void createTransaction_concurrentTransfersInOppositeDirections_balancesAreExact() throws Exception {
+                performConcurrentTransfersAndAssertBalancesAreExact(transactionService);
+            }
+
+            @Test
+            void createTransaction_concurrentCreditsToBankAccountWithStripedBalance_balanceIsConserved() throws Exception {
+                performConcurrentCreditsAndAssertBalanceIsConserved(transactionService,
+                        TransactionConcurrencyMode.ATOMIC, 8);
+            }
+
+            @Test
+            void createTransaction_sourceBankAccountWithStripedBalance_stripesAreIncludedInAvailableBalance() {
+                assertThatStripesAreIncludedInAvailableBalance(transactionService, TransactionConcurrencyMode.ATOMIC);
+            }
+
+            @Test
+            void createTransaction_concurrentCreditsByBalanceStripeCount_balanceIsConserved() throws Exception {
+                for (int balanceStripeCount : new int[] { 0, 1, 4, 16 }) {
+                    performConcurrentCreditsAndAssertBalanceIsConserved(transactionService,
+                            TransactionConcurrencyMode.ATOMIC, balanceStripeCount);
+                }
+            }
+
+            @Test
+            void createTransaction_sourceBankAccountDoesntHaveEnoughBalance_balancesAreUnchanged() {
+                BankAccount sourceBankAccount = bankAccountRepository.findById(3L).orElseThrow();
+                BankAccount destinationBankAccount = bankAccountRepository.findById(4L).orElseThrow();
+
+                TransactionRequestDTO transactionRequest = TransactionRequestDTO.builder()
+                        .amount(BigDecimal.valueOf(10000L))
+                        .sourceBankAccountNumber(sourceBankAccount.getNumber())
+                        .destinationBankAccountNumber(destinationBankAccount.getNumber())
+                        .build();
+
+                Assertions.assertThatThrownBy(() -> transactionService.createTransaction(transactionRequest))
+                        .isInstanceOf(CzarBankException.class)
+                        .hasMessage(ExceptionMessage.NOT_ENOUGH_BALANCE.getMessage());
+
+                Assertions.assertThat(bankAccountRepository.findById(3L).orElseThrow().getBalance())
+                        .isEqualByComparingTo(sourceBankAccount.getBalance());
+
+                Assertions.assertThat(bankAccountRepository.findById(4L).orElseThrow().getBalance())
+                        .isEqualByComparingTo(destinationBankAccount.getBalance());
+            }
+
+            @Test
+            void createTransaction_currenciesDiffer_isSuccessful() {
+                BankAccount sourceBankAccount = bankAccountRepository.findById(1L).orElseThrow();
+                BankAccount destinationBankAccount = bankAccountService.create(1L, 1L, 2L);
+
+                TransactionRequestDTO transactionRequest = TransactionRequestDTO.builder()
+                        .amount(BigDecimal.valueOf(10000L))
+                        .sourceBankAccountNumber(sourceBankAccount.getNumber())
+                        .destinationBankAccountNumber(destinationBankAccount.getNumber())
+                        .build();
+
+                BankAccountType sourceBankAccountType = sourceBankAccount.getBankAccountType();
+
+                BigDecimal transactionAmount = transactionRequest.getAmount();
+                BigDecimal transactionAmountWithCommission = transactionAmount.add(transactionAmount
+                        .multiply(sourceBankAccountType.getTransactionCommission()
+                                .add(sourceBankAccountType.getCurrencyExchangeCommission())));
+
+                BigDecimal expectedReceivedAmount = currencyService.exchangeCurrency(sourceBankAccount.getUsedCurrency(),
+                        transactionAmount, destinationBankAccount.getUsedCurrency());
+
+                Transaction transaction = transactionService.createTransaction(transactionRequest);
+
+                Assertions.assertThat(transaction.getId()).isNotNull();
+                Assertions.assertThat(transaction.getReceivedAmount()).isEqualByComparingTo(expectedReceivedAmount);
+
+                Assertions.assertThat(bankAccountRepository.findById(1L).orElseThrow().getBalance())
+                        .isEqualByComparingTo(sourceBankAccount.getBalance().subtract(transactionAmountWithCommission));
+
+                Assertions.assertThat(bankAccountRepository.findById(destinationBankAccount.getId()).orElseThrow().getBalance())
+                        .isEqualByComparingTo(expectedReceivedAmount);
+            }
+        }
+
         @Nested
         @DisplayName("Validation Tests")
         class ValidationTests {
@@ -664,4 +1225,387 @@ public class TransactionIntegrationTest extends BaseIntegrationTest {
             }
         }
     }
+
+    @Nested
+    @DisplayName("createTransactions() Tests")
+    class CreateTransactionBatchTests {
+        @Test
+        void createTransactions_withoutAuth_isFailed() throws Exception {
+            mockMvc.perform(post(TRANSACTIONS_BATCH_API_URL)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(List.of())))
+                    .andExpect(status().isForbidden())
+                    .andExpect(jsonPath("$.message").value("Access is denied"));
+        }
+
+        @Test
+        @WithUserDetails("admin")
+        void createTransactions_withAuth_withPermission_failedItemsDontAffectOtherItems() throws Exception {
+            BankAccount firstBankAccount = bankAccountRepository.findById(1L).orElseThrow();
+            BankAccount secondBankAccount = bankAccountRepository.findById(2L).orElseThrow();
+            BankAccount thirdBankAccount = bankAccountRepository.findById(3L).orElseThrow();
+
+            List<TransactionRequestDTO> transactionRequests = new ArrayList<>();
+
+            transactionRequests.add(TransactionRequestDTO.builder()
+                    .amount(BigDecimal.valueOf(1000L))
+                    .sourceBankAccountNumber(firstBankAccount.getNumber())
+                    .destinationBankAccountNumber(secondBankAccount.getNumber())
+                    .build());
+
+            transactionRequests.add(TransactionRequestDTO.builder()
+                    .amount(BigDecimal.valueOf(10000L))
+                    .sourceBankAccountNumber(thirdBankAccount.getNumber())
+                    .destinationBankAccountNumber(secondBankAccount.getNumber())
+                    .build());
+
+            transactionRequests.add(TransactionRequestDTO.builder()
+                    .amount(BigDecimal.ONE)
+                    .sourceBankAccountNumber(firstBankAccount.getNumber())
+                    .destinationBankAccountNumber("01234567899876543210")
+                    .build());
+
+            transactionRequests.add(TransactionRequestDTO.builder()
+                    .sourceBankAccountNumber(firstBankAccount.getNumber())
+                    .destinationBankAccountNumber(secondBankAccount.getNumber())
+                    .build());
+
+            transactionRequests.add(null);
+
+            transactionRequests.add(TransactionRequestDTO.builder()
+                    .amount(BigDecimal.valueOf(500L))
+                    .sourceBankAccountNumber(secondBankAccount.getNumber())
+                    .destinationBankAccountNumber(thirdBankAccount.getNumber())
+                    .build());
+
+            long transactionCountBefore = transactionRepository.count();
+
+            mockMvc.perform(post(TRANSACTIONS_BATCH_API_URL)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(transactionRequests)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", hasSize(6)))
+                    .andExpect(jsonPath("$[*].index").value(contains(0, 1, 2, 3, 4, 5)))
+                    .andExpect(jsonPath("$[*].status").value(contains("SUCCEEDED", "FAILED", "FAILED", "FAILED",
+                            "FAILED", "SUCCEEDED")))
+                    .andExpect(jsonPath("$[0].transaction.id").isNumber())
+                    .andExpect(jsonPath("$[0].transaction.amount").value(1000))
+                    .andExpect(jsonPath("$[1].message").value(ExceptionMessage.NOT_ENOUGH_BALANCE.getMessage()))
+                    .andExpect(jsonPath("$[2].message")
+                            .value(ExceptionMessage.DESTINATION_BANK_ACCOUNT_DOESNT_EXIST.getMessage()))
+                    .andExpect(jsonPath("$[3].message").value("Transaction amount must be not null"))
+                    .andExpect(jsonPath("$[4].message").value(ExceptionMessage.TRANSACTION_REQUEST_IS_NULL.getMessage()))
+                    .andExpect(jsonPath("$[5].transaction.id").isNumber());
+
+            Assertions.assertThat(transactionRepository.count()).isEqualTo(transactionCountBefore + 2);
+
+            Assertions.assertThat(bankAccountRepository.findById(1L).orElseThrow().getBalance())
+                    .isEqualByComparingTo(firstBankAccount.getBalance().subtract(BigDecimal.valueOf(1010L)));
+
+            Assertions.assertThat(bankAccountRepository.findById(2L).orElseThrow().getBalance())
+                    .isEqualByComparingTo(secondBankAccount.getBalance().add(BigDecimal.valueOf(1000L))
+                            .subtract(BigDecimal.valueOf(510L)));
+
+            Assertions.assertThat(bankAccountRepository.findById(3L).orElseThrow().getBalance())
+                    .isEqualByComparingTo(thirdBankAccount.getBalance().add(BigDecimal.valueOf(500L)));
+        }
+
+        @Test
+        @WithUserDetails("client")
+        void createTransactions_withAuth_notAsOwnerOfSourceBankAccount_itemIsFailed() throws Exception {
+            BankAccount ownBankAccount = bankAccountRepository.findById(3L).orElseThrow();
+            BankAccount foreignBankAccount = bankAccountRepository.findById(1L).orElseThrow();
+
+            List<TransactionRequestDTO> transactionRequests = List.of(
+                    TransactionRequestDTO.builder()
+                            .amount(BigDecimal.TEN)
+                            .sourceBankAccountNumber(ownBankAccount.getNumber())
+                            .destinationBankAccountNumber(foreignBankAccount.getNumber())
+                            .build(),
+                    TransactionRequestDTO.builder()
+                            .amount(BigDecimal.TEN)
+                            .sourceBankAccountNumber(foreignBankAccount.getNumber())
+                            .destinationBankAccountNumber(ownBankAccount.getNumber())
+                            .build());
+
+            mockMvc.perform(post(TRANSACTIONS_BATCH_API_URL)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(transactionRequests)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[*].status").value(contains("SUCCEEDED", "FAILED")))
+                    .andExpect(jsonPath("$[1].message").value(ExceptionMessage.TRANSACTION_ACCESS_DENIED.getMessage()));
+
+            Assertions.assertThat(bankAccountRepository.findById(1L).orElseThrow().getBalance())
+                    .isEqualByComparingTo(foreignBankAccount.getBalance().add(BigDecimal.TEN));
+        }
+
+        @Test
+        void createTransactions_moreTransactionsThanChunkSize_allTransactionsAreCreated() {
+            User admin = userRepository.findByUsername("admin").orElseThrow();
+
+            BankAccount firstBankAccount = bankAccountRepository.findById(1L).orElseThrow();
+            BankAccount stripedBankAccount = bankAccountService.create(1L, 1L, 1L, 4);
+
+            int transactionCount = 1200;
+
+            List<TransactionRequestDTO> transactionRequests = new ArrayList<>();
+
+            for (int i = 0; i < transactionCount; i++) {
+                transactionRequests.add(TransactionRequestDTO.builder()
+                        .amount(BigDecimal.ONE)
+                        .sourceBankAccountNumber(firstBankAccount.getNumber())
+                        .destinationBankAccountNumber(stripedBankAccount.getNumber())
+                        .build());
+            }
+
+            List<TransactionBatchItemResult> results = transactionService.createTransactions(transactionRequests, admin);
+
+            Assertions.assertThat(results).hasSize(transactionCount).allMatch(TransactionBatchItemResult::isSucceeded);
+
+            Assertions.assertThat(results.stream().map(result -> result.getTransaction().getId()).distinct())
+                    .hasSize(transactionCount);
+
+            Assertions.assertThat(bankAccountRepository.findById(1L).orElseThrow().getBalance())
+                    .isEqualByComparingTo(firstBankAccount.getBalance().subtract(BigDecimal.valueOf(transactionCount)
+                            .multiply(BigDecimal.valueOf(1.01))));
+
+            Assertions.assertThat(bankAccountRepository.findById(stripedBankAccount.getId()).orElseThrow().getTotalBalance())
+                    .isEqualByComparingTo(BigDecimal.valueOf(transactionCount));
+        }
+
+        @Test
+        void saveAll_transactions_idsArePreallocatedAndInsertsAreBatched() {
+            BankAccount firstBankAccount = bankAccountRepository.findById(1L).orElseThrow();
+            BankAccount secondBankAccount = bankAccountRepository.findById(2L).orElseThrow();
+
+            int transactionCount = 1000;
+
+            List<Transaction> transactions = IntStream.range(0, transactionCount)
+                    .mapToObj(i -> Transaction.builder()
+                            .amount(BigDecimal.ONE)
+                            .receivedAmount(BigDecimal.ONE)
+                            .sourceBankAccount(firstBankAccount)
+                            .destinationBankAccount(secondBankAccount)
+                            .build())
+                    .collect(Collectors.toList());
+
+            Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+            statistics.clear();
+            statistics.setStatisticsEnabled(true);
+
+            try {
+                transactionRepository.saveAll(transactions);
+
+                Assertions.assertThat(statistics.getEntityInsertCount()).isEqualTo(transactionCount);
+                Assertions.assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(transactionCount / 10);
+            } finally {
+                statistics.setStatisticsEnabled(false);
+            }
+        }
+
+        @Nested
+        @DisplayName("Batch size limit Tests")
+        @TestPropertySource(properties = "czar-bank.transactions.batch.max-size=2")
+        class BatchSizeLimitTests {
+            @Autowired
+            TransactionService transactionService;
+
+            @Test
+            void createTransactions_moreTransactionsThanMaxSize_isFailed() {
+                TransactionRequestDTO transactionRequest = TransactionRequestDTO.builder()
+                        .amount(BigDecimal.ONE)
+                        .sourceBankAccountNumber(bankAccountRepository.findById(1L).orElseThrow().getNumber())
+                        .destinationBankAccountNumber(bankAccountRepository.findById(2L).orElseThrow().getNumber())
+                        .build();
+
+                User admin = userRepository.findByUsername("admin").orElseThrow();
+
+                Assertions.assertThatThrownBy(() -> transactionService.createTransactions(List.of(transactionRequest,
+                                transactionRequest, transactionRequest), admin))
+                        .isInstanceOf(CzarBankException.class)
+                        .hasMessage(ExceptionMessage.TRANSACTION_BATCH_TOO_LARGE.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Transfers between two bank accounts in opposite directions from several threads at once and asserts that
+     * every transfer succeeds and both balances are changed by exactly the commission of the sent transfers
+     */
+    private void performConcurrentTransfersAndAssertBalancesAreExact(TransactionService transactionService) throws Exception {
+        BankAccount firstBankAccount = bankAccountRepository.findById(1L).orElseThrow();
+        BankAccount secondBankAccount = bankAccountRepository.findById(2L).orElseThrow();
+
+        Set<Long> existingTransactionIds = transactionRepository.findAll().stream()
+                .map(Transaction::getId)
+                .collect(Collectors.toSet());
+
+        int threadCount = 16;
+        int transactionCount = 400;
+        BigDecimal transactionAmount = BigDecimal.TEN;
+
+        ExecutorService executorService = Executors.newFixedThreadPool(threadCount);
+        CountDownLatch startLatch = new CountDownLatch(1);
+        List<Future<Transaction>> futures = new ArrayList<>();
+
+        for (int i = 0; i < transactionCount; i++) {
+            BankAccount source = i % 2 == 0 ? firstBankAccount : secondBankAccount;
+            BankAccount destination = i % 2 == 0 ? secondBankAccount : firstBankAccount;
+
+            TransactionRequestDTO transactionRequest = TransactionRequestDTO.builder()
+                    .amount(transactionAmount)
+                    .sourceBankAccountNumber(source.getNumber())
+                    .destinationBankAccountNumber(destination.getNumber())
+                    .build();
+
+            futures.add(executorService.submit(() -> {
+                startLatch.await();
+                return transactionService.createTransaction(transactionRequest);
+            }));
+        }
+
+        startLatch.countDown();
+
+        for (Future<Transaction> future : futures) {
+            Assertions.assertThat(future.get(1, TimeUnit.MINUTES)).isNotNull();
+        }
+
+        executorService.shutdown();
+
+        Assertions.assertThat(transactionRepository.findAll().stream()
+                .filter(transaction -> !existingTransactionIds.contains(transaction.getId())))
+                .hasSize(transactionCount);
+
+        BigDecimal sentAmountPerBankAccount = transactionAmount.multiply(BigDecimal.valueOf(transactionCount / 2));
+
+        Assertions.assertThat(bankAccountRepository.findById(1L).orElseThrow().getBalance())
+                .isEqualByComparingTo(firstBankAccount.getBalance().subtract(sentAmountPerBankAccount
+                        .multiply(firstBankAccount.getBankAccountType().getTransactionCommission())));
+
+        Assertions.assertThat(bankAccountRepository.findById(2L).orElseThrow().getBalance())
+                .isEqualByComparingTo(secondBankAccount.getBalance().subtract(sentAmountPerBankAccount
+                        .multiply(secondBankAccount.getBankAccountType().getTransactionCommission())));
+    }
+
+    /**
+     * Credits a new bank account with the given balance stripe count from {@link #CONCURRENT_CREDIT_THREAD_COUNT}
+     * threads at once, every thread transfers from its own source bank account, so only the destination is contended
+     */
+    private BankAccount performConcurrentCreditsAndAssertBalanceIsConserved(TransactionService transactionService,
+                                                                     TransactionConcurrencyMode concurrencyMode,
+                                                                     int balanceStripeCount) throws Exception {
+        assertThatConcurrencyModeIs(transactionService, concurrencyMode);
+
+        BigDecimal sourceBalance = BigDecimal.valueOf(1_000_000L);
+        BigDecimal transactionAmount = BigDecimal.TEN;
+
+        BankAccount destinationBankAccount = bankAccountService.create(1L, 1L, 1L, balanceStripeCount);
+
+        List<BankAccount> sourceBankAccounts = new ArrayList<>();
+
+        for (int i = 0; i < CONCURRENT_CREDIT_THREAD_COUNT; i++) {
+            BankAccount sourceBankAccount = bankAccountService.create(1L, 1L, 1L);
+            sourceBankAccount.setBalance(sourceBalance);
+
+            sourceBankAccounts.add(bankAccountRepository.save(sourceBankAccount));
+        }
+
+        ExecutorService executorService = Executors.newFixedThreadPool(CONCURRENT_CREDIT_THREAD_COUNT);
+        CountDownLatch startLatch = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (BankAccount sourceBankAccount : sourceBankAccounts) {
+            TransactionRequestDTO transactionRequest = TransactionRequestDTO.builder()
+                    .amount(transactionAmount)
+                    .sourceBankAccountNumber(sourceBankAccount.getNumber())
+                    .destinationBankAccountNumber(destinationBankAccount.getNumber())
+                    .build();
+
+            futures.add(executorService.submit(() -> {
+                startLatch.await();
+
+                for (int i = 0; i < CONCURRENT_CREDITS_PER_THREAD; i++) {
+                    transactionService.createTransaction(transactionRequest);
+                }
+
+                return null;
+            }));
+        }
+
+        startLatch.countDown();
+
+        for (Future<?> future : futures) {
+            future.get(1, TimeUnit.MINUTES);
+        }
+
+        executorService.shutdown();
+
+        BigDecimal sourceTransactionAmountWithCommission = transactionAmount.add(transactionAmount
+                .multiply(destinationBankAccount.getBankAccountType().getTransactionCommission()))
+                .multiply(BigDecimal.valueOf(CONCURRENT_CREDITS_PER_THREAD));
+
+        for (BankAccount sourceBankAccount : sourceBankAccounts) {
+            Assertions.assertThat(bankAccountRepository.findById(sourceBankAccount.getId()).orElseThrow().getBalance())
+                    .isEqualByComparingTo(sourceBalance.subtract(sourceTransactionAmountWithCommission));
+        }
+
+        BankAccount creditedBankAccount = bankAccountRepository.findById(destinationBankAccount.getId()).orElseThrow();
+
+        Assertions.assertThat(creditedBankAccount.getTotalBalance()).isEqualByComparingTo(transactionAmount
+                .multiply(BigDecimal.valueOf((long) CONCURRENT_CREDIT_THREAD_COUNT * CONCURRENT_CREDITS_PER_THREAD)));
+
+        return creditedBankAccount;
+    }
+
+    private List<Transaction> findAllTransactionsOfBankAccount(Long bankAccountId) {
+        return transactionRepository.findAll().stream()
+                .filter(transaction -> transaction.getSourceBankAccount().getId().equals(bankAccountId)
+                        || transaction.getDestinationBankAccount().getId().equals(bankAccountId))
+                .sorted(Comparator.comparing(Transaction::getCreatedAt).thenComparing(Transaction::getId).reversed())
+                .collect(Collectors.toList());
+    }
+
+    private void assertThatConcurrencyModeIs(TransactionService transactionService,
+                                             TransactionConcurrencyMode expectedConcurrencyMode) {
+        Assertions.assertThat(ReflectionTestUtils.getField(transactionService, "concurrencyMode"))
+                .isEqualTo(expectedConcurrencyMode);
+    }
+
+    private void assertThatStripesAreIncludedInAvailableBalance(TransactionService transactionService,
+                                                                TransactionConcurrencyMode concurrencyMode) {
+        assertThatConcurrencyModeIs(transactionService, concurrencyMode);
+
+        BankAccount sourceBankAccount = bankAccountRepository.findById(1L).orElseThrow();
+        BankAccount stripedBankAccount = bankAccountService.create(1L, 1L, 1L, 4);
+        BankAccount destinationBankAccount = bankAccountRepository.findById(2L).orElseThrow();
+
+        transactionService.createTransaction(TransactionRequestDTO.builder()
+                .amount(BigDecimal.valueOf(1000L))
+                .sourceBankAccountNumber(sourceBankAccount.getNumber())
+                .destinationBankAccountNumber(stripedBankAccount.getNumber())
+                .build());
+
+        transactionService.createTransaction(TransactionRequestDTO.builder()
+                .amount(BigDecimal.valueOf(500L))
+                .sourceBankAccountNumber(stripedBankAccount.getNumber())
+                .destinationBankAccountNumber(destinationBankAccount.getNumber())
+                .build());
+
+        BigDecimal expectedTotalBalance = BigDecimal.valueOf(1000L).subtract(BigDecimal.valueOf(500L)
+                .multiply(BigDecimal.ONE.add(stripedBankAccount.getBankAccountType().getTransactionCommission())));
+
+        Assertions.assertThat(bankAccountRepository.findById(stripedBankAccount.getId()).orElseThrow().getTotalBalance())
+                .isEqualByComparingTo(expectedTotalBalance);
+
+        Assertions.assertThatThrownBy(() -> transactionService.createTransaction(TransactionRequestDTO.builder()
+                        .amount(BigDecimal.valueOf(500L))
+                        .sourceBankAccountNumber(stripedBankAccount.getNumber())
+                        .destinationBankAccountNumber(destinationBankAccount.getNumber())
+                        .build()))
+                .isInstanceOf(CzarBankException.class)
+                .hasMessage(ExceptionMessage.NOT_ENOUGH_BALANCE.getMessage());
+
+        Assertions.assertThat(bankAccountRepository.findById(stripedBankAccount.getId()).orElseThrow().getTotalBalance())
+                .isEqualByComparingTo(expectedTotalBalance);
+    }
 }
@@ -914,4 +914,20 @@ public class UserIntegrationTest extends BaseIntegrationTest {
                     .andExpect(status().isNotFound());
         }
     }
+
+    @Nested
+    @DisplayName("Query count Tests")
+    class QueryCountTests {
+        @Test
+        @WithUserDetails("admin")
+        void findAll_isSingleQuery() throws Exception {
+            Assertions.assertThat(countStatements(get(USERS_API_URL), status().isOk())).isEqualTo(1);
+        }
+
+        @Test
+        @WithUserDetails("admin")
+        void findUserById_isSingleQuery() throws Exception {
+            Assertions.assertThat(countStatements(get(USERS_API_URL + "/3"), status().isOk())).isEqualTo(1);
+        }
+    }
 }
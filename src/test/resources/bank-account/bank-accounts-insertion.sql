@@ -10,7 +10,7 @@ values (1, 'Czar', 0.01, 0.01),
        (4, 'Standard', 0.04, 0.04),
        (5, 'Unused account type', 0.10, 0.20);
 
-alter sequence bank_account_type_id_sequence restart 6;
+select setval('bank_account_type_id_sequence', greatest(nextval('bank_account_type_id_sequence'), 6), false);
 
 insert into currency (id, code, symbol)
 values (1, 'RUB', '₽'),
@@ -18,7 +18,7 @@ values (1, 'RUB', '₽'),
        (3, 'EUR', '€'),
        (4, 'JPY', '¥');
 
-alter sequence currency_id_sequence restart 5;
+select setval('currency_id_sequence', greatest(nextval('currency_id_sequence'), 5), false);
 
 insert into exchange_rate (date, exchange_rate, currency_id)
 values ('2021-09-01', 73.28, 2),
@@ -46,4 +46,4 @@ values (1, 15000, false, '39903336089073190794', 4, 1, 1),
        (4, 500, false, '36264421013439107929', 5, 1, 4),
        (5, 1500, false, '32541935657215432384', 4, 1, 4);
 
-alter sequence bank_account_id_sequence restart 6;
\ No newline at end of file
+select setval('bank_account_id_sequence', greatest(nextval('bank_account_id_sequence'), 6), false);
\ No newline at end of file
@@ -6,4 +6,5 @@ values (1, 1000, 1000, 1, 2, now()),
        (3, 1500, 1500, 3, 4, now()),
        (4, 250, 250, 4, 5, now());
 
-alter sequence transaction_id_sequence restart 5;
\ No newline at end of file
+-- Ids are allocated in pooled blocks that outlive a single test, so the sequence must never go backwards
+select setval('transaction_id_sequence', greatest(nextval('transaction_id_sequence'), 5), false);
\ No newline at end of file
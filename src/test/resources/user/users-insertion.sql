@@ -34,13 +34,13 @@ insert into permission (id, name) values (20, 'USER_DELETE');
 
 insert into permission (id, name) values (21, 'CURRENCY_CREATE');
 
-alter sequence permission_id_sequence restart 22;
+select setval('permission_id_sequence', greatest(nextval('permission_id_sequence'), 22), false);
 
 insert into role (id, name) values (1, 'ADMIN');
 insert into role (id, name) values (2, 'EMPLOYEE');
 insert into role (id, name) values (3, 'CLIENT');
 
-alter sequence role_id_sequence restart 4;
+select setval('role_id_sequence', greatest(nextval('role_id_sequence'), 4), false);
 
 insert into role_permission (role_id, permission_id)
 values (1, 1), (1, 2), (1, 3), (1, 4),
@@ -62,7 +62,7 @@ insert into users (id, user_id, username, email, password, is_email_verified, is
 (4, '4895628364', 'alekseev', 'alekseev@czarbank.org', 'password', true, false, false, false, true, false),
 (5, '9255122787', 'markov', 'markov@czarbank.org', 'password', true, false, false, false, true, false);
 
-alter sequence user_id_sequence restart 6;
+select setval('user_id_sequence', greatest(nextval('user_id_sequence'), 6), false);
 
 insert into user_role (user_id, role_id)
 values (1, 1),